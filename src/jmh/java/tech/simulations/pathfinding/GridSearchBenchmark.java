@@ -0,0 +1,90 @@
+package tech.simulations.pathfinding;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Old against new A* on seeded synthetic warehouse floors: rows of double racks with random cross-aisle gaps and a
+// scattering of single blocked cells. Every run with the same parameters searches the same floors and queries.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GridSearchBenchmark {
+
+    private static final int QUERIES = 16;
+
+    @Param({"100", "200", "400"})
+    private int size;
+
+    @Param({"42"})
+    private long seed;
+
+    private WalkableMap map;
+    private int[] starts;
+    private int[] goals;
+    private GridAStar gridAStar;
+    private LegacyAStar legacyAStar;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(seed);
+        long[] bits = WalkableMap.newBits(size, size);
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                boolean rack = x >= 8 && x < size - 8 && x % 6 < 2 && z >= 8 && z < size - 8;
+                boolean clutter = random.nextInt(100) < 3;
+                if (!rack && !clutter) {
+                    WalkableMap.set(bits, z * size + x);
+                }
+            }
+        }
+        // Cross aisles through the rack rows.
+        for (int z = 8; z < size - 8; z += 20 + random.nextInt(20)) {
+            for (int x = 0; x < size; x++) {
+                WalkableMap.set(bits, z * size + x);
+            }
+        }
+        map = new WalkableMap(size, size, bits);
+
+        starts = new int[QUERIES];
+        goals = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = randomWalkableCell(random);
+            goals[i] = randomWalkableCell(random);
+        }
+        gridAStar = new GridAStar();
+        legacyAStar = new LegacyAStar();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void gridAStar(Blackhole blackhole) {
+        search(gridAStar, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void legacyAStar(Blackhole blackhole) {
+        search(legacyAStar, blackhole);
+    }
+
+    private void search(GridSearch search, Blackhole blackhole) {
+        for (int i = 0; i < QUERIES; i++) {
+            blackhole.consume(search.findPath(map, starts[i], goals[i]));
+        }
+    }
+
+    private int randomWalkableCell(Random random) {
+        while (true) {
+            int cell = random.nextInt(size * size);
+            if (map.isWalkable(cell)) {
+                return cell;
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package tech.simulations.pathfinding;
+
+import java.util.*;
+
+// The search AStarPathFind ran before GridAStar, kept only as the benchmark baseline: a PathNode per walkable cell,
+// a PriorityQueue with linear contains() and a HashSet closed list, all allocated per query.
+class LegacyAStar implements GridSearch {
+
+    private static final int STRAIGHT_COST = 10;
+    private static final int DIAGONAL_COST = 14;
+    private static final int[][] DIRECTIONS = {
+            {1, 0}, {-1, 0}, {0, 1}, {0, -1},
+            {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+    };
+
+    private int expandedNodes;
+
+    private static class PathNode {
+        int x, z, gCost, hCost, fCost;
+        PathNode parent;
+
+        PathNode(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+
+        void calculateCosts(PathNode end, int newGCost) {
+            this.gCost = newGCost;
+            this.hCost = Math.abs(x - end.x) + Math.abs(z - end.z) * STRAIGHT_COST;
+            this.fCost = gCost + hCost;
+        }
+    }
+
+    @Override
+    public int[] findPath(WalkableMap map, int start, int goal) {
+        expandedNodes = 0;
+        int columns = map.getColumns();
+        int rows = map.getRows();
+
+        PathNode[][] grid = new PathNode[columns][rows];
+        for (int x = 0; x < columns; x++) {
+            for (int z = 0; z < rows; z++) {
+                if (map.isWalkable(x, z)) {
+                    grid[x][z] = new PathNode(x, z);
+                }
+            }
+        }
+
+        PathNode startNode = grid[start % columns][start / columns];
+        PathNode endNode = grid[goal % columns][goal / columns];
+        if (startNode == null || endNode == null) {
+            return new int[0];
+        }
+
+        PriorityQueue<PathNode> openSet = new PriorityQueue<>(Comparator.comparingInt(n -> n.fCost));
+        Set<PathNode> closedSet = new HashSet<>();
+        openSet.add(startNode);
+
+        while (!openSet.isEmpty()) {
+            PathNode current = openSet.poll();
+            expandedNodes++;
+            if (current == endNode) {
+                List<Integer> cells = new ArrayList<>();
+                for (PathNode node = current; node != null; node = node.parent) {
+                    cells.add(0, node.z * columns + node.x);
+                }
+                return cells.stream().mapToInt(Integer::intValue).toArray();
+            }
+            closedSet.add(current);
+
+            for (int[] dir : DIRECTIONS) {
+                int nx = current.x + dir[0];
+                int nz = current.z + dir[1];
+                if (nx < 0 || nx >= columns || nz < 0 || nz >= rows) continue;
+
+                PathNode neighbor = grid[nx][nz];
+                if (neighbor == null || closedSet.contains(neighbor)) continue;
+
+                int tentativeGCost = current.gCost + (dir[0] != 0 && dir[1] != 0 ? DIAGONAL_COST : STRAIGHT_COST);
+                if (!openSet.contains(neighbor) || tentativeGCost < neighbor.gCost) {
+                    neighbor.calculateCosts(endNode, tentativeGCost);
+                    neighbor.parent = current;
+                    if (!openSet.contains(neighbor)) {
+                        openSet.add(neighbor);
+                    }
+                }
+            }
+        }
+        return new int[0];
+    }
+
+    @Override
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+}
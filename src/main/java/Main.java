@@ -1,14 +1,20 @@
 import com.formdev.flatlaf.themes.FlatMacLightLaf;
 import mdlaf.MaterialLookAndFeel;
+import tech.simulations.HeadlessSimulationRunner;
 import ui.ProjectsView;
 
 import javax.swing.*;
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.ResourceBundle;
 
 public class Main {
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--headless")) {
+            System.exit(HeadlessSimulationRunner.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
         try {
             JPopupMenu.setDefaultLightWeightPopupEnabled(false);
             ToolTipManager.sharedInstance().setLightWeightPopupEnabled(false);
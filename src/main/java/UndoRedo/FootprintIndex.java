@@ -0,0 +1,183 @@
+package UndoRedo;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Spatial;
+
+import java.util.*;
+
+// Uniform hash grid over the XZ footprints (world bounds) of the current scene objects, so overlap queries only look at
+// the objects near the queried rectangle. Kept up to date from the undo manager's scene changes; changed objects are
+// re-indexed on the next query. Footprints are {minX, minZ, maxX, maxZ} in world units.
+public class FootprintIndex implements SceneChangeListener {
+
+    private static final float BUCKET_SIZE = 20f;
+    // Floors and plain areas would fill thousands of buckets, they are few enough to check one by one.
+    private static final int MAX_BUCKETS_PER_OBJECT = 256;
+
+    private final UndoManager undoManager;
+    private final Map<Long, List<Spatial>> buckets = new HashMap<>();
+    private final Map<Spatial, float[]> footprints = new HashMap<>();
+    private final Set<Spatial> largeObjects = new LinkedHashSet<>();
+    private final Set<Spatial> dirtyObjects = new LinkedHashSet<>();
+    private boolean fullRebuild = true;
+
+    public FootprintIndex(UndoManager undoManager) {
+        this.undoManager = undoManager;
+        undoManager.addSceneChangeListener(this);
+    }
+
+    @Override
+    public synchronized void onSceneChanged(UndoableAction action) {
+        if (action == null) {
+            fullRebuild = true;
+        } else if (action instanceof ModelLoadAction) {
+            dirtyObjects.add(((ModelLoadAction) action).getModel());
+        } else if (action instanceof DeleteAction) {
+            dirtyObjects.add(((DeleteAction) action).getDeletedObject());
+        } else if (action instanceof PropertyChangeAction) {
+            dirtyObjects.add(((PropertyChangeAction) action).getObject());
+        } else if (action instanceof FloorPlacementAction) {
+            dirtyObjects.addAll(((FloorPlacementAction) action).getFloorGeometries());
+        } else if (action instanceof FloorDeleteAction) {
+            dirtyObjects.addAll(((FloorDeleteAction) action).getFloorGeometries());
+        } else if (action instanceof PlainAreaPlacementAction) {
+            dirtyObjects.add(((PlainAreaPlacementAction) action).getPlainAreaGeometry());
+        } else if (action instanceof RackPlacementAction) {
+            dirtyObjects.addAll(((RackPlacementAction) action).getPlacedRacks());
+        } else if (action instanceof PasteAction) {
+            dirtyObjects.addAll(((PasteAction) action).getPastedObjects());
+        }
+    }
+
+    // Scene objects whose footprint overlaps the rectangle; touching edges do not count.
+    public synchronized Set<Spatial> query(float minX, float minZ, float maxX, float maxZ) {
+        ensureUpToDate();
+        Set<Spatial> result = new LinkedHashSet<>();
+        for (int bz = bucket(minZ); bz <= bucket(maxZ); bz++) {
+            for (int bx = bucket(minX); bx <= bucket(maxX); bx++) {
+                List<Spatial> objects = buckets.get(key(bx, bz));
+                if (objects == null) continue;
+                for (Spatial object : objects) {
+                    if (overlaps(footprints.get(object), minX, minZ, maxX, maxZ)) {
+                        result.add(object);
+                    }
+                }
+            }
+        }
+        for (Spatial object : largeObjects) {
+            if (overlaps(footprints.get(object), minX, minZ, maxX, maxZ)) {
+                result.add(object);
+            }
+        }
+        return result;
+    }
+
+    // Null if the object is not in the scene or has no usable bound.
+    public synchronized float[] getFootprint(Spatial object) {
+        ensureUpToDate();
+        float[] footprint = footprints.get(object);
+        return footprint != null ? footprint.clone() : null;
+    }
+
+    public static float[] footprintOf(Spatial object) {
+        BoundingVolume bound = object.getWorldBound();
+        Vector3f center;
+        float xExtent;
+        float zExtent;
+        if (bound instanceof BoundingBox) {
+            BoundingBox box = (BoundingBox) bound;
+            center = box.getCenter();
+            xExtent = box.getXExtent();
+            zExtent = box.getZExtent();
+        } else if (bound instanceof BoundingSphere) {
+            BoundingSphere sphere = (BoundingSphere) bound;
+            center = sphere.getCenter();
+            xExtent = sphere.getRadius();
+            zExtent = sphere.getRadius();
+        } else {
+            return null;
+        }
+        return new float[]{center.x - xExtent, center.z - zExtent, center.x + xExtent, center.z + zExtent};
+    }
+
+    private void ensureUpToDate() {
+        if (fullRebuild) {
+            rebuild();
+        } else if (!dirtyObjects.isEmpty()) {
+            patch();
+        }
+    }
+
+    private void rebuild() {
+        buckets.clear();
+        footprints.clear();
+        largeObjects.clear();
+        dirtyObjects.clear();
+        for (Spatial object : undoManager.getCurrentSceneObjects()) {
+            add(object);
+        }
+        fullRebuild = false;
+    }
+
+    private void patch() {
+        Set<Spatial> currentObjects = new HashSet<>(undoManager.getCurrentSceneObjects());
+        for (Spatial object : dirtyObjects) {
+            remove(object);
+            if (currentObjects.contains(object)) {
+                add(object);
+            }
+        }
+        dirtyObjects.clear();
+    }
+
+    private void add(Spatial object) {
+        float[] footprint = footprintOf(object);
+        if (footprint == null) {
+            return;
+        }
+        footprints.put(object, footprint);
+
+        int fromX = bucket(footprint[0]), toX = bucket(footprint[2]);
+        int fromZ = bucket(footprint[1]), toZ = bucket(footprint[3]);
+        if (((long) toX - fromX + 1) * ((long) toZ - fromZ + 1) > MAX_BUCKETS_PER_OBJECT || toX == Integer.MAX_VALUE || toZ == Integer.MAX_VALUE) {
+            largeObjects.add(object);
+            return;
+        }
+        for (int bz = fromZ; bz <= toZ; bz++) {
+            for (int bx = fromX; bx <= toX; bx++) {
+                buckets.computeIfAbsent(key(bx, bz), k -> new ArrayList<>(4)).add(object);
+            }
+        }
+    }
+
+    private void remove(Spatial object) {
+        float[] footprint = footprints.remove(object);
+        if (footprint == null || largeObjects.remove(object)) {
+            return;
+        }
+        for (int bz = bucket(footprint[1]); bz <= bucket(footprint[3]); bz++) {
+            for (int bx = bucket(footprint[0]); bx <= bucket(footprint[2]); bx++) {
+                long key = key(bx, bz);
+                List<Spatial> objects = buckets.get(key);
+                if (objects != null && objects.remove(object) && objects.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    private static boolean overlaps(float[] footprint, float minX, float minZ, float maxX, float maxZ) {
+        return footprint[0] < maxX && footprint[2] > minX && footprint[1] < maxZ && footprint[3] > minZ;
+    }
+
+    private static int bucket(float coordinate) {
+        return (int) Math.floor(coordinate / BUCKET_SIZE);
+    }
+
+    private static long key(int bx, int bz) {
+        return ((long) bx << 32) | (bz & 0xFFFFFFFFL);
+    }
+}
@@ -52,6 +52,10 @@ public class PropertyChangeAction implements UndoableAction {
         setObjectColor(object, newColor);
     }
 
+    public Spatial getObject() {
+        return object;
+    }
+
     public void setFinalProperties(Vector3f newPosition, Vector3f newRotation, Vector3f newScale, ColorRGBA newColor) {
         this.newPosition = newPosition.clone();
         this.newRotation = newRotation.clone();
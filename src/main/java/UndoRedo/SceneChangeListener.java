@@ -0,0 +1,5 @@
+package UndoRedo;
+
+public interface SceneChangeListener {
+    void onSceneChanged(UndoableAction action);
+}
@@ -16,11 +16,12 @@ public class UndoManager {
     private Stack<UndoableAction> undoStack = new Stack<>();
     private Stack<UndoableAction> redoStack = new Stack<>();
     private List<UndoRedoListener> listeners = new ArrayList<>();
+    private List<SceneChangeListener> sceneChangeListeners = new ArrayList<>();
     private List<Spatial> sceneObjects = new ArrayList<>();
     private HashMap<Spatial, Tag> tagMap = new HashMap<>();
     private ArrayList<Tag> tags = new ArrayList<>();
     private TagManager tagManager = new TagManager();
-    private final Map<Spatial, Map<Parameter, String>> objectsParameters = new HashMap<>();
+    private final Map<Spatial, Map<Parameter, String>> objectsParameters = new LinkedHashMap<>();
 
     private final Map<Geometry, Float> floorCompleteAreas = new HashMap<>();
     private final Map<Geometry, Float> floorSegmentDistances = new HashMap<>();
@@ -31,6 +32,11 @@ public class UndoManager {
     private final Map<Geometry, List<Vector3f>> completeFloorVertices = new HashMap<>();
     private final Map<Geometry, Float> plainAreaCompleteAreas = new HashMap<>();
     private ArrayList<Pallet> pallets = new ArrayList<>();
+    private final FootprintIndex footprintIndex = new FootprintIndex(this);
+
+    public FootprintIndex getFootprintIndex() {
+        return footprintIndex;
+    }
 
     public Map<Geometry, Float> getFloorCompleteAreas() {
         return floorCompleteAreas;
@@ -89,6 +95,7 @@ public class UndoManager {
             sceneObjects.addAll(pasteAction.getPastedObjects());
         }
 
+        notifySceneChangeListeners(action);
         notifyListeners();
     }
 
@@ -155,6 +162,7 @@ public class UndoManager {
                 sceneObjects.removeAll(pasteAction.getPastedObjects());
             }
 
+            notifySceneChangeListeners(action);
             notifyListeners();
         }
     }
@@ -221,6 +229,7 @@ public class UndoManager {
                 sceneObjects.addAll(pasteAction.getPastedObjects());
             }
 
+            notifySceneChangeListeners(action);
             notifyListeners();
         }
     }
@@ -235,6 +244,16 @@ public class UndoManager {
         }
     }
 
+    public void addSceneChangeListener(SceneChangeListener listener) {
+        sceneChangeListeners.add(listener);
+    }
+
+    public void notifySceneChangeListeners(UndoableAction action) {
+        for (SceneChangeListener listener : sceneChangeListeners) {
+            listener.onSceneChanged(action);
+        }
+    }
+
     public List<Spatial> getCurrentSceneObjects() {
         return new ArrayList<>(sceneObjects);
     }
@@ -242,6 +261,7 @@ public class UndoManager {
     public void setSceneObjects(List<Spatial> objects) {
         this.sceneObjects = objects;
         System.out.println();
+        notifySceneChangeListeners(null);
         notifyListeners();
     }
 
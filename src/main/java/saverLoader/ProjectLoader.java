@@ -29,47 +29,73 @@ public class ProjectLoader {
     private final AssetManager assetManager;
     private final Node rootNode;
     private final WareSkladInit jmeScene;
-    private final FloorPlacer floorPlacer;
 
     public ProjectLoader(UndoManager undoManager, AssetManager assetManager, WareSkladInit jmeScene) {
+        this(undoManager, assetManager, jmeScene.getRootNode(), jmeScene);
+    }
+
+    // Headless loading: the scene graph is only built to feed the undo manager and the navigation grid.
+    public ProjectLoader(UndoManager undoManager, AssetManager assetManager, Node rootNode) {
+        this(undoManager, assetManager, rootNode, null);
+    }
+
+    private ProjectLoader(UndoManager undoManager, AssetManager assetManager, Node rootNode, WareSkladInit jmeScene) {
         this.undoManager = undoManager;
         this.gson = new GsonBuilder().setPrettyPrinting().create();
         this.assetManager = assetManager;
-        this.rootNode = jmeScene.getRootNode();
+        this.rootNode = rootNode;
         this.jmeScene = jmeScene;
-        this.floorPlacer = jmeScene.floorPlacer;
     }
 
     public void loadProject(String filePath) {
-        try (FileReader reader = new FileReader(filePath)) {
+        try {
+            JsonObject rootJson = readProject(filePath);
             clearCurrentScene();
-            JsonObject rootJson = gson.fromJson(reader, JsonObject.class);
-            JsonArray sceneArray = rootJson.getAsJsonArray("scene");
-            List<Spatial> loadedObjects = new ArrayList<>();
-
-            jmeScene.enqueue(() -> {
-                for (int i = 0; i < sceneArray.size(); i++) {
-                    JsonObject objectJson = sceneArray.get(i).getAsJsonObject();
-                    Spatial spatial = loadSpatial(objectJson);
-                    if (spatial != null) {
-                        rootNode.attachChild(spatial);
-                        spatial.updateModelBound();
-                        spatial.updateGeometricState();
-                        loadedObjects.add(spatial);
-
-                        // Load parameters for the spatial
-                        loadParametersForSpatial(spatial, objectJson);
-                    }
-                }
-
-                undoManager.setSceneObjects(loadedObjects);
-            });
-
+            jmeScene.enqueue(() -> populateScene(rootJson));
         } catch (IOException e) {
             System.err.println("Error loading project: " + e.getMessage());
         }
     }
 
+    public List<Spatial> loadProjectData(String filePath) throws IOException {
+        JsonObject rootJson = readProject(filePath);
+        clearCurrentScene();
+        return populateScene(rootJson);
+    }
+
+    private JsonObject readProject(String filePath) throws IOException {
+        try (FileReader reader = new FileReader(filePath)) {
+            JsonObject rootJson = gson.fromJson(reader, JsonObject.class);
+            if (rootJson == null || !rootJson.has("scene")) {
+                throw new IOException("No scene found in " + filePath);
+            }
+            return rootJson;
+        } catch (JsonParseException e) {
+            throw new IOException("Invalid project file " + filePath + ": " + e.getMessage(), e);
+        }
+    }
+
+    private List<Spatial> populateScene(JsonObject rootJson) {
+        JsonArray sceneArray = rootJson.getAsJsonArray("scene");
+        List<Spatial> loadedObjects = new ArrayList<>();
+        for (int i = 0; i < sceneArray.size(); i++) {
+            JsonObject objectJson = sceneArray.get(i).getAsJsonObject();
+            Spatial spatial = loadSpatial(objectJson);
+            if (spatial != null) {
+                rootNode.attachChild(spatial);
+                spatial.updateModelBound();
+                spatial.updateGeometricState();
+                loadedObjects.add(spatial);
+
+                // Load parameters for the spatial
+                loadParametersForSpatial(spatial, objectJson);
+            }
+        }
+
+        undoManager.setSceneObjects(loadedObjects);
+        return loadedObjects;
+    }
+
     private void clearCurrentScene() {
         List<Spatial> currentObjects = undoManager.getCurrentSceneObjects();
         if (currentObjects != null) {
@@ -207,7 +233,7 @@ public class ProjectLoader {
         );
 
         Vector3f[] vertices = floorVertices.toArray(new Vector3f[0]);
-        int[] indices = floorPlacer.triangulate(vertices);
+        int[] indices = FloorPlacer.triangulate(vertices);
 
         Mesh mesh = new Mesh();
         mesh.setBuffer(VertexBuffer.Type.Position, 3, BufferUtils.createFloatBuffer(vertices));
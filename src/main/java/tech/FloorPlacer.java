@@ -271,7 +271,7 @@ public class FloorPlacer {
         return snapToGrid(center);
     }
 
-    public int[] triangulate(Vector3f[] vertices) {
+    public static int[] triangulate(Vector3f[] vertices) {
         List<Integer> indices = new ArrayList<>();
         int n = vertices.length;
 
@@ -315,7 +315,7 @@ public class FloorPlacer {
         return result;
     }
 
-    private boolean snip(Vector3f[] vertices, int u, int v, int w, int n, int[] V) {
+    private static boolean snip(Vector3f[] vertices, int u, int v, int w, int n, int[] V) {
         Vector3f A = vertices[V[u]];
         Vector3f B = vertices[V[v]];
         Vector3f C = vertices[V[w]];
@@ -330,7 +330,7 @@ public class FloorPlacer {
         return true;
     }
 
-    private boolean isPointInsideTriangle(Vector3f A, Vector3f B, Vector3f C, Vector3f P) {
+    private static boolean isPointInsideTriangle(Vector3f A, Vector3f B, Vector3f C, Vector3f P) {
         Vector3f v0 = C.subtract(A);
         Vector3f v1 = B.subtract(A);
         Vector3f v2 = P.subtract(A);
@@ -348,7 +348,7 @@ public class FloorPlacer {
         return (u >= 0) && (v >= 0) && (u + v < 1);
     }
 
-    private boolean isClockwise(Vector3f[] vertices) {
+    private static boolean isClockwise(Vector3f[] vertices) {
         float sum = 0;
         for (int i = 0; i < vertices.length; i++) {
             Vector3f current = vertices[i];
@@ -0,0 +1,28 @@
+package tech;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.scene.Spatial;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Loads each model once and hands out clones of it. Clones share the prototype's meshes, so the vertex buffers exist and
+// are uploaded only once, but get their own materials because colour and layer opacity are changed per object.
+// Prototypes are never attached or changed, so they can be loaded on any thread and cloned on the render thread.
+public class ModelPrototypeCache {
+    private final AssetManager assetManager;
+    private final Map<String, Spatial> prototypes = new ConcurrentHashMap<>();
+
+    public ModelPrototypeCache(AssetManager assetManager) {
+        this.assetManager = assetManager;
+    }
+
+    // Reading the model from disk takes long enough to drop frames, so callers load it before handing work to the render thread.
+    public void preload(String modelPath) {
+        prototypes.computeIfAbsent(modelPath, assetManager::loadModel);
+    }
+
+    public Spatial instance(String modelPath) {
+        return prototypes.computeIfAbsent(modelPath, assetManager::loadModel).clone(true);
+    }
+}
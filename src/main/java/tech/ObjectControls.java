@@ -4,8 +4,6 @@ import UndoRedo.PropertyChangeAction;
 import UndoRedo.UndoManager;
 import com.jme3.asset.AssetManager;
 import com.jme3.bounding.BoundingBox;
-import com.jme3.collision.CollisionResult;
-import com.jme3.collision.CollisionResults;
 import com.jme3.input.InputManager;
 import com.jme3.input.MouseInput;
 import com.jme3.input.controls.ActionListener;
@@ -25,6 +23,8 @@ import com.jme3.scene.shape.Box;
 import ui.Grid;
 import ui.PropertiesPanel;
 
+import java.util.Set;
+
 public class ObjectControls {
     private Spatial selectedObject;
     private Geometry outlineGeometry;
@@ -138,16 +138,14 @@ public class ObjectControls {
                 if (stackingObjects) {
                     float topmostY = Grid.GRID_Y_LEVEL;
 
-                    BoundingBox detectionArea = new BoundingBox(newPosition, 10f, 1000f, 10f);
-                    CollisionResults results = new CollisionResults();
-                    rootNode.collideWith(detectionArea, results);
+                    Set<Spatial> results = undoManager.getFootprintIndex().query(newPosition.x - 10f, newPosition.z - 10f,
+                            newPosition.x + 10f, newPosition.z + 10f);
 
                     if (results.size() > 0) {
-                        for (CollisionResult result : results) {
-                            Spatial collidedObject = result.getGeometry();
+                        for (Spatial collidedObject : results) {
                             if (collidedObject != selectedObject && !isExcluded(collidedObject)) {
-                                BoundingBox collidedBounds = (BoundingBox) collidedObject.getWorldBound();
-                                if (collidedBounds != null) {
+                                if (collidedObject.getWorldBound() instanceof BoundingBox) {
+                                    BoundingBox collidedBounds = (BoundingBox) collidedObject.getWorldBound();
                                     float collidedHeight = collidedBounds.getYExtent() * 2;
                                     float collidedY = collidedObject.getWorldTranslation().y;
                                     float objectTopY = collidedY + collidedHeight;
@@ -1,20 +1,17 @@
 package tech;
 
-import UndoRedo.RackPlacementAction;
 import UndoRedo.UndoManager;
-import com.jme3.bounding.BoundingBox;
-import com.jme3.bounding.BoundingSphere;
-import com.jme3.bounding.BoundingVolume;
 import com.jme3.math.FastMath;
 import com.jme3.math.Quaternion;
+import com.jme3.math.Transform;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Spatial;
 
 import java.util.*;
-import java.util.concurrent.Future;
 
 public class RackPlacementManager {
+    private static final String RACK_MODEL = "Models/Racks/Rack200cm180cm110cm.j3o";
 
     private final UndoManager undoManager;
     private final Map<Geometry, List<Vector3f>> completeFloorVertices;
@@ -23,6 +20,7 @@ public class RackPlacementManager {
     private final WareSkladInit jmeScene;
     private final Map<Geometry, Float> floorCompleteAreas;
     private final Map<Geometry, Float> floorSegmentDistances;
+    private final ModelPrototypeCache modelCache;
 
     private float RACK_HEIGHT = 20.0f;
     private float RACK_WIDTH = 18.0f;
@@ -39,6 +37,7 @@ public class RackPlacementManager {
         this.sceneObjects = undoManager.getCurrentSceneObjects();
         this.floorCompleteAreas = undoManager.getFloorCompleteAreas();
         this.floorSegmentDistances = undoManager.getFloorSegmentDistances();
+        this.modelCache = new ModelPrototypeCache(jmeScene.getAssetManager());
     }
 
     public void placeRacks(Geometry selectedFloor, float rackWidth, float rackDepth, float rackHeight, float ceilingHeight, float minObstacleDistance, float minRowDistance) {
@@ -54,15 +53,6 @@ public class RackPlacementManager {
         }
 
         this.sceneObjects = undoManager.getCurrentSceneObjects();
-        List<Spatial> filteredSceneObjects = new ArrayList<>(sceneObjects);
-        for (Spatial sceneObject : sceneObjects) {
-            if (sceneObject instanceof Geometry) {
-                Geometry geometry = (Geometry) sceneObject;
-                if (floorCompleteAreas.containsKey(geometry) || floorSegmentDistances.containsKey(geometry)) {
-                    filteredSceneObjects.remove(sceneObject);
-                }
-            }
-        }
 
         List<Vector3f> floorVertices = completeFloorVertices.get(selectedFloor);
         if (floorVertices == null) {
@@ -91,7 +81,7 @@ public class RackPlacementManager {
             max.z = Math.max(max.z, vertex.z);
         }
 
-        List<Spatial> placedRacks = new ArrayList<>();
+        List<Vector3f> rackPositions = new ArrayList<>();
 
         float xSpace = max.x - min.x, zSpace = max.z - min.z;
         boolean placeRowsAlongX = (xSpace / (RACK_WIDTH + MIN_DISTANCE_BETWEEN_ROWS)) >= (zSpace / (RACK_WIDTH + MIN_DISTANCE_BETWEEN_ROWS));
@@ -107,16 +97,14 @@ public class RackPlacementManager {
             for (float x = min.x + RACK_DEPTH / 2 + MIN_DISTANCE_TO_OBSTACLES; x <= max.x - RACK_DEPTH / 2 - MIN_DISTANCE_TO_OBSTACLES; x += RACK_DEPTH + MIN_DISTANCE_BETWEEN_ROWS) {
                 for (float z = min.z + RACK_WIDTH / 2 + MIN_DISTANCE_TO_OBSTACLES; z <= max.z - RACK_WIDTH / 2 - MIN_DISTANCE_TO_OBSTACLES; z += RACK_WIDTH) {
                     Vector3f rackBasePosition = new Vector3f(x, floorY, z);
-                    if (isPointInPolygon(rackBasePosition, absoluteVertices) && !isCollidingWithSceneObjects(rackBasePosition, RACK_WIDTH, RACK_DEPTH, filteredSceneObjects)) {
+                    if (isPointInPolygon(rackBasePosition, absoluteVertices) && !isCollidingWithSceneObjects(rackBasePosition, RACK_WIDTH, RACK_DEPTH)) {
                         if (rackBasePosition.z + RACK_WIDTH / 2 > max.z - MIN_DISTANCE_TO_OBSTACLES) {
                             continue;
                         }
                         System.out.println("Rack at position: " + rackBasePosition + ", max.z: " + max.z);
                         for (int stackLevel = 0; stackLevel < racksPerStack; stackLevel++) {
                             float stackedY = floorY + stackLevel * RACK_HEIGHT;
-                            Vector3f rackPosition = new Vector3f(x, stackedY, z);
-                            Spatial rack = visualizeRackPlacement(rackPosition, RACK_WIDTH, RACK_DEPTH, RACK_HEIGHT, false);
-                            placedRacks.add(rack);
+                            rackPositions.add(new Vector3f(x, stackedY, z));
                         }
                     }
                 }
@@ -125,61 +113,40 @@ public class RackPlacementManager {
             for (float z = min.z + RACK_DEPTH / 2 + MIN_DISTANCE_TO_OBSTACLES; z <= max.z - RACK_DEPTH / 2 - MIN_DISTANCE_TO_OBSTACLES; z += RACK_DEPTH + MIN_DISTANCE_BETWEEN_ROWS) {
                 for (float x = min.x + RACK_WIDTH / 2 + MIN_DISTANCE_TO_OBSTACLES; x <= max.x - RACK_WIDTH / 2 - MIN_DISTANCE_TO_OBSTACLES; x += RACK_WIDTH) {
                     Vector3f rackBasePosition = new Vector3f(x, floorY, z);
-                    if (isPointInPolygon(rackBasePosition, absoluteVertices) && !isCollidingWithSceneObjects(rackBasePosition, RACK_DEPTH, RACK_WIDTH, filteredSceneObjects)) {
+                    if (isPointInPolygon(rackBasePosition, absoluteVertices) && !isCollidingWithSceneObjects(rackBasePosition, RACK_DEPTH, RACK_WIDTH)) {
                         if (rackBasePosition.z + RACK_WIDTH / 2 > max.z - MIN_DISTANCE_TO_OBSTACLES) {
                             continue;
                         }
                         System.out.println("Rack at position: " + rackBasePosition + ", max.z: " + max.z);
                         for (int stackLevel = 0; stackLevel < racksPerStack; stackLevel++) {
                             float stackedY = floorY + stackLevel * RACK_HEIGHT;
-                            Vector3f rackPosition = new Vector3f(x, stackedY, z);
-                            Spatial rack = visualizeRackPlacement(rackPosition, RACK_DEPTH, RACK_WIDTH, RACK_HEIGHT, true);
-                            placedRacks.add(rack);
+                            rackPositions.add(new Vector3f(x, stackedY, z));
                         }
                     }
                 }
             }
         }
 
-        RackPlacementAction rackPlacementAction = new RackPlacementAction(placedRacks);
-        undoManager.addAction(rackPlacementAction);
+        List<Transform> rackTransforms = rackTransforms(rackPositions, RACK_WIDTH, RACK_DEPTH, RACK_HEIGHT, !placeRowsAlongX);
+        modelCache.preload(RACK_MODEL);
+        new RackPlacementState(jmeScene, undoManager, modelCache, RACK_MODEL, rackTransforms).start();
     }
 
-    private Spatial visualizeRackPlacement(Vector3f position, float rackWidth, float rackDepth, float rackHeight, boolean rotate) {
-        Future<Spatial> rackFuture = jmeScene.enqueue(() -> {
-            Spatial rackModel = jmeScene.getAssetManager().loadModel("Models/Racks/Rack200cm180cm110cm.j3o");
-
-            float modelWidth = 1.8f;
-            float modelHeight = 2.0f;
-            float modelDepth = 1.1f;
-
-            final float finalRackWidth = rotate ? rackDepth : rackWidth;
-            final float finalRackDepth = rotate ? rackWidth : rackDepth;
-
-            float scaleX = finalRackWidth / modelWidth;
-            float scaleY = rackHeight / modelHeight;
-            float scaleZ = finalRackDepth / modelDepth;
-
-            rackModel.setLocalScale(scaleX, scaleY, scaleZ);
-            rackModel.setLocalTranslation(position);
-
-            if (rotate) {
-                rackModel.setLocalRotation(new Quaternion().fromAngleAxis(FastMath.PI / 2, Vector3f.UNIT_Y));
-            } else {
-                rackModel.setLocalRotation(Quaternion.IDENTITY);
-            }
+    // Placement is computed here, off the render thread; RackPlacementState then clones the racks into the scene over
+    // the following frames.
+    private List<Transform> rackTransforms(List<Vector3f> positions, float rackWidth, float rackDepth, float rackHeight, boolean rotate) {
+        float modelWidth = 1.8f;
+        float modelHeight = 2.0f;
+        float modelDepth = 1.1f;
 
-            rackModel.updateModelBound();
-            rackModel.updateGeometricState();
+        Vector3f scale = new Vector3f(rackWidth / modelWidth, rackHeight / modelHeight, rackDepth / modelDepth);
+        Quaternion rotation = rotate ? new Quaternion().fromAngleAxis(FastMath.PI / 2, Vector3f.UNIT_Y) : Quaternion.IDENTITY;
 
-            jmeScene.getRootNode().attachChild(rackModel);
-            return rackModel;
-        });
-        try {
-            return rackFuture.get();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create rack model", e);
+        List<Transform> transforms = new ArrayList<>(positions.size());
+        for (Vector3f position : positions) {
+            transforms.add(new Transform(position, rotation, scale));
         }
+        return transforms;
     }
 
     private boolean isPointInPolygon(Vector3f point, List<Vector3f> polygon) {
@@ -194,39 +161,17 @@ public class RackPlacementManager {
         return (intersectCount % 2) == 1;
     }
 
-    private boolean checkCollision(Vector3f rackPosition, float rackWidth, float rackDepth, Vector3f objectPosition, float objectWidth, float objectDepth) {
-        return (Math.abs(rackPosition.x - objectPosition.x) < (rackWidth + objectWidth) / 2 + MIN_DISTANCE_TO_OBSTACLES) &&
-                (Math.abs(rackPosition.z - objectPosition.z) < (rackDepth + objectDepth) / 2 + MIN_DISTANCE_TO_OBSTACLES);
-    }
-
-    private boolean isCollidingWithSceneObjects(Vector3f rackPosition, float rackWidth, float rackDepth, List<Spatial> filteredSceneObjects) {
-        for (Spatial sceneObject : filteredSceneObjects) {
-            if (sceneObject instanceof Geometry) {
-                Geometry geometry = (Geometry) sceneObject;
-                Vector3f objectPosition = geometry.getLocalTranslation();
-
-                BoundingVolume boundingVolume = geometry.getWorldBound();
-                if (boundingVolume instanceof BoundingBox || boundingVolume instanceof BoundingSphere) {
-                    Vector3f objectDimensions = getObjectDimensions(boundingVolume);
-
-                    if (checkCollision(rackPosition, rackWidth, rackDepth, objectPosition, objectDimensions.x, objectDimensions.z)) {
-                        return true;
-                    }
-                }
+    // Candidates come from the footprint index, so each check only looks at the objects around the rack.
+    private boolean isCollidingWithSceneObjects(Vector3f rackPosition, float rackWidth, float rackDepth) {
+        float halfWidth = rackWidth / 2 + MIN_DISTANCE_TO_OBSTACLES;
+        float halfDepth = rackDepth / 2 + MIN_DISTANCE_TO_OBSTACLES;
+        Set<Spatial> nearby = undoManager.getFootprintIndex().query(rackPosition.x - halfWidth, rackPosition.z - halfDepth,
+                rackPosition.x + halfWidth, rackPosition.z + halfDepth);
+        for (Spatial sceneObject : nearby) {
+            if (sceneObject instanceof Geometry && !floorCompleteAreas.containsKey(sceneObject) && !floorSegmentDistances.containsKey(sceneObject)) {
+                return true;
             }
         }
         return false;
     }
-
-    private Vector3f getObjectDimensions(BoundingVolume volume) {
-        if (volume instanceof BoundingBox) {
-            BoundingBox box = (BoundingBox) volume;
-            return new Vector3f(box.getXExtent() * 2, box.getYExtent() * 2, box.getZExtent() * 2);
-        } else if (volume instanceof BoundingSphere) {
-            BoundingSphere sphere = (BoundingSphere) volume;
-            float diameter = sphere.getRadius() * 2;
-            return new Vector3f(diameter, diameter, diameter);
-        }
-        return Vector3f.ZERO;
-    }
 }
@@ -0,0 +1,75 @@
+package tech;
+
+import UndoRedo.RackPlacementAction;
+import UndoRedo.UndoManager;
+import com.jme3.app.Application;
+import com.jme3.app.state.BaseAppState;
+import com.jme3.math.Transform;
+import com.jme3.scene.Spatial;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Puts computed rack transforms into the scene a frame's worth at a time, so the view keeps rendering while thousands of
+// racks appear. The whole placement becomes one undo step once the last rack is attached.
+public class RackPlacementState extends BaseAppState {
+    private static final long FRAME_BUDGET_NANOS = 4_000_000; // scene-graph work per frame, leaves room for rendering at 60 fps
+
+    private final WareSkladInit jmeScene;
+    private final UndoManager undoManager;
+    private final ModelPrototypeCache modelCache;
+    private final String modelPath;
+    private final List<Transform> transforms;
+    private final List<Spatial> placedRacks;
+    private int next;
+
+    public RackPlacementState(WareSkladInit jmeScene, UndoManager undoManager, ModelPrototypeCache modelCache, String modelPath, List<Transform> transforms) {
+        this.jmeScene = jmeScene;
+        this.undoManager = undoManager;
+        this.modelCache = modelCache;
+        this.modelPath = modelPath;
+        this.transforms = transforms;
+        this.placedRacks = new ArrayList<>(transforms.size());
+    }
+
+    public void start() {
+        jmeScene.enqueue(() -> jmeScene.getStateManager().attach(this));
+    }
+
+    @Override
+    protected void initialize(Application app) {
+    }
+
+    @Override
+    public void update(float tpf) {
+        long start = System.nanoTime();
+        // At least one rack per frame, however slow the frame.
+        do {
+            if (next >= transforms.size()) break;
+
+            Spatial rack = modelCache.instance(modelPath);
+            rack.setLocalTransform(transforms.get(next++));
+            rack.updateModelBound();
+            rack.updateGeometricState();
+            jmeScene.getRootNode().attachChild(rack);
+            placedRacks.add(rack);
+        } while (System.nanoTime() - start < FRAME_BUDGET_NANOS);
+
+        if (next >= transforms.size()) {
+            undoManager.addAction(new RackPlacementAction(placedRacks));
+            getStateManager().detach(this);
+        }
+    }
+
+    @Override
+    protected void cleanup(Application app) {
+    }
+
+    @Override
+    protected void onEnable() {
+    }
+
+    @Override
+    protected void onDisable() {
+    }
+}
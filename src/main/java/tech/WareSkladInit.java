@@ -19,6 +19,7 @@ import com.jme3.scene.Spatial;
 import com.jme3.system.AppSettings;
 import com.jme3.system.JmeCanvasContext;
 import tech.layers.LayersManager;
+import tech.simulations.pathfinding.NavGrid;
 import ui.Grid;
 import ui.PropertiesPanel;
 import ui.UILinesDrawer;
@@ -55,6 +56,7 @@ public class WareSkladInit extends SimpleApplication {
     private UILinesDrawer uiLinesDrawer;
     private GeometrySelectionHandler geometrySelectionHandler;
     public RackPlacementManager rackPlacementManager;
+    public NavGrid navGrid;
 
     private ArrayList<Spatial> multiSelectedObjects = new ArrayList<>();
     private ArrayList<Spatial> copiedObjects = new ArrayList<>();
@@ -81,6 +83,7 @@ public class WareSkladInit extends SimpleApplication {
         grid = new Grid(assetManager, rootNode);
 
         undoManager = new UndoManager();
+        navGrid = new NavGrid(undoManager);
         inputHandler = new InputHandler(inputManager, cameraController, undoManager, this);
 
         cam.setLocation(new Vector3f(0, cameraController.getCurrentZoom(), 0));
@@ -1,326 +1,288 @@
 package tech.simulations;
 
-import UndoRedo.UndoManager;
 import com.jme3.asset.AssetManager;
-import com.jme3.bounding.BoundingBox;
 import com.jme3.material.Material;
 import com.jme3.math.ColorRGBA;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
 import com.jme3.scene.Node;
-import com.jme3.scene.Spatial;
-import com.jme3.scene.shape.Line;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.util.BufferUtils;
 import tech.WareSkladInit;
-import ui.Grid;
-
-import java.util.*;
+import tech.simulations.pathfinding.DStarLite;
+import tech.simulations.pathfinding.GridSearch;
+import tech.simulations.pathfinding.NavGrid;
+import tech.simulations.pathfinding.PathCache;
+import tech.simulations.pathfinding.PathFindingMode;
+import tech.simulations.pathfinding.PathSmoother;
+import tech.simulations.pathfinding.WalkableMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
 
 public class AStarPathFind {
 
-    private static final int STRAIGHT_COST = 10;
-    private static final int DIAGONAL_COST = 14;
+    private static final ForkJoinPool PATH_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
     private final Node rootNode;
     private final AssetManager assetManager;
     private final WareSkladInit jmeScene;
     private final List<Geometry> drawnLines = new ArrayList<>();
-    private final float avoidanceDistance;
+    private final NavGrid navGrid;
+    private final int clearanceCells;
+    private final PathFindingMode mode;
+    private final GridSearch search;
+    private final LongAdder queryCount = new LongAdder();
+    private final LongAdder expandedNodes = new LongAdder();
+    private final LongAdder searchTimeNanos = new LongAdder();
+    private final LongAdder rawWaypoints = new LongAdder();
+    private final LongAdder smoothedWaypoints = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder replanCount = new LongAdder();
+    private final LongAdder replanExpandedNodes = new LongAdder();
+    private Material lineMaterial;
 
     public AStarPathFind(WareSkladInit jmeScene, float avoidanceDistance) {
-        this.rootNode = jmeScene.getRootNode();
-        this.assetManager = jmeScene.getAssetManager();
-        this.jmeScene = jmeScene;
-        this.avoidanceDistance = avoidanceDistance * Grid.GRID_SPACING;
+        this(jmeScene, avoidanceDistance, PathFindingMode.A_STAR);
     }
 
-    private static class PathNode {
-        int x, z, gCost, hCost, fCost;
-        PathNode parent;
-
-        public PathNode(int x, int z) {
-            this.x = x;
-            this.z = z;
-        }
-
-        public void calculateCosts(PathNode end, int newGCost) {
-            this.gCost = newGCost;
-            this.hCost = Math.abs(x - end.x) + Math.abs(z - end.z) * STRAIGHT_COST;
-            this.fCost = gCost + hCost;
-        }
+    public AStarPathFind(WareSkladInit jmeScene, float avoidanceDistance, PathFindingMode mode) {
+        this(jmeScene, avoidanceDistance, Forklift.DEFAULT_WIDTH, mode);
     }
 
-    private Set<Vector3f> getObstacles(Geometry startObject, Geometry endObject) {
-        Set<Vector3f> obstacles = new HashSet<>();
-
-        UndoManager undoManager = jmeScene.undoManager;
-        List<Spatial> sceneObjects = undoManager.getCurrentSceneObjects();
-        Map<Geometry, Float> floorCompleteAreas = undoManager.getFloorCompleteAreas();
-        Map<Geometry, Float> floorSegmentDistances = undoManager.getFloorSegmentDistances();
-
-        for (Spatial object : sceneObjects) {
-            if (!isFloorRelated(object, floorCompleteAreas, floorSegmentDistances) && object != startObject && object != endObject) {
-                BoundingBox boundingBox = (BoundingBox) object.getWorldBound();
-                Vector3f min = boundingBox.getMin(new Vector3f());
-                Vector3f max = boundingBox.getMax(new Vector3f());
-
-                float extendedMinX = min.x - avoidanceDistance;
-                float extendedMinZ = min.z - avoidanceDistance;
-                float extendedMaxX = max.x + avoidanceDistance;
-                float extendedMaxZ = max.z + avoidanceDistance;
-
-                for (float x = extendedMinX; x <= extendedMaxX; x += Grid.GRID_SPACING) {
-                    for (float z = extendedMinZ; z <= extendedMaxZ; z += Grid.GRID_SPACING) {
-                        Vector3f position = new Vector3f(x, min.y, z);
-                        obstacles.add(position);
-                    }
-                }
-            }
-        }
-
-        return obstacles;
+    public AStarPathFind(WareSkladInit jmeScene, float avoidanceDistance, double vehicleWidth, PathFindingMode mode) {
+        this(jmeScene, jmeScene.navGrid, avoidanceDistance, vehicleWidth, mode);
     }
 
-    private void updateGridWithObstacles(PathNode[][] grid, Set<Vector3f> obstacles, int gridSpacing, Vector3f start, Vector3f end) {
-        int gridLength = Grid.GRID_LENGTH * 2;
-        int gridWidth = Grid.GRID_WIDTH * 2;
-
-        float originX = gridLength * gridSpacing / 2f;
-        float originZ = gridWidth * gridSpacing / 2f;
-
-        int startX = (int) ((start.x + originX) / gridSpacing);
-        int startZ = (int) ((start.z + originZ) / gridSpacing);
-        int endX = (int) ((end.x + originX) / gridSpacing);
-        int endZ = (int) ((end.z + originZ) / gridSpacing);
-
-        for (Vector3f obstacle : obstacles) {
-            int x = (int) ((obstacle.x + originX) / gridSpacing);
-            int z = (int) ((obstacle.z + originZ) / gridSpacing);
-
-            if ((x == startX && z == startZ) || (x == endX && z == endZ)) {
-                continue;
-            }
+    // Headless path finder: routes are computed but never drawn.
+    public AStarPathFind(NavGrid navGrid, float avoidanceDistance, double vehicleWidth, PathFindingMode mode) {
+        this(null, navGrid, avoidanceDistance, vehicleWidth, mode);
+    }
 
-            if (x >= 0 && x < grid.length && z >= 0 && z < grid[0].length) {
-                if (grid[x][z] != null) {
-                    grid[x][z] = null;
-                }
+    private AStarPathFind(WareSkladInit jmeScene, NavGrid navGrid, float avoidanceDistance, double vehicleWidth, PathFindingMode mode) {
+        this.rootNode = jmeScene != null ? jmeScene.getRootNode() : null;
+        this.assetManager = jmeScene != null ? jmeScene.getAssetManager() : null;
+        this.jmeScene = jmeScene;
+        this.navGrid = navGrid;
+        this.clearanceCells = NavGrid.clearanceCells(avoidanceDistance, vehicleWidth);
+        this.mode = mode;
+        this.search = mode.createSearch(navGrid, clearanceCells);
+    }
 
-                for (int dx = -1; dx <= 1; dx++) {
-                    for (int dz = -1; dz <= 1; dz++) {
-                        int nx = x + dx;
-                        int nz = z + dz;
-
-                        if (nx >= 0 && nx < grid.length && nz >= 0 && nz < grid[0].length) {
-                            if (dx != 0 || dz != 0) {
-                                if (grid[nx][nz] != null) {
-                                    grid[nx][nz] = null;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+    public List<Vector3f> findPath(Geometry startGeo, Geometry endGeo) {
+        WalkableMap map = navGrid.getWalkable(clearanceCells);
+        List<Vector3f> path = solve(map, search, startGeo.getWorldTranslation(), endGeo.getWorldTranslation());
+        if (!path.isEmpty()) {
+            drawPath(path);
         }
+        return path;
     }
 
-    public List<Vector3f> findPath(Geometry startGeo, Geometry endGeo) {
-        Vector3f start = startGeo.getWorldTranslation();
-        Vector3f end = endGeo.getWorldTranslation();
-        int gridLength = Grid.GRID_LENGTH * 2;
-        int gridWidth = Grid.GRID_WIDTH * 2;
-        int gridSpacing = Grid.GRID_SPACING;
-
-        float originX = gridLength * gridSpacing / 2f;
-        float originZ = gridWidth * gridSpacing / 2f;
-
-        int startX = (int) ((start.x + originX) / gridSpacing);
-        int startZ = (int) ((start.z + originZ) / gridSpacing);
-        int endX = (int) ((end.x + originX) / gridSpacing);
-        int endZ = (int) ((end.z + originZ) / gridSpacing);
-
-        startX = Math.max(0, Math.min(startX, gridLength - 1));
-        startZ = Math.max(0, Math.min(startZ, gridWidth - 1));
-        endX = Math.max(0, Math.min(endX, gridLength - 1));
-        endZ = Math.max(0, Math.min(endZ, gridWidth - 1));
-
-        PathNode[][] grid = new PathNode[gridLength][gridWidth];
-        for (int x = 0; x < gridLength; x++) {
-            for (int z = 0; z < gridWidth; z++) {
-                Vector3f position = new Vector3f(x * gridSpacing - originX, Grid.GRID_Y_LEVEL, z * gridSpacing - originZ);
-                if (isPointInsideAnyFloor(position)) {
-                    grid[x][z] = new PathNode(x, z);
+    // The batch is split into one chunk per pool thread; each chunk owns a search for the length of the batch only, so
+    // no grid-sized buffers stay behind in the pool threads.
+    public List<List<Vector3f>> findPaths(List<PathRequest> requests) {
+        WalkableMap map = navGrid.getWalkable(clearanceCells);
+        int chunks = Math.max(1, Math.min(requests.size(), PATH_POOL.getParallelism()));
+
+        List<ForkJoinTask<List<List<Vector3f>>>> tasks = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            List<PathRequest> chunkRequests = requests.subList(chunk * requests.size() / chunks, (chunk + 1) * requests.size() / chunks);
+            tasks.add(PATH_POOL.submit(() -> {
+                GridSearch chunkSearch = mode.createSearch(navGrid, clearanceCells);
+                List<List<Vector3f>> chunkPaths = new ArrayList<>(chunkRequests.size());
+                for (PathRequest request : chunkRequests) {
+                    chunkPaths.add(solve(map, chunkSearch, request.getStart(), request.getEnd()));
                 }
-            }
+                return chunkPaths;
+            }));
         }
 
-        Set<Vector3f> obstacles = getObstacles(startGeo, endGeo);
-        updateGridWithObstacles(grid, obstacles, gridSpacing, start, end);
-
-        PathNode startNode = grid[startX][startZ];
-        PathNode endNode = grid[endX][endZ];
-
-        if (startNode == null || endNode == null) {
-            return new ArrayList<>();
+        List<List<Vector3f>> paths = new ArrayList<>(requests.size());
+        for (ForkJoinTask<List<List<Vector3f>>> task : tasks) {
+            paths.addAll(task.join());
         }
+        return paths;
+    }
 
-        PriorityQueue<PathNode> openSet = new PriorityQueue<>(Comparator.comparingInt(n -> n.fCost));
-        Set<PathNode> closedSet = new HashSet<>();
-
-        openSet.add(startNode);
-
-        while (!openSet.isEmpty()) {
-            PathNode current = openSet.poll();
-            if (current == endNode) {
-                List<Vector3f> path = constructPath(current, gridSpacing);
-                drawPath(path);
-                return path;
-            }
+    public int getLayoutVersion() {
+        return navGrid.getVersion();
+    }
 
-            closedSet.add(current);
+    public WalkableMap getWalkable() {
+        return navGrid.getWalkable(clearanceCells);
+    }
 
-            for (PathNode neighbor : getNeighbors(current, grid, gridLength, gridWidth)) {
-                if (closedSet.contains(neighbor)) continue;
+    public DStarLite createReplanner(List<Vector3f> route) {
+        return createReplanner(route, navGrid.getWalkable(clearanceCells));
+    }
 
-                int tentativeGCost = current.gCost + (isDiagonal(current, neighbor) ? DIAGONAL_COST : STRAIGHT_COST);
-                if (!openSet.contains(neighbor) || tentativeGCost < neighbor.gCost) {
-                    neighbor.calculateCosts(endNode, tentativeGCost);
-                    neighbor.parent = current;
+    // Plans on the pool, on an earlier layout, so later replan() calls only repair the route against the current one.
+    public ForkJoinTask<DStarLite> createReplannerAsync(List<Vector3f> route, WalkableMap map) {
+        return PATH_POOL.submit(() -> createReplanner(route, map));
+    }
 
-                    if (!openSet.contains(neighbor)) {
-                        openSet.add(neighbor);
-                    }
-                }
-            }
+    public DStarLite createReplanner(List<Vector3f> route, WalkableMap map) {
+        int from = NavGrid.nearestWalkable(map, navGrid.cellAt(route.get(0)));
+        int to = NavGrid.nearestWalkable(map, navGrid.cellAt(route.get(route.size() - 1)));
+        if (from < 0 || to < 0) {
+            return null;
         }
 
-        return new ArrayList<>();
+        DStarLite planner = new DStarLite();
+        planner.initialize(map, from, to);
+        planner.computePath();
+        replanExpandedNodes.add(planner.getExpandedNodes());
+        return planner;
     }
 
-    private boolean isPointInsideAnyFloor(Vector3f point) {
-        Map<Geometry, Float> floorCompleteAreas = jmeScene.undoManager.getFloorCompleteAreas();
-        Map<Integer, Vector3f> completeFloorCenters = jmeScene.undoManager.getCompleteFloorCenters();
-
-        for (Geometry floorGeometry : floorCompleteAreas.keySet()) {
-            List<Vector3f> floorVertices = jmeScene.undoManager.getCompleteFloorVertices().get(floorGeometry);
-            int floorId = jmeScene.undoManager.getFloorSegmentToFloorId().get(floorGeometry);
-            Vector3f floorCenter = completeFloorCenters.get(floorId);
-
-            if (floorVertices != null && floorCenter != null) {
-                Vector3f localPoint = point.subtract(floorCenter);
+    public List<Vector3f> replan(DStarLite planner, Vector3f position, Vector3f destination) {
+        WalkableMap map = navGrid.getWalkable(clearanceCells);
+        if (map == planner.getMap()) {
+            return null;
+        }
 
-                if (isPointInsidePolygon(localPoint, floorVertices)) {
-                    if (isPointNearFloorEdge(localPoint, floorVertices)) {
-                        return false;
-                    }
-                    return true;
-                }
-            }
+        int positionCell = navGrid.cellAt(position);
+        int from = NavGrid.nearestWalkable(map, positionCell);
+        if (from < 0) {
+            return new ArrayList<>();
         }
-        return false;
-    }
 
-    private boolean isPointNearFloorEdge(Vector3f point, List<Vector3f> floorVertices) {
-        for (Vector3f vertex : floorVertices) {
-            float distance = point.distance(vertex);
-            if (distance < avoidanceDistance) {
-                return true;
-            }
+        int[] cells = planner.replan(map, from);
+        replanCount.increment();
+        replanExpandedNodes.add(planner.getExpandedNodes());
+        if (cells.length == 0) {
+            return new ArrayList<>();
         }
-        return false;
-    }
 
-    private boolean isPointInsidePolygon(Vector3f point, List<Vector3f> polygon) {
-        if (polygon == null || polygon.size() < 3) {
-            return false;
+        List<Vector3f> route = new ArrayList<>();
+        route.add(position.clone());
+        for (int cell : PathSmoother.smooth(map, cells)) {
+            route.add(navGrid.cellPosition(cell));
         }
+        route.add(destination.clone());
+        return route;
+    }
 
-        boolean inside = false;
-        int n = polygon.size();
-        for (int i = 0, j = n - 1; i < n; j = i++) {
-            Vector3f vi = polygon.get(i);
-            Vector3f vj = polygon.get(j);
+    private List<Vector3f> solve(WalkableMap map, GridSearch search, Vector3f start, Vector3f end) {
+        int startCell = navGrid.cellAt(start);
+        int endCell = navGrid.cellAt(end);
 
-            if (point.x == vi.x && point.z == vi.z) {
-                return true;
-            }
+        int from = NavGrid.nearestWalkable(map, startCell);
+        int to = NavGrid.nearestWalkable(map, endCell);
+        if (from < 0 || to < 0) {
+            return new ArrayList<>();
+        }
 
-            if ((vi.z > point.z) != (vj.z > point.z)) {
-                double intersect = (vj.x - vi.x) * (point.z - vi.z) / (vj.z - vi.z) + vi.x;
+        queryCount.increment();
+        PathCache pathCache = navGrid.getPathCache();
+        int[] waypoints = pathCache.get(from, to, clearanceCells, map.getVersion(), mode);
+        if (waypoints != null) {
+            cacheHits.increment();
+        } else {
+            cacheMisses.increment();
+            long searchStart = System.nanoTime();
+            int[] cells = search.findPath(map, from, to);
+            searchTimeNanos.add(System.nanoTime() - searchStart);
+            expandedNodes.add(search.getExpandedNodes());
+
+            waypoints = cells.length == 0 ? cells : PathSmoother.smooth(map, cells);
+            rawWaypoints.add(cells.length);
+            smoothedWaypoints.add(waypoints.length);
+            pathCache.put(from, to, clearanceCells, map.getVersion(), mode, waypoints);
+        }
 
-                if (point.x <= intersect) {
-                    inside = !inside;
-                }
-            }
+        if (waypoints.length == 0) {
+            return new ArrayList<>();
         }
-        return inside;
+        return constructPath(startCell, waypoints, endCell);
     }
 
-    private List<PathNode> getNeighbors(PathNode node, PathNode[][] grid, int gridLength, int gridWidth) {
-        List<PathNode> neighbors = new ArrayList<>();
-        int[][] directions = {
-                {1, 0}, {-1, 0}, {0, 1}, {0, -1},
-                {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
-        };
+    public PathFindingMode getMode() {
+        return mode;
+    }
 
-        for (int[] dir : directions) {
-            int nx = node.x + dir[0];
-            int nz = node.z + dir[1];
+    public int getQueryCount() {
+        return queryCount.intValue();
+    }
 
-            if (nx >= 0 && nx < gridLength && nz >= 0 && nz < gridWidth) {
-                PathNode neighbor = grid[nx][nz];
+    public long getExpandedNodes() {
+        return expandedNodes.sum();
+    }
 
-                if (neighbor != null) {
-                    neighbors.add(neighbor);
-                }
-            }
-        }
+    public long getSearchTimeNanos() {
+        return searchTimeNanos.sum();
+    }
 
-        return neighbors;
+    public long getRawWaypoints() {
+        return rawWaypoints.sum();
     }
 
-    private boolean isDiagonal(PathNode current, PathNode neighbor) {
-        return Math.abs(current.x - neighbor.x) + Math.abs(current.z - neighbor.z) == 2;
+    public long getSmoothedWaypoints() {
+        return smoothedWaypoints.sum();
     }
 
-    private boolean isFloorRelated(Spatial object, Map<Geometry, Float> floorCompleteAreas, Map<Geometry, Float> floorSegmentDistances) {
-        return floorCompleteAreas.containsKey(object) || floorSegmentDistances.containsKey(object);
+    public long getCacheHits() {
+        return cacheHits.sum();
     }
 
-    private List<Vector3f> constructPath(PathNode endNode, int gridSpacing) {
-        List<Vector3f> path = new ArrayList<>();
-        PathNode current = endNode;
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
 
-        float originX = Grid.GRID_LENGTH * gridSpacing;
-        float originZ = Grid.GRID_WIDTH * gridSpacing;
+    public long getReplanCount() {
+        return replanCount.sum();
+    }
 
-        while (current != null) {
-            float worldX = current.x * gridSpacing - originX;
-            float worldZ = current.z * gridSpacing - originZ;
-            path.add(0, new Vector3f(worldX, Grid.GRID_Y_LEVEL, worldZ));
-            current = current.parent;
-        }
+    public long getReplanExpandedNodes() {
+        return replanExpandedNodes.sum();
+    }
 
+    private List<Vector3f> constructPath(int startCell, int[] cells, int endCell) {
+        List<Vector3f> path = new ArrayList<>(cells.length + 2);
+        if (startCell != cells[0]) {
+            path.add(navGrid.cellPosition(startCell));
+        }
+        for (int cell : cells) {
+            path.add(navGrid.cellPosition(cell));
+        }
+        if (endCell != cells[cells.length - 1]) {
+            path.add(navGrid.cellPosition(endCell));
+        }
         return path;
     }
 
-    private void drawPath(List<Vector3f> path) {
+    public void drawPath(List<Vector3f> path) {
+        if (jmeScene == null || path.size() < 2) {
+            return;
+        }
+
+        Mesh mesh = new Mesh();
+        mesh.setMode(Mesh.Mode.LineStrip);
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, BufferUtils.createFloatBuffer(path.toArray(new Vector3f[0])));
+        mesh.updateBound();
+
         jmeScene.enqueue(() -> {
-            for (int i = 0; i < path.size() - 1; i++) {
-                Vector3f start = path.get(i);
-                Vector3f end = path.get(i + 1);
-
-                Line line = new Line(start, end);
-                Geometry lineGeometry = new Geometry("PathLine", line);
-                Material mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
-                mat.setColor("Color", ColorRGBA.Yellow);
-                lineGeometry.setMaterial(mat);
-
-                rootNode.attachChild(lineGeometry);
-                drawnLines.add(lineGeometry);
+            if (lineMaterial == null) {
+                lineMaterial = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+                lineMaterial.setColor("Color", ColorRGBA.Yellow);
             }
+
+            Geometry lineGeometry = new Geometry("PathLine", mesh);
+            lineGeometry.setMaterial(lineMaterial);
+            rootNode.attachChild(lineGeometry);
+            drawnLines.add(lineGeometry);
         });
     }
 
     public void clearAllLines() {
+        if (jmeScene == null) {
+            return;
+        }
         jmeScene.enqueue(() -> {
             for (Geometry line : drawnLines) {
                 rootNode.detachChild(line);
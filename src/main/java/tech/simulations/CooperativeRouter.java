@@ -0,0 +1,472 @@
+package tech.simulations;
+
+import com.jme3.math.Vector3f;
+import tech.simulations.pathfinding.CooperativeAStar;
+import tech.simulations.pathfinding.FlowField;
+import tech.simulations.pathfinding.NavGrid;
+import tech.simulations.pathfinding.ReservationTable;
+import tech.simulations.pathfinding.WalkableMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CooperativeRouter {
+    private static final int YIELD_AFTER = 2; // windows without getting closer before a truck makes way for oncoming traffic
+    private static final int STALL_LIMIT = 16; // windows without getting closer before a truck takes priority, and again before it gives up
+    private final NavGrid navGrid;
+    private final int clearanceCells;
+    private final double tickSeconds;
+    private final ReservationTable reservations = new ReservationTable();
+    private final CooperativeAStar search;
+    private final Map<List<Integer>, Integer> freeFlowTicks = new HashMap<>();
+    private final Map<Integer, Trip> activeTrips = new HashMap<>();
+    private Trip priorityTrip; // at most one at a time, so two escalated trucks never push against each other
+    private double congestionWait;
+    private int trips;
+    private int unresolvedConflicts;
+    private long plannedWindows;
+    private long expandedNodes;
+
+    public CooperativeRouter(NavGrid navGrid, int clearanceCells, int window, double tickSeconds) {
+        this.navGrid = navGrid;
+        this.clearanceCells = clearanceCells;
+        this.tickSeconds = tickSeconds;
+        this.search = new CooperativeAStar(reservations, window);
+    }
+
+    public Trip startTrip(int agent, Vector3f from, Vector3f to, double speed, double now) {
+        WalkableMap map = navGrid.getWalkable(clearanceCells);
+        int origin = NavGrid.nearestWalkable(map, navGrid.cellAt(from));
+        int goal = NavGrid.nearestWalkable(map, navGrid.cellAt(to));
+        double cellSeconds = speed > 0 ? 1.0 / speed : tickSeconds;
+        int straightTicks = Math.max(1, (int) Math.round(cellSeconds / tickSeconds));
+        int diagonalTicks = Math.max(straightTicks, (int) Math.round(cellSeconds * Math.sqrt(2) / tickSeconds));
+        int startTick = (int) Math.ceil(now / tickSeconds - 1e-9);
+        reservations.release(agent);
+        Trip trip = new Trip(agent, origin, goal, from, to, straightTicks, diagonalTicks, startTick);
+        if (!trip.finished) {
+            activeTrips.put(agent, trip);
+        }
+        return trip;
+    }
+
+    public Leg nextLeg(Trip trip) {
+        if (trip.finished) {
+            return null;
+        }
+
+        WalkableMap map = navGrid.getWalkable(clearanceCells);
+        FlowField goalField = trip.goal >= 0 ? navGrid.getFlowField(trip.goal, clearanceCells) : null;
+        if (trip.origin < 0 || goalField == null || goalField.getDistance(trip.currentCell) < 0) {
+            // Nothing to coordinate on: drive straight to the destination.
+            List<Vector3f> route = new ArrayList<>();
+            route.add(trip.currentCell >= 0 ? navGrid.cellPosition(trip.currentCell) : trip.from.clone());
+            route.add(trip.to.clone());
+            return finalLeg(trip, route, (int) Math.ceil(ReceivingProcess.routeLength(route) * trip.straightTicks));
+        }
+
+        if (trip.plan == null || trip.planIndex >= trip.executeUntil) {
+            if (trip.stalledWindows > STALL_LIMIT) {
+                if (trip == priorityTrip) {
+                    // Even with priority nobody could make way: hold position, dodging only reserved trucks, and let another truck go first.
+                    if (!trip.unresolved) {
+                        trip.unresolved = true;
+                        unresolvedConflicts++;
+                    }
+                    priorityTrip = null;
+                    trip.yieldCell = trip.currentCell;
+                    trip.yieldUntil = trip.currentTick + search.getWindow() * 2;
+                } else if (priorityTrip == null) {
+                    // Oncoming trucks on this one's route make way for it and the others keep off it.
+                    priorityTrip = trip;
+                    trip.stalledWindows = 0;
+                    trip.yieldCell = -1;
+                }
+            }
+            if (trip.yieldCell >= 0 && trip.currentTick >= trip.yieldUntil) {
+                trip.yieldCell = -1;
+            }
+            if (trip.yieldCell < 0 && trip != priorityTrip) {
+                int[] priorityRoute = priorityRouteThrough(trip);
+                if (priorityRoute != null) {
+                    trip.yieldCell = findYieldCell(trip, map, toSet(priorityRoute), true);
+                } else if (trip.stalledWindows >= YIELD_AFTER) {
+                    trip.yieldCell = findYieldCell(trip, map, goalField);
+                }
+                trip.yieldUntil = trip.currentTick + search.getWindow() * 2;
+            }
+            if (trip.yieldCell >= 0) {
+                plan(trip, map, null, trip.yieldCell);
+            } else {
+                plan(trip, map, goalField, trip.goal);
+                if (entersPriorityRoute(trip)) {
+                    // Keep out of the way until the priority truck is through.
+                    plan(trip, map, null, trip.currentCell);
+                }
+            }
+        }
+
+        CooperativeAStar.TimedPath plan = trip.plan;
+        int from = trip.planIndex;
+        int to = from + 1;
+        boolean waiting = plan.getCell(to) == plan.getCell(from);
+        while (to < trip.executeUntil && (plan.getCell(to + 1) == plan.getCell(to)) == waiting) {
+            to++;
+        }
+
+        List<Vector3f> route = new ArrayList<>();
+        if (waiting) {
+            route.add(navGrid.cellPosition(plan.getCell(from)));
+            route.add(navGrid.cellPosition(plan.getCell(from)));
+        } else {
+            for (int i = from; i <= to; i++) {
+                route.add(navGrid.cellPosition(plan.getCell(i)));
+            }
+        }
+
+        trip.planIndex = to;
+        trip.currentCell = plan.getCell(to);
+        trip.currentTick = plan.getTick(to);
+        if (trip.currentCell == trip.goal) {
+            finish(trip, trip.currentTick);
+        }
+        return new Leg(route, plan.getTick(from) * tickSeconds, (plan.getTick(to) - plan.getTick(from)) * tickSeconds, waiting);
+    }
+
+    private Leg finalLeg(Trip trip, List<Vector3f> route, int ticks) {
+        reservations.release(trip.agent);
+        int departure = trip.currentTick;
+        trip.currentTick += ticks;
+        finish(trip, trip.currentTick);
+        return new Leg(route, departure * tickSeconds, ticks * tickSeconds, false);
+    }
+
+    private static boolean isDiagonal(int cell, int other, int columns) {
+        return cell % columns != other % columns && cell / columns != other / columns;
+    }
+
+    // Head-on in a single lane nobody gets closer by waiting: the truck backs off to the nearest cell that is off the route of
+    // the oncoming truck and lets it pass.
+    private int findYieldCell(Trip trip, WalkableMap map, FlowField goalField) {
+        int[] ahead = goalField.pathTo(trip.currentCell);
+        Set<Integer> aheadCells = new HashSet<>();
+        for (int i = Math.max(0, ahead.length - 1 - search.getWindow()); i < ahead.length - 1; i++) {
+            aheadCells.add(ahead[i]);
+        }
+
+        Set<Integer> oncomingRoutes = new HashSet<>();
+        for (Trip other : activeTrips.values()) {
+            if (other == trip || !aheadCells.contains(other.currentCell) || other.goal < 0) continue;
+            int[] route = navGrid.getFlowField(other.goal, clearanceCells).pathTo(other.currentCell);
+            if (contains(route, trip.currentCell)) {
+                for (int cell : route) {
+                    oncomingRoutes.add(cell);
+                }
+            }
+        }
+        return oncomingRoutes.isEmpty() ? -1 : findYieldCell(trip, map, oncomingRoutes, false);
+    }
+
+    // Nearest cell off the given route that no other truck stands on, or -1 if none is reachable. Making way for the
+    // priority truck may lead past other trucks: they make way too, and the reservations sort out who moves first.
+    private int findYieldCell(Trip trip, WalkableMap map, Set<Integer> route, boolean pastTrucks) {
+        Set<Integer> occupied = new HashSet<>();
+        for (Trip other : activeTrips.values()) {
+            if (other != trip) {
+                occupied.add(other.currentCell);
+            }
+        }
+
+        int columns = map.getColumns();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        Set<Integer> visited = new HashSet<>();
+        queue.add(trip.currentCell);
+        visited.add(trip.currentCell);
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            if (!route.contains(cell) && !occupied.contains(cell)) {
+                return cell;
+            }
+            int x = cell % columns;
+            int z = cell / columns;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + (dir == 0 ? 1 : dir == 1 ? -1 : 0);
+                int nz = z + (dir == 2 ? 1 : dir == 3 ? -1 : 0);
+                if (!map.isWalkable(nx, nz)) continue;
+                int neighbor = nz * columns + nx;
+                if ((pastTrucks || !occupied.contains(neighbor)) && visited.add(neighbor)) {
+                    queue.add(neighbor);
+                }
+            }
+        }
+        return -1;
+    }
+
+    // The rest of the priority truck's route when this truck stands within a window of it and heads the other way,
+    // otherwise null. Trucks driving ahead in the same direction are not in the way.
+    private int[] priorityRouteThrough(Trip trip) {
+        if (priorityTrip == null || priorityTrip.goal < 0 || trip.goal < 0) {
+            return null;
+        }
+        int[] route = navGrid.getFlowField(priorityTrip.goal, clearanceCells).pathTo(priorityTrip.currentCell);
+        for (int i = route.length - 2; i >= Math.max(1, route.length - 1 - search.getWindow()); i--) {
+            if (route[i] == trip.currentCell) {
+                int[] own = navGrid.getFlowField(trip.goal, clearanceCells).pathTo(trip.currentCell);
+                return own.length >= 2 && own[own.length - 2] == route[i - 1] ? null : route;
+            }
+        }
+        return null;
+    }
+
+    private boolean entersPriorityRoute(Trip trip) {
+        if (priorityTrip == null || trip == priorityTrip || priorityTrip.goal < 0) {
+            return false;
+        }
+        int[] route = navGrid.getFlowField(priorityTrip.goal, clearanceCells).pathTo(priorityTrip.currentCell);
+        Set<Integer> ahead = new HashSet<>();
+        for (int i = Math.max(0, route.length - 1 - search.getWindow()); i < route.length; i++) {
+            ahead.add(route[i]);
+        }
+        if (ahead.contains(trip.currentCell)) {
+            return false;
+        }
+        for (int i = 1; i < trip.plan.getLength(); i++) {
+            if (ahead.contains(trip.plan.getCell(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<Integer> toSet(int[] cells) {
+        Set<Integer> set = new HashSet<>();
+        for (int cell : cells) {
+            set.add(cell);
+        }
+        return set;
+    }
+
+    private static boolean contains(int[] cells, int cell) {
+        for (int value : cells) {
+            if (value == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Making way (a target other than the goal) is planned without a goal field: those targets change every few windows and
+    // their fields would only push the goal fields out of the shared cache.
+    private void plan(Trip trip, WalkableMap map, FlowField goalField, int target) {
+        reservations.release(trip.agent);
+        CooperativeAStar.TimedPath plan;
+        int window = search.getWindow();
+        if (target == trip.currentCell && target != trip.goal && reservations.isFree(target, trip.currentTick + 1, trip.currentTick + window, trip.agent)) {
+            // Holding a cell nobody else needs takes no search.
+            int[] cells = new int[window + 1];
+            int[] ticks = new int[window + 1];
+            for (int i = 0; i <= window; i++) {
+                cells[i] = target;
+                ticks[i] = trip.currentTick + i;
+            }
+            plan = new CooperativeAStar.TimedPath(cells, ticks, false);
+        } else {
+            plan = search.planWindow(map, target == trip.goal ? goalField : null, trip.agent, trip.currentCell, target, target == trip.goal, trip.origin,
+                    trip.currentTick, trip.straightTicks, trip.diagonalTicks);
+            expandedNodes += search.getExpandedNodes();
+        }
+        plannedWindows++;
+
+        if (plan.getLength() < 2) {
+            // Boxed in for the whole window: hold position for a tick and try again.
+            plan = new CooperativeAStar.TimedPath(new int[]{trip.currentCell, trip.currentCell},
+                    new int[]{trip.currentTick, trip.currentTick + 1}, false);
+        }
+        reserve(trip, plan);
+        int last = plan.getCell(plan.getLength() - 1);
+        if (last != trip.goal && !isStaging(trip, last)) {
+            reservations.park(last, plan.getTick(plan.getLength() - 1), trip.agent);
+        }
+        if (target != trip.goal) {
+            // Backing off is progress of its own; the distance to the goal is judged again once the truck has made way.
+            trip.stalledWindows = 0;
+            trip.closestDistance = Integer.MAX_VALUE;
+        } else if (plan.reachesGoal() || goalField.getDistance(last) < trip.closestDistance) {
+            trip.closestDistance = goalField.getDistance(last);
+            trip.stalledWindows = 0;
+        } else {
+            trip.stalledWindows++;
+        }
+
+        // WHCA*: follow half of the window before replanning, unless the goal is already in reach.
+        int executeUntil = plan.getLength() - 1;
+        if (!plan.reachesGoal()) {
+            int horizon = trip.currentTick + Math.max(1, search.getWindow() / 2);
+            while (executeUntil > 1 && plan.getTick(executeUntil) > horizon) {
+                executeUntil--;
+            }
+        }
+        trip.plan = plan;
+        trip.planIndex = 0;
+        trip.executeUntil = executeUntil;
+    }
+
+    private void reserve(Trip trip, CooperativeAStar.TimedPath plan) {
+        for (int i = 0; i + 1 < plan.getLength(); i++) {
+            int cell = plan.getCell(i);
+            int next = plan.getCell(i + 1);
+            int tick = plan.getTick(i);
+            int nextTick = plan.getTick(i + 1);
+            if (!isStaging(trip, cell)) {
+                reservations.reserve(cell, tick, next == cell ? nextTick : nextTick - 1, trip.agent);
+            }
+            if (next != cell && !isStaging(trip, next)) {
+                reservations.reserve(next, tick + 1, nextTick, trip.agent);
+            }
+        }
+    }
+
+    private boolean isStaging(Trip trip, int cell) {
+        return cell == trip.origin || cell == trip.goal;
+    }
+
+    // Reservations stay in place until the truck's next trip so the last leg is still protected while it is driven.
+    private void finish(Trip trip, int arrivalTick) {
+        trip.finished = true;
+        activeTrips.remove(trip.agent, trip);
+        if (priorityTrip == trip) {
+            priorityTrip = null;
+        }
+        trips++;
+        int uncontested = freeFlowTicks(trip);
+        congestionWait += Math.max(0, arrivalTick - trip.startTick - uncontested) * tickSeconds;
+    }
+
+    private int freeFlowTicks(Trip trip) {
+        if (trip.origin < 0 || trip.goal < 0) {
+            return trip.currentTick - trip.startTick;
+        }
+        List<Integer> key = List.of(trip.origin, trip.goal, trip.straightTicks, trip.diagonalTicks);
+        Integer cached = freeFlowTicks.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int[] path = navGrid.getFlowField(trip.goal, clearanceCells).pathTo(trip.origin);
+        int columns = navGrid.getColumns();
+        int ticks = 0;
+        for (int i = 1; i < path.length; i++) {
+            ticks += isDiagonal(path[i], path[i - 1], columns) ? trip.diagonalTicks : trip.straightTicks;
+        }
+        freeFlowTicks.put(key, ticks);
+        return ticks;
+    }
+
+    public double getCongestionWait() {
+        return congestionWait;
+    }
+
+    public int getTrips() {
+        return trips;
+    }
+
+    public int getUnresolvedConflicts() {
+        return unresolvedConflicts;
+    }
+
+    public long getPlannedWindows() {
+        return plannedWindows;
+    }
+
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    public double getTickSeconds() {
+        return tickSeconds;
+    }
+
+    public static double tickSecondsFor(List<Forklift> fleet) {
+        double fastest = 0;
+        for (Forklift forklift : fleet) {
+            fastest = Math.max(fastest, forklift.getSpeed());
+        }
+        // Two ticks per cell for the fastest truck keeps speed rounding small.
+        return fastest > 0 ? 1.0 / (fastest * 2) : 0.5;
+    }
+
+    public static class Trip {
+        private final int agent;
+        private final int origin;
+        private final int goal;
+        private final Vector3f from;
+        private final Vector3f to;
+        private final int straightTicks;
+        private final int diagonalTicks;
+        private final int startTick;
+        private int currentCell;
+        private int currentTick;
+        private CooperativeAStar.TimedPath plan;
+        private int planIndex;
+        private int executeUntil;
+        private int stalledWindows;
+        private int closestDistance = Integer.MAX_VALUE;
+        private int yieldCell = -1;
+        private int yieldUntil;
+        private boolean unresolved;
+        private boolean finished;
+
+        Trip(int agent, int origin, int goal, Vector3f from, Vector3f to, int straightTicks, int diagonalTicks, int startTick) {
+            this.agent = agent;
+            this.origin = origin;
+            this.goal = goal;
+            this.from = from;
+            this.to = to;
+            this.straightTicks = straightTicks;
+            this.diagonalTicks = diagonalTicks;
+            this.startTick = startTick;
+            this.currentCell = origin;
+            this.currentTick = startTick;
+            this.finished = origin >= 0 && origin == goal;
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+    }
+
+    public static class Leg {
+        private final List<Vector3f> route;
+        private final double startTime;
+        private final double duration;
+        private final boolean waiting;
+
+        Leg(List<Vector3f> route, double startTime, double duration, boolean waiting) {
+            this.route = route;
+            this.startTime = startTime;
+            this.duration = duration;
+            this.waiting = waiting;
+        }
+
+        public List<Vector3f> getRoute() {
+            return route;
+        }
+
+        public double getStartTime() {
+            return startTime;
+        }
+
+        public double getDuration() {
+            return duration;
+        }
+
+        public boolean isWaiting() {
+            return waiting;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package tech.simulations;
+
+public enum DispatchPolicy {
+    NEAREST_IDLE("nearestIdleVehicle"),
+    EARLIEST_COMPLETION("earliestCompletion");
+
+    private final String bundleKey;
+
+    DispatchPolicy(String bundleKey) {
+        this.bundleKey = bundleKey;
+    }
+
+    public String getBundleKey() {
+        return bundleKey;
+    }
+}
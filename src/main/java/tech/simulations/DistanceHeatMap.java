@@ -0,0 +1,101 @@
+package tech.simulations;
+
+import com.jme3.material.Material;
+import com.jme3.material.RenderState;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.shape.Quad;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.util.BufferUtils;
+import tech.WareSkladInit;
+import tech.simulations.pathfinding.FlowField;
+import ui.Grid;
+
+import java.nio.ByteBuffer;
+
+public class DistanceHeatMap {
+
+    private static final float HEIGHT_OFFSET = 0.2f;
+    private static final int OVERLAY_ALPHA = 150;
+
+    private final WareSkladInit jmeScene;
+    private Geometry overlay;
+
+    public DistanceHeatMap(WareSkladInit jmeScene) {
+        this.jmeScene = jmeScene;
+    }
+
+    public void show(FlowField field) {
+        Image image = createImage(field);
+        float width = field.getColumns() * Grid.GRID_SPACING;
+        float depth = field.getRows() * Grid.GRID_SPACING;
+
+        jmeScene.enqueue(() -> {
+            removeOverlay();
+
+            Texture2D texture = new Texture2D(image);
+            texture.setMagFilter(Texture.MagFilter.Nearest);
+            Material material = new Material(jmeScene.getAssetManager(), "Common/MatDefs/Misc/Unshaded.j3md");
+            material.setTexture("ColorMap", texture);
+            material.getAdditionalRenderState().setBlendMode(RenderState.BlendMode.Alpha);
+            material.getAdditionalRenderState().setFaceCullMode(RenderState.FaceCullMode.Off);
+
+            overlay = new Geometry("DistanceHeatMap", new Quad(width, depth));
+            overlay.setMaterial(material);
+            overlay.setQueueBucket(RenderQueue.Bucket.Transparent);
+            overlay.setLocalRotation(new Quaternion().fromAngleAxis(-FastMath.HALF_PI, Vector3f.UNIT_X));
+            overlay.setLocalTranslation(-Grid.GRID_LENGTH * Grid.GRID_SPACING, Grid.GRID_Y_LEVEL + HEIGHT_OFFSET,
+                    -Grid.GRID_WIDTH * Grid.GRID_SPACING + depth);
+            jmeScene.getRootNode().attachChild(overlay);
+        });
+    }
+
+    public void hide() {
+        jmeScene.enqueue(this::removeOverlay);
+    }
+
+    private void removeOverlay() {
+        if (overlay != null) {
+            overlay.removeFromParent();
+            overlay = null;
+        }
+    }
+
+    private static Image createImage(FlowField field) {
+        int columns = field.getColumns();
+        int rows = field.getRows();
+        float maxDistance = Math.max(1, field.getMaxDistance());
+        ByteBuffer data = BufferUtils.createByteBuffer(columns * rows * 4);
+        ColorRGBA color = new ColorRGBA();
+
+        // The quad is laid flat with texture rows running towards -Z, so grid rows are written bottom-up.
+        for (int row = rows - 1; row >= 0; row--) {
+            for (int x = 0; x < columns; x++) {
+                int cell = row * columns + x;
+                if (!field.isReachable(cell)) {
+                    data.putInt(0);
+                    continue;
+                }
+                heatColor(field.getDistance(cell) / maxDistance, color);
+                data.put((byte) (color.r * 255)).put((byte) (color.g * 255)).put((byte) (color.b * 255)).put((byte) OVERLAY_ALPHA);
+            }
+        }
+        data.flip();
+        return new Image(Image.Format.RGBA8, columns, rows, data, ColorSpace.Linear);
+    }
+
+    private static void heatColor(float t, ColorRGBA store) {
+        if (t < 0.5f) {
+            store.set(t * 2f, 1f, 0f, 1f);
+        } else {
+            store.set(1f, (1f - t) * 2f, 0f, 1f);
+        }
+    }
+}
@@ -1,14 +1,32 @@
 package tech.simulations;
 
+import com.jme3.math.Vector3f;
+
+import java.util.List;
+
 public class Forklift {
+    public static final double DEFAULT_WIDTH = 1.2; // m
+
     private String id;
     private double maxWeightCapacity; // kg
     private double speed; // m/s
+    private double width; // m
+    private VehicleDynamics dynamics;
 
     public Forklift(String id, double maxWeightCapacity, double speed) {
+        this(id, maxWeightCapacity, speed, DEFAULT_WIDTH);
+    }
+
+    public Forklift(String id, double maxWeightCapacity, double speed, double width) {
+        this(id, maxWeightCapacity, speed, width, VehicleDynamics.DEFAULT);
+    }
+
+    public Forklift(String id, double maxWeightCapacity, double speed, double width, VehicleDynamics dynamics) {
         this.id = id;
         this.maxWeightCapacity = maxWeightCapacity;
         this.speed = speed;
+        this.width = width;
+        this.dynamics = dynamics;
     }
 
     public String getId() {
@@ -23,8 +41,25 @@ public class Forklift {
         return speed;
     }
 
+    public double getWidth() {
+        return width;
+    }
+
+    public VehicleDynamics getDynamics() {
+        return dynamics;
+    }
+
+    // Top speed with or without a pallet on the forks.
+    public double getSpeed(boolean loaded) {
+        return dynamics.topSpeed(speed, loaded);
+    }
+
+    public double travelTime(List<Vector3f> route, boolean loaded) {
+        return dynamics.travelTime(route, getSpeed(loaded));
+    }
+
     @Override
     public String toString() {
-        return id + " (Capacity: " + maxWeightCapacity + " kg, Speed: " + speed + " m/s)";
+        return id + " (Capacity: " + maxWeightCapacity + " kg, Speed: " + speed + " m/s, Width: " + width + " m)";
     }
 }
\ No newline at end of file
@@ -0,0 +1,495 @@
+package tech.simulations;
+
+import UndoRedo.UndoManager;
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import saverLoader.ProjectLoader;
+import tech.simulations.pathfinding.NavGrid;
+import tech.simulations.pathfinding.PathFindingMode;
+import tech.simulations.picking.OrderFile;
+import tech.simulations.picking.PickLine;
+import tech.simulations.picking.PickingReport;
+import tech.simulations.storage.PutAwayPolicy;
+import ui.Grid;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class HeadlessSimulationRunner {
+    private static final String USAGE = "Usage: --headless [--out results.csv] [--mode FLOW_FIELD] [--avoidance 1]"
+            + " [--forklift id,capacity,speed[,width[,acceleration[,lift-speed]]]]... [--fleet-size 1] [--dispatch NEAREST_IDLE] [--put-away CLOSEST_OPEN_SLOT] [--window 0] [--pallets pallets.csv | --pallet-count 50]"
+            + " [--replications 0] [--seed 1] [--size-cv 0.05] [--time-cv 0.2] [--event-log dir]"
+            + " [--metrics dir [--metrics-interval 300] [--metrics-format csv|jsonl]]"
+            + " [--orders orders.csv [--pickers 1] [--picker-speed 1.0] [--pick-time 10] [--batch-size 4]]"
+            + " [--area PlainArea | --dock x,z] [--grid lengthxwidth] project.json [project.json ...]";
+    private static final String CSV_HEADER = "project,mode,dispatch_policy,put_away_policy,fleet_size,pallets,rack_slots,stored_pallets,unassigned_pallets,"
+            + "simulated_time_s,travel_distance_m,mean_cycle_time_s,throughput_pallets_per_h,mean_utilisation,congestion_wait_s,put_away_cost_m,greedy_put_away_cost_m,greedy_stored_pallets,path_queries,search_time_ms";
+
+    private static final String MONTE_CARLO_HEADER = "project,mode,dispatch_policy,put_away_policy,fleet_size,pallets,replications,seed,size_cv,time_cv,"
+            + "cycle_time_mean_s,cycle_time_p50_s,cycle_time_p95_s,cycle_time_ci95_low_s,cycle_time_ci95_high_s,"
+            + "throughput_mean_per_h,throughput_p50_per_h,throughput_p95_per_h,throughput_ci95_low_per_h,throughput_ci95_high_per_h,"
+            + "unassigned_pallets_mean,wall_time_s";
+
+    private static final String PICKING_HEADER = "project,strategy,routing,pickers,orders,picked_lines,skipped_lines,trips,"
+            + "travel_distance_m,travel_per_order_m,makespan_s,picks_per_hour,routing_time_ms";
+
+    private String outputPath = "simulation-results.csv";
+    private PathFindingMode mode = PathFindingMode.FLOW_FIELD;
+    private float avoidanceDistance = 1f;
+    private final List<Forklift> fleetTemplate = new ArrayList<>();
+    private int fleetSize = 1;
+    private DispatchPolicy dispatchPolicy = DispatchPolicy.NEAREST_IDLE;
+    private PutAwayPolicy putAwayPolicy = PutAwayPolicy.CLOSEST_OPEN_SLOT;
+    private int reservationWindow;
+    private List<Forklift> fleet;
+    private String palletsPath;
+    private int palletCount = 50;
+    private String areaName = "PlainArea";
+    private Vector3f dockPosition;
+    private int replications;
+    private Long seed;
+    private String eventLogDirectory;
+    private String metricsDirectory;
+    private double metricsInterval = 300;
+    private String metricsFormat = "csv";
+    private double sizeVariation = 0.05;
+    private double timeVariation = 0.2;
+    private String ordersPath;
+    private int pickers = 1;
+    private double pickerSpeed = 1.0;
+    private double pickTime = 10;
+    private int batchSize = 4;
+    private int gridLength;
+    private int gridWidth;
+    private final List<String> projectPaths = new ArrayList<>();
+
+    public static int run(String[] args) {
+        HeadlessSimulationRunner runner = new HeadlessSimulationRunner();
+        try {
+            runner.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+        return runner.runAll();
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                projectPaths.add(arg);
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            try {
+                switch (arg) {
+                    case "--out":
+                        outputPath = value;
+                        break;
+                    case "--mode":
+                        mode = PathFindingMode.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "--avoidance":
+                        avoidanceDistance = Float.parseFloat(value);
+                        break;
+                    case "--forklift":
+                        fleetTemplate.add(parseForklift(value));
+                        break;
+                    case "--fleet-size":
+                        fleetSize = Integer.parseInt(value);
+                        break;
+                    case "--dispatch":
+                        dispatchPolicy = DispatchPolicy.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "--put-away":
+                        putAwayPolicy = PutAwayPolicy.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+                        break;
+                    case "--window":
+                        reservationWindow = Integer.parseInt(value);
+                        break;
+                    case "--pallets":
+                        palletsPath = value;
+                        break;
+                    case "--pallet-count":
+                        palletCount = Integer.parseInt(value);
+                        break;
+                    case "--replications":
+                        replications = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--event-log":
+                        eventLogDirectory = value;
+                        break;
+                    case "--metrics":
+                        metricsDirectory = value;
+                        break;
+                    case "--metrics-interval":
+                        metricsInterval = Double.parseDouble(value);
+                        break;
+                    case "--metrics-format":
+                        metricsFormat = value.toLowerCase(Locale.ROOT);
+                        break;
+                    case "--size-cv":
+                        sizeVariation = Double.parseDouble(value);
+                        break;
+                    case "--time-cv":
+                        timeVariation = Double.parseDouble(value);
+                        break;
+                    case "--orders":
+                        ordersPath = value;
+                        break;
+                    case "--pickers":
+                        pickers = Integer.parseInt(value);
+                        break;
+                    case "--picker-speed":
+                        pickerSpeed = Double.parseDouble(value);
+                        break;
+                    case "--pick-time":
+                        pickTime = Double.parseDouble(value);
+                        break;
+                    case "--batch-size":
+                        batchSize = Integer.parseInt(value);
+                        break;
+                    case "--area":
+                        areaName = value;
+                        break;
+                    case "--dock":
+                        String[] coordinates = value.split(",");
+                        dockPosition = new Vector3f(Float.parseFloat(coordinates[0]) * Grid.GRID_SPACING, Grid.GRID_Y_LEVEL,
+                                Float.parseFloat(coordinates[1]) * Grid.GRID_SPACING);
+                        break;
+                    case "--grid":
+                        String[] size = value.toLowerCase(Locale.ROOT).split("x");
+                        gridLength = Integer.parseInt(size[0]);
+                        gridWidth = Integer.parseInt(size[1]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+            }
+        }
+        if (projectPaths.isEmpty()) {
+            throw new IllegalArgumentException("No project files given.");
+        }
+        if (reservationWindow < 0) {
+            throw new IllegalArgumentException("Invalid value for --window: " + reservationWindow);
+        }
+        if (eventLogDirectory != null && !new File(eventLogDirectory).isDirectory()) {
+            throw new IllegalArgumentException("Event log directory does not exist: " + eventLogDirectory);
+        }
+        if (metricsDirectory != null && !new File(metricsDirectory).isDirectory()) {
+            throw new IllegalArgumentException("Metrics directory does not exist: " + metricsDirectory);
+        }
+        if (metricsInterval <= 0 || !metricsFormat.equals("csv") && !metricsFormat.equals("jsonl")) {
+            throw new IllegalArgumentException("Invalid metrics options: the interval must be positive and the format csv or jsonl.");
+        }
+        if (replications < 0) {
+            throw new IllegalArgumentException("Invalid value for --replications: " + replications);
+        }
+        if (sizeVariation < 0 || timeVariation < 0) {
+            throw new IllegalArgumentException("Coefficients of variation must not be negative.");
+        }
+        if (pickers < 1 || batchSize < 1 || pickerSpeed <= 0 || pickTime < 0) {
+            throw new IllegalArgumentException("Invalid picking parameters: pickers and batch size must be positive, speed above zero.");
+        }
+        if (fleetSize < 1) {
+            throw new IllegalArgumentException("Invalid value for --fleet-size: " + fleetSize);
+        }
+        fleet = buildFleet();
+    }
+
+    private List<Forklift> buildFleet() {
+        if (fleetTemplate.isEmpty()) {
+            fleetTemplate.add(new Forklift("Forklift", 1000, 1.5));
+        }
+        if (fleetSize == 1) {
+            return fleetTemplate;
+        }
+
+        // Every given forklift is repeated fleetSize times, e.g. F1-1, F1-2, ...
+        List<Forklift> forklifts = new ArrayList<>();
+        for (Forklift template : fleetTemplate) {
+            for (int i = 1; i <= fleetSize; i++) {
+                forklifts.add(new Forklift(template.getId() + "-" + i, template.getMaxWeightCapacity(), template.getSpeed(), template.getWidth(),
+                        template.getDynamics()));
+            }
+        }
+        return forklifts;
+    }
+
+    private Forklift parseForklift(String value) {
+        String[] fields = value.split(",");
+        double width = fields.length > 3 ? Double.parseDouble(fields[3]) : Forklift.DEFAULT_WIDTH;
+        VehicleDynamics dynamics = VehicleDynamics.DEFAULT;
+        if (fields.length > 4) {
+            dynamics = dynamics.withAcceleration(Double.parseDouble(fields[4]));
+        }
+        if (fields.length > 5) {
+            dynamics = dynamics.withLiftSpeed(Double.parseDouble(fields[5]));
+        }
+        return new Forklift(fields[0], Double.parseDouble(fields[1]), Double.parseDouble(fields[2]), width, dynamics);
+    }
+
+    private int runAll() {
+        if (ordersPath != null) {
+            return runPicking();
+        }
+        List<Pallet> pallets;
+        try {
+            pallets = palletsPath != null ? readPallets(palletsPath) : defaultPallets(palletCount);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error reading pallets: " + e.getMessage());
+            return 1;
+        }
+
+        AssetManager assetManager = new DesktopAssetManager(true);
+        int failures = 0;
+        try (PrintWriter writer = new PrintWriter(new FileWriter(outputPath))) {
+            writer.println(replications > 0 ? MONTE_CARLO_HEADER : CSV_HEADER);
+            for (String projectPath : projectPaths) {
+                try {
+                    if (replications > 0) {
+                        MonteCarloSummary summary = simulateReplications(projectPath, assetManager, pallets);
+                        writer.println(toCsvRow(projectPath, pallets.size(), summary));
+                    } else {
+                        SimulationReport report = simulate(projectPath, assetManager, pallets);
+                        writer.println(toCsvRow(projectPath, pallets.size(), report));
+                    }
+                    writer.flush();
+                } catch (IOException | RuntimeException e) {
+                    failures++;
+                    System.err.println("Simulation of " + projectPath + " failed: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing results: " + e.getMessage());
+            return 1;
+        }
+
+        System.out.println("Results for " + (projectPaths.size() - failures) + " of " + projectPaths.size() + " projects written to " + outputPath);
+        return failures == 0 ? 0 : 1;
+    }
+
+    private int runPicking() {
+        List<PickLine> lines;
+        try {
+            lines = OrderFile.read(new File(ordersPath));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error reading orders: " + e.getMessage());
+            return 1;
+        }
+
+        AssetManager assetManager = new DesktopAssetManager(true);
+        int failures = 0;
+        try (PrintWriter writer = new PrintWriter(new FileWriter(outputPath))) {
+            writer.println(PICKING_HEADER);
+            for (String projectPath : projectPaths) {
+                try {
+                    UndoManager undoManager = new UndoManager();
+                    List<Spatial> sceneObjects = new ProjectLoader(undoManager, assetManager, new Node("Root")).loadProjectData(projectPath);
+                    Spatial depot = findReceivingArea(undoManager, sceneObjects);
+                    for (PickingReport report : createSimulationManager(undoManager, sceneObjects)
+                            .startPickingSimulation(depot, lines, pickers, pickerSpeed, pickTime, batchSize)) {
+                        writer.println(toCsvRow(projectPath, report));
+                    }
+                    writer.flush();
+                } catch (IOException | RuntimeException e) {
+                    failures++;
+                    System.err.println("Picking simulation of " + projectPath + " failed: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing results: " + e.getMessage());
+            return 1;
+        }
+
+        System.out.println("Picking results for " + (projectPaths.size() - failures) + " of " + projectPaths.size() + " projects written to " + outputPath);
+        return failures == 0 ? 0 : 1;
+    }
+
+    private SimulationReport simulate(String projectPath, AssetManager assetManager, List<Pallet> pallets) throws IOException {
+        UndoManager undoManager = new UndoManager();
+        List<Spatial> sceneObjects = new ProjectLoader(undoManager, assetManager, new Node("Root")).loadProjectData(projectPath);
+        Spatial receivingArea = findReceivingArea(undoManager, sceneObjects);
+        SimulationManager simulationManager = createSimulationManager(undoManager, sceneObjects);
+        // A single run only varies the pallets when a seed is given, so plain runs keep using the nominal values.
+        if (seed != null) {
+            simulationManager.setVariation(new PalletVariation(sizeVariation, timeVariation), seed);
+        }
+        if (eventLogDirectory != null) {
+            simulationManager.setEventLogFile(new File(eventLogDirectory, new File(projectPath).getName().replaceFirst("\\.json$", "") + ".events"));
+        }
+        if (metricsDirectory != null) {
+            simulationManager.setMetricsFile(new File(metricsDirectory, new File(projectPath).getName().replaceFirst("\\.json$", "") + ".metrics." + metricsFormat),
+                    metricsInterval);
+        }
+        return simulationManager.startReceivingSimulation(receivingArea, pallets, fleet, dispatchPolicy, 0);
+    }
+
+    private MonteCarloSummary simulateReplications(String projectPath, AssetManager assetManager, List<Pallet> pallets) throws IOException {
+        UndoManager undoManager = new UndoManager();
+        List<Spatial> sceneObjects = new ProjectLoader(undoManager, assetManager, new Node("Root")).loadProjectData(projectPath);
+        Spatial receivingArea = findReceivingArea(undoManager, sceneObjects);
+        ReceivingScenario scenario = createSimulationManager(undoManager, sceneObjects).prepareReceivingScenario(receivingArea, fleet, dispatchPolicy);
+
+        MonteCarloSummary summary = new MonteCarloSimulation(scenario, pallets, new PalletVariation(sizeVariation, timeVariation))
+                .run(replications, seed != null ? seed : 1);
+        System.out.println(String.format(Locale.ROOT, "%s: %d replications in %.1f s, cycle time %.1f s [%.1f, %.1f], throughput %.1f pallets/h [%.1f, %.1f]",
+                projectPath, replications, summary.getWallTimeNanos() / 1e9,
+                summary.getCycleTime().getMean(), summary.getCycleTime().getConfidenceLow(), summary.getCycleTime().getConfidenceHigh(),
+                summary.getThroughput().getMean(), summary.getThroughput().getConfidenceLow(), summary.getThroughput().getConfidenceHigh()));
+        return summary;
+    }
+
+    private SimulationManager createSimulationManager(UndoManager undoManager, List<Spatial> sceneObjects) {
+        fitGrid(sceneObjects);
+        SimulationManager simulationManager = new SimulationManager(undoManager, new NavGrid(undoManager), avoidanceDistance, mode);
+        simulationManager.setReservationWindow(reservationWindow);
+        simulationManager.setPutAwayPolicy(putAwayPolicy);
+        return simulationManager;
+    }
+
+    private void fitGrid(List<Spatial> sceneObjects) {
+        if (gridLength > 0 && gridWidth > 0) {
+            Grid.GRID_LENGTH = gridLength;
+            Grid.GRID_WIDTH = gridWidth;
+            return;
+        }
+
+        // Grid size is not stored in project files, so cover every loaded object plus a one-cell margin.
+        float maxX = 0;
+        float maxZ = 0;
+        for (Spatial spatial : sceneObjects) {
+            BoundingVolume bound = spatial.getWorldBound();
+            Vector3f center = bound != null ? bound.getCenter() : spatial.getWorldTranslation();
+            float xExtent = 0;
+            float zExtent = 0;
+            if (bound instanceof BoundingBox) {
+                xExtent = ((BoundingBox) bound).getXExtent();
+                zExtent = ((BoundingBox) bound).getZExtent();
+            } else if (bound instanceof BoundingSphere) {
+                xExtent = zExtent = ((BoundingSphere) bound).getRadius();
+            }
+            maxX = Math.max(maxX, Math.abs(center.x) + xExtent);
+            maxZ = Math.max(maxZ, Math.abs(center.z) + zExtent);
+        }
+        if (dockPosition != null) {
+            maxX = Math.max(maxX, Math.abs(dockPosition.x));
+            maxZ = Math.max(maxZ, Math.abs(dockPosition.z));
+        }
+        Grid.GRID_LENGTH = (int) Math.ceil(maxX / Grid.GRID_SPACING) + 1;
+        Grid.GRID_WIDTH = (int) Math.ceil(maxZ / Grid.GRID_SPACING) + 1;
+    }
+
+    private Spatial findReceivingArea(UndoManager undoManager, List<Spatial> sceneObjects) {
+        if (dockPosition != null) {
+            Node dock = new Node("Dock");
+            dock.setLocalTranslation(dockPosition);
+            dock.updateGeometricState();
+            return dock;
+        }
+
+        for (Spatial spatial : sceneObjects) {
+            if (spatial.getName().equals(areaName)) {
+                // Plain areas are saved as plain scene objects; register the receiving area so it is not treated as an obstacle.
+                if (spatial instanceof Geometry) {
+                    undoManager.getPlainAreaCompleteAreas().put((Geometry) spatial, 0f);
+                }
+                return spatial;
+            }
+        }
+        throw new IllegalArgumentException("No receiving area named '" + areaName + "' in project.");
+    }
+
+    private List<Pallet> readPallets(String path) throws IOException {
+        List<Pallet> pallets = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || (lineNumber == 1 && line.toLowerCase(Locale.ROOT).startsWith("id"))) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length < 5) {
+                    throw new IllegalArgumentException(path + ":" + lineNumber + " expected id,height,width,depth,weight[,velocity]");
+                }
+                try {
+                    double velocity = fields.length > 5 ? Double.parseDouble(fields[5].trim()) : 0;
+                    pallets.add(new Pallet(fields[0].trim(), Double.parseDouble(fields[1].trim()), Double.parseDouble(fields[2].trim()),
+                            Double.parseDouble(fields[3].trim()), Double.parseDouble(fields[4].trim()), velocity));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(path + ":" + lineNumber + " invalid number: " + e.getMessage());
+                }
+            }
+        }
+        return pallets;
+    }
+
+    private List<Pallet> defaultPallets(int count) {
+        List<Pallet> pallets = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            pallets.add(new Pallet("P" + i, 1.2, 0.8, 1.2, 500));
+        }
+        return pallets;
+    }
+
+    private String toCsvRow(String projectPath, int palletTotal, SimulationReport report) {
+        return String.format(Locale.ROOT, "%s,%s,%s,%s,%d,%d,%d,%d,%d,%.1f,%.1f,%.1f,%.2f,%.3f,%.1f,%.1f,%.1f,%d,%d,%.2f",
+                csvField(projectPath), report.getMode(), report.getDispatchPolicy(), report.getPutAwayPolicy(), fleet.size(), palletTotal,
+                report.getRackSlots(), report.getAssignedPallets(), report.getUnassignedPallets(), report.getSimulatedSeconds(),
+                report.getTravelDistance(), report.getMeanCycleSeconds(), report.getThroughputPerHour(),
+                report.getMeanUtilisation(), report.getCongestionWait(), report.getPutAwayCost(), report.getGreedyPutAwayCost(),
+                report.getGreedyStoredPallets(), report.getPathQueries(), report.getSearchTimeNanos() / 1_000_000.0);
+    }
+
+    private String toCsvRow(String projectPath, int palletTotal, MonteCarloSummary summary) {
+        MonteCarloSummary.Statistic cycleTime = summary.getCycleTime();
+        MonteCarloSummary.Statistic throughput = summary.getThroughput();
+        return String.format(Locale.ROOT, "%s,%s,%s,%s,%d,%d,%d,%d,%.3f,%.3f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.1f",
+                csvField(projectPath), mode, dispatchPolicy, putAwayPolicy, fleet.size(), palletTotal, summary.getReplications(), summary.getSeed(),
+                sizeVariation, timeVariation,
+                cycleTime.getMean(), cycleTime.getP50(), cycleTime.getP95(), cycleTime.getConfidenceLow(), cycleTime.getConfidenceHigh(),
+                throughput.getMean(), throughput.getP50(), throughput.getP95(), throughput.getConfidenceLow(), throughput.getConfidenceHigh(),
+                summary.getUnassignedPallets().getMean(), summary.getWallTimeNanos() / 1e9);
+    }
+
+    private String toCsvRow(String projectPath, PickingReport report) {
+        return String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%d,%d,%d,%.1f,%.1f,%.1f,%.1f,%.2f",
+                csvField(projectPath), report.getStrategy(), report.getRouting(), report.getPickers(), report.getOrders(), report.getPickedLines(),
+                report.getSkippedLines(), report.getTrips(), report.getTravelDistance(), report.getTravelPerOrder(), report.getMakespan(),
+                report.getPicksPerHour(), report.getRoutingTimeNanos() / 1_000_000.0);
+    }
+
+    private static String csvField(String value) {
+        if (value.contains(",") || value.contains("\"")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,56 @@
+package tech.simulations;
+
+import tech.simulations.events.EventKernel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class MonteCarloSimulation {
+
+    private static final ForkJoinPool REPLICATION_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final ReceivingScenario scenario;
+    private final List<Pallet> pallets;
+    private final PalletVariation variation;
+
+    public MonteCarloSimulation(ReceivingScenario scenario, List<Pallet> pallets, PalletVariation variation) {
+        this.scenario = scenario;
+        this.pallets = pallets;
+        this.variation = variation;
+    }
+
+    public MonteCarloSummary run(int replications, long seed) {
+        // Seeds are drawn up front so results do not depend on which worker runs which replication.
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<ForkJoinTask<double[]>> tasks = new ArrayList<>(replications);
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < replications; i++) {
+            long replicationSeed = seeds.nextLong();
+            tasks.add(REPLICATION_POOL.submit(() -> replicate(replicationSeed)));
+        }
+
+        double[] cycleTimes = new double[replications];
+        double[] throughputs = new double[replications];
+        double[] unassigned = new double[replications];
+        for (int i = 0; i < replications; i++) {
+            double[] result = tasks.get(i).join();
+            cycleTimes[i] = result[0];
+            throughputs[i] = result[1];
+            unassigned[i] = result[2];
+        }
+        return new MonteCarloSummary(replications, seed, MonteCarloSummary.Statistic.of(cycleTimes), MonteCarloSummary.Statistic.of(throughputs),
+                MonteCarloSummary.Statistic.of(unassigned), System.nanoTime() - startNanos);
+    }
+
+    private double[] replicate(long seed) {
+        List<PalletTask> tasks = variation.sampleTasks(scenario, pallets, new Random(seed), false);
+        EventKernel kernel = new EventKernel(false);
+        ReceivingProcess process = scenario.run(tasks, kernel);
+        double throughput = kernel.getClock() > 0 ? process.getStoredPallets() * 3600.0 / kernel.getClock() : 0;
+        return new double[]{process.getMeanCycleTime(), throughput, pallets.size() - tasks.size()};
+    }
+}
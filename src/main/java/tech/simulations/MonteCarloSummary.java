@@ -0,0 +1,118 @@
+package tech.simulations;
+
+import java.util.Arrays;
+
+public class MonteCarloSummary {
+    private final int replications;
+    private final long seed;
+    private final Statistic cycleTime;
+    private final Statistic throughput;
+    private final Statistic unassignedPallets;
+    private final long wallTimeNanos;
+
+    public MonteCarloSummary(int replications, long seed, Statistic cycleTime, Statistic throughput, Statistic unassignedPallets, long wallTimeNanos) {
+        this.replications = replications;
+        this.seed = seed;
+        this.cycleTime = cycleTime;
+        this.throughput = throughput;
+        this.unassignedPallets = unassignedPallets;
+        this.wallTimeNanos = wallTimeNanos;
+    }
+
+    public int getReplications() {
+        return replications;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Statistic getCycleTime() {
+        return cycleTime;
+    }
+
+    public Statistic getThroughput() {
+        return throughput;
+    }
+
+    public Statistic getUnassignedPallets() {
+        return unassignedPallets;
+    }
+
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    public static class Statistic {
+        // Two-sided 95% Student t quantiles for 1..30 degrees of freedom; the normal 1.96 is used above that.
+        private static final double[] T_95 = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+                2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+                2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+        private final double mean;
+        private final double standardDeviation;
+        private final double p50;
+        private final double p95;
+        private final double confidenceHalfWidth;
+
+        private Statistic(double mean, double standardDeviation, double p50, double p95, double confidenceHalfWidth) {
+            this.mean = mean;
+            this.standardDeviation = standardDeviation;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.confidenceHalfWidth = confidenceHalfWidth;
+        }
+
+        public static Statistic of(double[] samples) {
+            int n = samples.length;
+            if (n == 0) {
+                return new Statistic(0, 0, 0, 0, 0);
+            }
+            double sum = 0;
+            for (double sample : samples) {
+                sum += sample;
+            }
+            double mean = sum / n;
+            double squares = 0;
+            for (double sample : samples) {
+                squares += (sample - mean) * (sample - mean);
+            }
+            double standardDeviation = n > 1 ? Math.sqrt(squares / (n - 1)) : 0;
+            double t = n - 1 >= 1 && n - 1 <= T_95.length ? T_95[n - 2] : 1.96;
+
+            double[] sorted = samples.clone();
+            Arrays.sort(sorted);
+            return new Statistic(mean, standardDeviation, percentile(sorted, 0.50), percentile(sorted, 0.95), t * standardDeviation / Math.sqrt(n));
+        }
+
+        // Nearest-rank percentile of sorted samples.
+        private static double percentile(double[] sorted, double fraction) {
+            int rank = (int) Math.ceil(fraction * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getStandardDeviation() {
+            return standardDeviation;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP95() {
+            return p95;
+        }
+
+        public double getConfidenceLow() {
+            return mean - confidenceHalfWidth;
+        }
+
+        public double getConfidenceHigh() {
+            return mean + confidenceHalfWidth;
+        }
+    }
+}
@@ -6,6 +6,7 @@ public class Pallet {
     private double width;
     private double depth;
     private double weight;
+    private double velocity; // expected retrievals per day, 0 when unknown
 
     public Pallet(String id, double height, double width, double depth, double weight) {
         this.id = id;
@@ -15,6 +16,11 @@ public class Pallet {
         this.weight = weight;
     }
 
+    public Pallet(String id, double height, double width, double depth, double weight, double velocity) {
+        this(id, height, width, depth, weight);
+        this.velocity = velocity;
+    }
+
     public String getId() {
         return id;
     }
@@ -35,6 +41,10 @@ public class Pallet {
         return weight;
     }
 
+    public double getVelocity() {
+        return velocity;
+    }
+
     public void setHeight(double height) {
         this.height = height;
     }
@@ -51,6 +61,10 @@ public class Pallet {
         this.weight = weight;
     }
 
+    public void setVelocity(double velocity) {
+        this.velocity = velocity;
+    }
+
     @Override
     public String toString() {
         return id;
@@ -0,0 +1,69 @@
+package tech.simulations;
+
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Spatial;
+
+import java.util.List;
+
+public class PalletTask {
+    private final Pallet pallet;
+    private final Spatial rack;
+    private final List<Vector3f> pathToRack;
+    private final List<Vector3f> pathBack;
+    private final double loadTime;
+    private final double unloadTime;
+    private final int shelf;
+    private final int position;
+    private final double liftHeight; // m
+
+    public PalletTask(Pallet pallet, Spatial rack, List<Vector3f> pathToRack, List<Vector3f> pathBack, double loadTime, double unloadTime,
+                      int shelf, int position, double liftHeight) {
+        this.pallet = pallet;
+        this.rack = rack;
+        this.pathToRack = pathToRack;
+        this.pathBack = pathBack;
+        this.loadTime = loadTime;
+        this.unloadTime = unloadTime;
+        this.shelf = shelf;
+        this.position = position;
+        this.liftHeight = liftHeight;
+    }
+
+    public Pallet getPallet() {
+        return pallet;
+    }
+
+    public Spatial getRack() {
+        return rack;
+    }
+
+    public List<Vector3f> getPathToRack() {
+        return pathToRack;
+    }
+
+    public List<Vector3f> getPathBack() {
+        return pathBack;
+    }
+
+    public double getLoadTime() {
+        return loadTime;
+    }
+
+    public double getUnloadTime() {
+        return unloadTime;
+    }
+
+    // Shelf level counted from the floor, 0 being the lowest.
+    public int getShelf() {
+        return shelf;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    // Height of the shelf above the floor, which the pallet is lifted to.
+    public double getLiftHeight() {
+        return liftHeight;
+    }
+}
@@ -0,0 +1,58 @@
+package tech.simulations;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Random spread of pallet sizes, weights and handling times around their nominal values.
+public class PalletVariation {
+    private final double sizeVariation;
+    private final double timeVariation;
+
+    // Variations are coefficients of variation: 0.1 draws values whose standard deviation is 10% of the nominal one.
+    public PalletVariation(double sizeVariation, double timeVariation) {
+        this.sizeVariation = sizeVariation;
+        this.timeVariation = timeVariation;
+    }
+
+    // Draws the same number of values for every pallet in list order, so one seed always gives the same tasks.
+    public List<PalletTask> sampleTasks(ReceivingScenario scenario, List<Pallet> pallets, Random random, boolean verbose) {
+        List<Pallet> sampled = new ArrayList<>(pallets.size());
+        Map<Pallet, double[]> timeFactors = new IdentityHashMap<>();
+        for (Pallet nominal : pallets) {
+            Pallet pallet = new Pallet(nominal.getId(), nominal.getHeight() * factor(random, sizeVariation),
+                    nominal.getWidth() * factor(random, sizeVariation), nominal.getDepth() * factor(random, sizeVariation),
+                    nominal.getWeight() * factor(random, sizeVariation), nominal.getVelocity());
+            sampled.add(pallet);
+            timeFactors.put(pallet, new double[]{factor(random, timeVariation), factor(random, timeVariation)});
+        }
+
+        List<PalletTask> tasks = new ArrayList<>(pallets.size());
+        for (PalletTask task : scenario.createTasks(sampled, verbose)) {
+            double[] factors = timeFactors.get(task.getPallet());
+            tasks.add(new PalletTask(task.getPallet(), task.getRack(), task.getPathToRack(), task.getPathBack(),
+                    task.getLoadTime() * factors[0], task.getUnloadTime() * factors[1], task.getShelf(), task.getPosition(),
+                    task.getLiftHeight()));
+        }
+        return tasks;
+    }
+
+    public double getSizeVariation() {
+        return sizeVariation;
+    }
+
+    public double getTimeVariation() {
+        return timeVariation;
+    }
+
+    // Log-normal with mean 1, so sizes and times stay positive and the nominal value is the expected one.
+    private static double factor(Random random, double variation) {
+        if (variation <= 0) {
+            return 1;
+        }
+        double sigmaSquared = Math.log(1 + variation * variation);
+        return Math.exp(-sigmaSquared / 2 + Math.sqrt(sigmaSquared) * random.nextGaussian());
+    }
+}
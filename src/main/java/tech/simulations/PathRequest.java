@@ -0,0 +1,26 @@
+package tech.simulations;
+
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Spatial;
+
+public class PathRequest {
+    private final Vector3f start;
+    private final Vector3f end;
+
+    public PathRequest(Vector3f start, Vector3f end) {
+        this.start = start.clone();
+        this.end = end.clone();
+    }
+
+    public PathRequest(Spatial start, Spatial end) {
+        this(start.getWorldTranslation(), end.getWorldTranslation());
+    }
+
+    public Vector3f getStart() {
+        return start;
+    }
+
+    public Vector3f getEnd() {
+        return end;
+    }
+}
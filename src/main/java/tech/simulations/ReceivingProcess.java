@@ -0,0 +1,356 @@
+package tech.simulations;
+
+import com.jme3.math.Vector3f;
+import tech.simulations.events.EventHandler;
+import tech.simulations.events.EventKernel;
+import tech.simulations.events.EventType;
+import tech.simulations.events.SimulationEvent;
+import tech.simulations.metrics.MetricsBus;
+import ui.Grid;
+
+import java.util.*;
+
+public class ReceivingProcess implements EventHandler {
+    private final List<Vehicle> vehicles = new ArrayList<>();
+    private final Map<String, Vehicle> vehiclesById = new HashMap<>();
+    private final Map<List<Vector3f>, Double> routeLengths = new IdentityHashMap<>();
+    private final List<PalletTask> pendingTasks;
+    private final DispatchPolicy policy;
+    private final CooperativeRouter router;
+    private MetricsBus metrics;
+    private int storedPallets;
+    private double totalCycleTime;
+
+    public ReceivingProcess(Forklift forklift, List<PalletTask> tasks) {
+        this(Collections.singletonList(forklift), tasks, DispatchPolicy.NEAREST_IDLE);
+    }
+
+    public ReceivingProcess(List<Forklift> fleet, List<PalletTask> tasks, DispatchPolicy policy) {
+        this(fleet, tasks, policy, null);
+    }
+
+    public ReceivingProcess(List<Forklift> fleet, List<PalletTask> tasks, DispatchPolicy policy, CooperativeRouter router) {
+        for (Forklift forklift : fleet) {
+            Vehicle vehicle = new Vehicle(forklift, vehicles.size());
+            vehicles.add(vehicle);
+            vehiclesById.put(forklift.getId(), vehicle);
+        }
+        this.pendingTasks = new LinkedList<>(tasks);
+        this.policy = policy;
+        this.router = router;
+    }
+
+    public void setMetrics(MetricsBus metrics) {
+        this.metrics = metrics;
+    }
+
+    public void start(EventKernel kernel) {
+        dispatch(kernel);
+    }
+
+    @Override
+    public void handle(SimulationEvent event, EventKernel kernel) {
+        Vehicle vehicle = vehiclesById.get(event.getVehicleId());
+        PalletTask task = vehicle.task;
+        String vehicleId = vehicle.forklift.getId();
+
+        switch (event.getType()) {
+            case LOAD:
+                vehicle.phase = Phase.TO_RACK;
+                vehicle.busyTime += task.getLoadTime();
+                if (metrics != null) {
+                    metrics.busy(vehicle.index, event.getTime(), event.getTime() + task.getLoadTime(), 0);
+                }
+                depart(vehicle, task.getPathToRack(), task.getLoadTime(), event.getPalletId(), kernel);
+                break;
+            case DEPART:
+                vehicle.trip = router.startTrip(vehicle.index, event.getRoute().get(0), event.getRoute().get(event.getRoute().size() - 1),
+                        vehicle.forklift.getSpeed(vehicle.phase == Phase.TO_RACK), kernel.getClock());
+                scheduleLeg(vehicle, event.getPalletId(), kernel);
+                break;
+            case TRAVEL_START:
+                double distance = routeLength(event.getRoute());
+                vehicle.busyTime += event.getDuration();
+                vehicle.travelDistance += distance;
+                if (metrics != null) {
+                    metrics.busy(vehicle.index, event.getTime(), event.getTime() + event.getDuration(), distance);
+                }
+                kernel.schedule(event.getDuration(), EventType.ARRIVE, vehicleId, event.getPalletId());
+                break;
+            case ARRIVE:
+                if (vehicle.trip != null) {
+                    if (!vehicle.trip.isFinished()) {
+                        scheduleLeg(vehicle, event.getPalletId(), kernel);
+                        break;
+                    }
+                    vehicle.trip = null;
+                }
+                if (vehicle.phase == Phase.TO_DOCK) {
+                    vehicle.routeToDock = null;
+                    kernel.schedule(0, EventType.LOAD, vehicleId, event.getPalletId());
+                } else if (vehicle.phase == Phase.TO_RACK) {
+                    kernel.schedule(0, EventType.UNLOAD, vehicleId, event.getPalletId());
+                } else {
+                    vehicle.routeToDock = null;
+                    vehicle.phase = Phase.IDLE;
+                }
+                break;
+            case UNLOAD:
+                storedPallets++;
+                vehicle.storedPallets++;
+                double unloadTime = unloadTime(vehicle, task);
+                vehicle.busyTime += unloadTime;
+                if (metrics != null) {
+                    metrics.stored(vehicle.index, task.getRack().getName(), event.getTime());
+                    metrics.busy(vehicle.index, event.getTime(), event.getTime() + unloadTime, 0);
+                }
+                kernel.schedule(unloadTime, EventType.IDLE, vehicleId, event.getPalletId());
+                break;
+            case IDLE:
+                totalCycleTime += event.getTime() - vehicle.cycleStart;
+                if (metrics != null) {
+                    metrics.rackQueue(task.getRack().getName(), event.getTime(), -1);
+                }
+                vehicle.routeToDock = task.getPathBack();
+                vehicle.task = null;
+                vehicle.phase = Phase.IDLE;
+                dispatch(kernel);
+                break;
+        }
+    }
+
+    private void dispatch(EventKernel kernel) {
+        double now = kernel.getClock();
+        double[] availableAt = new double[vehicles.size()];
+        List<List<Vector3f>> routesToDock = new ArrayList<>(vehicles.size());
+        for (int i = 0; i < vehicles.size(); i++) {
+            Vehicle vehicle = vehicles.get(i);
+            availableAt[i] = vehicle.phase == Phase.IDLE ? now : vehicle.expectedCompletion;
+            routesToDock.add(vehicle.phase == Phase.IDLE ? vehicle.routeToDock : vehicle.task != null ? vehicle.task.getPathBack() : null);
+        }
+
+        // Look ahead at most one skipped task per vehicle so a dispatch stays O(fleet^2) however long the queue is.
+        int reservations = 0;
+        Iterator<PalletTask> iterator = pendingTasks.iterator();
+        while (iterator.hasNext() && reservations < vehicles.size() && hasIdleVehicle()) {
+            PalletTask task = iterator.next();
+            int chosen = policy == DispatchPolicy.EARLIEST_COMPLETION
+                    ? earliestCompletion(task, availableAt, routesToDock)
+                    : nearestIdle(task);
+            if (chosen < 0) {
+                reservations++;
+                continue;
+            }
+
+            Vehicle vehicle = vehicles.get(chosen);
+            if (vehicle.phase == Phase.IDLE) {
+                iterator.remove();
+                assign(vehicle, task, kernel);
+            } else {
+                // Busy vehicles only reserve the task here; it is assigned when they become idle.
+                reservations++;
+            }
+            availableAt[chosen] = completionTime(vehicle, task, availableAt[chosen], routesToDock.get(chosen));
+            routesToDock.set(chosen, task.getPathBack());
+        }
+
+        if (metrics != null) {
+            metrics.dockQueue(now, pendingTasks.size());
+        }
+        if (pendingTasks.isEmpty()) {
+            for (Vehicle vehicle : vehicles) {
+                if (vehicle.phase == Phase.IDLE && vehicle.routeToDock != null) {
+                    park(vehicle, kernel);
+                }
+            }
+        }
+    }
+
+    private int nearestIdle(PalletTask task) {
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < vehicles.size(); i++) {
+            Vehicle vehicle = vehicles.get(i);
+            if (vehicle.phase != Phase.IDLE || !vehicle.canCarry(task)) continue;
+
+            double distance = vehicle.routeToDock != null ? cachedLength(vehicle.routeToDock) : 0;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private int earliestCompletion(PalletTask task, double[] availableAt, List<List<Vector3f>> routesToDock) {
+        int best = -1;
+        double bestCompletion = Double.MAX_VALUE;
+        for (int i = 0; i < vehicles.size(); i++) {
+            Vehicle vehicle = vehicles.get(i);
+            if (!vehicle.canCarry(task)) continue;
+
+            double completion = completionTime(vehicle, task, availableAt[i], routesToDock.get(i));
+            if (completion < bestCompletion) {
+                bestCompletion = completion;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private double completionTime(Vehicle vehicle, PalletTask task, double availableAt, List<Vector3f> routeToDock) {
+        double deadhead = routeToDock != null ? vehicle.travelTime(routeToDock, false) : 0;
+        return availableAt + deadhead + task.getLoadTime() + vehicle.travelTime(task.getPathToRack(), true) + unloadTime(vehicle, task);
+    }
+
+    // Handling at the rack plus taking the pallet up to its shelf and the forks back down.
+    private static double unloadTime(Vehicle vehicle, PalletTask task) {
+        return task.getUnloadTime() + vehicle.forklift.getDynamics().liftTime(task.getLiftHeight());
+    }
+
+    private double cachedLength(List<Vector3f> route) {
+        return routeLengths.computeIfAbsent(route, ReceivingProcess::routeLength);
+    }
+
+    private void assign(Vehicle vehicle, PalletTask task, EventKernel kernel) {
+        double now = kernel.getClock();
+        String vehicleId = vehicle.forklift.getId();
+        String palletId = task.getPallet().getId();
+
+        vehicle.task = task;
+        vehicle.cycleStart = now;
+        if (metrics != null) {
+            metrics.rackQueue(task.getRack().getName(), now, 1);
+        }
+        vehicle.expectedCompletion = completionTime(vehicle, task, now, vehicle.routeToDock);
+        vehicle.phase = Phase.TO_DOCK;
+        if (vehicle.routeToDock != null && !vehicle.routeToDock.isEmpty()) {
+            depart(vehicle, vehicle.routeToDock, 0, palletId, kernel);
+        } else {
+            kernel.schedule(0, EventType.LOAD, vehicleId, palletId);
+        }
+    }
+
+    private void park(Vehicle vehicle, EventKernel kernel) {
+        vehicle.phase = Phase.PARKING;
+        vehicle.expectedCompletion = kernel.getClock() + vehicle.travelTime(vehicle.routeToDock, false);
+        depart(vehicle, vehicle.routeToDock, 0, null, kernel);
+    }
+
+    private void depart(Vehicle vehicle, List<Vector3f> route, double delay, String palletId, EventKernel kernel) {
+        if (router == null || route.size() < 2) {
+            kernel.schedule(delay, EventType.TRAVEL_START, vehicle.forklift.getId(), palletId, route,
+                    vehicle.travelTime(route, vehicle.phase == Phase.TO_RACK));
+        } else {
+            kernel.schedule(delay, EventType.DEPART, vehicle.forklift.getId(), palletId, route, 0);
+        }
+    }
+
+    private void scheduleLeg(Vehicle vehicle, String palletId, EventKernel kernel) {
+        CooperativeRouter.Leg leg = router.nextLeg(vehicle.trip);
+        if (leg == null) {
+            kernel.schedule(0, EventType.ARRIVE, vehicle.forklift.getId(), palletId);
+            return;
+        }
+        kernel.schedule(Math.max(0, leg.getStartTime() - kernel.getClock()), EventType.TRAVEL_START, vehicle.forklift.getId(), palletId,
+                leg.getRoute(), leg.getDuration());
+    }
+
+    private boolean hasIdleVehicle() {
+        for (Vehicle vehicle : vehicles) {
+            if (vehicle.phase == Phase.IDLE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public CooperativeRouter getRouter() {
+        return router;
+    }
+
+    public int getStoredPallets() {
+        return storedPallets;
+    }
+
+    public double getBusyTime() {
+        double busyTime = 0;
+        for (Vehicle vehicle : vehicles) {
+            busyTime += vehicle.busyTime;
+        }
+        return busyTime;
+    }
+
+    public double getTravelDistance() {
+        double travelDistance = 0;
+        for (Vehicle vehicle : vehicles) {
+            travelDistance += vehicle.travelDistance;
+        }
+        return travelDistance;
+    }
+
+    public double getMeanCycleTime() {
+        return storedPallets > 0 ? totalCycleTime / storedPallets : 0;
+    }
+
+    public Map<String, Double> getUtilisation(double simulatedSeconds) {
+        Map<String, Double> utilisation = new LinkedHashMap<>();
+        for (Vehicle vehicle : vehicles) {
+            utilisation.put(vehicle.forklift.getId(), simulatedSeconds > 0 ? vehicle.busyTime / simulatedSeconds : 0);
+        }
+        return utilisation;
+    }
+
+    public Map<String, Integer> getStoredPalletsByVehicle() {
+        Map<String, Integer> stored = new LinkedHashMap<>();
+        for (Vehicle vehicle : vehicles) {
+            stored.put(vehicle.forklift.getId(), vehicle.storedPallets);
+        }
+        return stored;
+    }
+
+    public static double routeLength(List<Vector3f> route) {
+        double length = 0;
+        for (int i = 1; i < route.size(); i++) {
+            length += route.get(i - 1).distance(route.get(i));
+        }
+        return length / Grid.GRID_SPACING;
+    }
+
+    private enum Phase {
+        IDLE,
+        TO_DOCK,
+        TO_RACK,
+        PARKING
+    }
+
+    private static class Vehicle {
+        private final Forklift forklift;
+        private final int index;
+        private final Map<List<Vector3f>, Double> emptyTimes = new IdentityHashMap<>();
+        private final Map<List<Vector3f>, Double> loadedTimes = new IdentityHashMap<>();
+        private CooperativeRouter.Trip trip;
+        private Phase phase = Phase.IDLE;
+        private PalletTask task;
+        private List<Vector3f> routeToDock;
+        private double cycleStart;
+        private double expectedCompletion;
+        private double busyTime;
+        private double travelDistance;
+        private int storedPallets;
+
+        Vehicle(Forklift forklift, int index) {
+            this.forklift = forklift;
+            this.index = index;
+        }
+
+        // Routes are shared between tasks, so each is only worked out once per vehicle and load.
+        double travelTime(List<Vector3f> route, boolean loaded) {
+            return (loaded ? loadedTimes : emptyTimes).computeIfAbsent(route, r -> forklift.travelTime(r, loaded));
+        }
+
+        boolean canCarry(PalletTask task) {
+            return task.getPallet().getWeight() <= forklift.getMaxWeightCapacity();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package tech.simulations;
+
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Spatial;
+import tech.simulations.events.EventKernel;
+import tech.simulations.metrics.MetricsBus;
+import tech.simulations.pathfinding.NavGrid;
+import tech.simulations.storage.PutAwayPolicy;
+import tech.simulations.storage.SlotAllocator;
+import tech.simulations.storage.SlotLayout;
+import tech.tags.RackSettings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Everything a receiving run needs that does not depend on the pallets: rack slots, routes, handling times and the fleet.
+// Read-only once built, so replications can share one scenario across threads.
+public class ReceivingScenario {
+    private final SlotLayout slotLayout;
+    private final PutAwayPolicy putAwayPolicy;
+    private final Map<Spatial, List<Vector3f>> pathsToRacks;
+    private final Map<Spatial, List<Vector3f>> pathsBack;
+    private final Map<Spatial, Double> unloadTimes;
+    private final double loadTime;
+    private final List<Forklift> fleet;
+    private final double fleetCapacity;
+    private final DispatchPolicy dispatchPolicy;
+    private final NavGrid navGrid;
+    private final int clearanceCells;
+    private final int reservationWindow;
+
+    public ReceivingScenario(Map<Spatial, RackSettings> racks, Map<Spatial, List<Vector3f>> pathsToRacks, Map<Spatial, Double> unloadTimes,
+                             double loadTime, List<Forklift> fleet, DispatchPolicy dispatchPolicy, PutAwayPolicy putAwayPolicy, NavGrid navGrid,
+                             int clearanceCells, int reservationWindow) {
+        this.slotLayout = new SlotLayout(racks, pathsToRacks);
+        this.putAwayPolicy = putAwayPolicy;
+        this.pathsToRacks = pathsToRacks;
+        this.unloadTimes = unloadTimes;
+        this.loadTime = loadTime;
+        this.fleet = fleet;
+        this.dispatchPolicy = dispatchPolicy;
+        this.navGrid = navGrid;
+        this.clearanceCells = clearanceCells;
+        this.reservationWindow = reservationWindow;
+
+        double capacity = 0;
+        for (Forklift forklift : fleet) {
+            capacity = Math.max(capacity, forklift.getMaxWeightCapacity());
+        }
+        this.fleetCapacity = capacity;
+
+        this.pathsBack = new HashMap<>();
+        for (Map.Entry<Spatial, List<Vector3f>> entry : pathsToRacks.entrySet()) {
+            List<Vector3f> pathBack = new ArrayList<>(entry.getValue());
+            Collections.reverse(pathBack);
+            pathsBack.put(entry.getKey(), pathBack);
+        }
+    }
+
+    private ReceivingScenario(ReceivingScenario scenario, PutAwayPolicy putAwayPolicy) {
+        this.slotLayout = scenario.slotLayout;
+        this.putAwayPolicy = putAwayPolicy;
+        this.pathsToRacks = scenario.pathsToRacks;
+        this.pathsBack = scenario.pathsBack;
+        this.unloadTimes = scenario.unloadTimes;
+        this.loadTime = scenario.loadTime;
+        this.fleet = scenario.fleet;
+        this.fleetCapacity = scenario.fleetCapacity;
+        this.dispatchPolicy = scenario.dispatchPolicy;
+        this.navGrid = scenario.navGrid;
+        this.clearanceCells = scenario.clearanceCells;
+        this.reservationWindow = scenario.reservationWindow;
+    }
+
+    // Same racks and routes, different put-away policy; used to compare policies on one wave.
+    public ReceivingScenario withPutAwayPolicy(PutAwayPolicy putAwayPolicy) {
+        return new ReceivingScenario(this, putAwayPolicy);
+    }
+
+    // Puts the pallets away in list order, each into the open slot the put-away policy picks; pallets without one are left out.
+    public List<PalletTask> createTasks(List<Pallet> pallets, boolean verbose) {
+        List<Pallet> carried = new ArrayList<>(pallets.size());
+        for (Pallet pallet : pallets) {
+            if (pallet.getWeight() <= fleetCapacity) {
+                carried.add(pallet);
+            } else if (verbose) {
+                System.out.println("No forklift can carry pallet: " + pallet.getId());
+            }
+        }
+
+        int[] slots = new SlotAllocator(slotLayout, putAwayPolicy).assignAll(carried);
+        List<PalletTask> tasks = new ArrayList<>(carried.size());
+        for (int i = 0; i < carried.size(); i++) {
+            Pallet pallet = carried.get(i);
+            int slot = slots[i];
+            if (slot < 0) {
+                if (verbose) {
+                    System.out.println("No open rack slot fits pallet: " + pallet.getId());
+                }
+                continue;
+            }
+
+            Spatial rack = slotLayout.getRack(slotLayout.getSlotRack(slot));
+            int shelf = slotLayout.getSlotShelf(slot);
+            tasks.add(new PalletTask(pallet, rack, pathsToRacks.get(rack), pathsBack.get(rack), loadTime, unloadTimes.get(rack),
+                    slotLayout.getShelfLevel(shelf), slotLayout.getSlotPosition(slot), slotLayout.getShelfHeight(shelf)));
+        }
+        return tasks;
+    }
+
+    // The put-away objective the slot allocator minimises: dock-to-rack distance plus lift height in metres per pallet.
+    public double putAwayCost(List<PalletTask> tasks) {
+        Map<Spatial, Double> rackDistances = new HashMap<>();
+        for (int rack = 0; rack < slotLayout.getRackCount(); rack++) {
+            rackDistances.put(slotLayout.getRack(rack), slotLayout.getRackDistance(rack));
+        }
+        double cost = 0;
+        for (PalletTask task : tasks) {
+            cost += rackDistances.get(task.getRack()) + task.getLiftHeight();
+        }
+        return cost;
+    }
+
+    public ReceivingProcess run(List<PalletTask> tasks, EventKernel kernel) {
+        return run(tasks, kernel, null);
+    }
+
+    public ReceivingProcess run(List<PalletTask> tasks, EventKernel kernel, MetricsBus metrics) {
+        CooperativeRouter router = null;
+        if (reservationWindow > 0) {
+            router = new CooperativeRouter(navGrid, clearanceCells, reservationWindow, CooperativeRouter.tickSecondsFor(fleet));
+        }
+        ReceivingProcess process = new ReceivingProcess(fleet, tasks, dispatchPolicy, router);
+        process.setMetrics(metrics);
+        process.start(kernel);
+        kernel.run(process);
+        return process;
+    }
+
+    public Map<Spatial, List<Vector3f>> getPathsToRacks() {
+        return pathsToRacks;
+    }
+
+    public List<Forklift> getFleet() {
+        return fleet;
+    }
+
+    public DispatchPolicy getDispatchPolicy() {
+        return dispatchPolicy;
+    }
+
+    public PutAwayPolicy getPutAwayPolicy() {
+        return putAwayPolicy;
+    }
+
+    public SlotLayout getSlotLayout() {
+        return slotLayout;
+    }
+}
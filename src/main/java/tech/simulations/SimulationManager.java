@@ -1,72 +1,318 @@
 package tech.simulations;
 
 import UndoRedo.UndoManager;
-import com.jme3.math.Quaternion;
 import com.jme3.math.Vector3f;
-import com.jme3.scene.Geometry;
-import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import tech.WareSkladInit;
 import tech.parameters.Parameter;
+import tech.simulations.events.EventKernel;
+import tech.simulations.events.EventLog;
+import tech.simulations.events.SimulationEvent;
+import tech.simulations.metrics.MetricsBus;
+import tech.simulations.metrics.MetricsSink;
+import tech.simulations.pathfinding.NavGrid;
+import tech.simulations.pathfinding.PathFindingMode;
+import tech.simulations.picking.PickLine;
+import tech.simulations.picking.PickingLayout;
+import tech.simulations.picking.PickingReport;
+import tech.simulations.picking.PickingSimulation;
+import tech.simulations.picking.PickingStrategy;
+import tech.simulations.picking.RoutingPolicy;
+import tech.simulations.storage.PutAwayPolicy;
 import tech.tags.RackSettings;
-import ui.Grid;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 public class SimulationManager {
+    private static final double DEFAULT_HANDLING_TIME = 25.0; // s, matches the General section defaults
+    private static final double PICKER_WIDTH = 0.8; // m, a picker with a cart
     private WareSkladInit jmeScene;
     private UndoManager undoManager;
-    private Node rootNode;
+    private NavGrid navGrid;
     private AStarPathFind pathFinder;
-    private Spatial forkliftModel;
     private float avoidanceDistance;
+    private PathFindingMode mode;
+    private int reservationWindow;
+    private PutAwayPolicy putAwayPolicy = PutAwayPolicy.CLOSEST_OPEN_SLOT;
+    private PalletVariation variation;
+    private long seed;
+    private File eventLogFile;
+    private File metricsFile;
+    private double metricsInterval;
 
     public SimulationManager(WareSkladInit jmeScene, float avoidanceDistance) {
+        this(jmeScene, avoidanceDistance, PathFindingMode.FLOW_FIELD);
+    }
+
+    public SimulationManager(WareSkladInit jmeScene, float avoidanceDistance, PathFindingMode mode) {
+        this(jmeScene.undoManager, jmeScene.navGrid, avoidanceDistance, mode);
         this.jmeScene = jmeScene;
-        this.undoManager = jmeScene.undoManager;
-        this.rootNode = jmeScene.getRootNode();
+    }
+
+    // Headless simulation: no path drawing and no playback.
+    public SimulationManager(UndoManager undoManager, NavGrid navGrid, float avoidanceDistance, PathFindingMode mode) {
+        this.undoManager = undoManager;
+        this.navGrid = navGrid;
         this.avoidanceDistance = avoidanceDistance;
-        this.pathFinder = new AStarPathFind(jmeScene, avoidanceDistance);
+        this.mode = mode;
     }
 
-    public void startReceivingSimulation(Geometry selectedArea, List<Pallet> selectedPallets, Forklift forklift) {
-        System.out.println("Avoidance: " + avoidanceDistance);
+    // Window of the space-time reservation search in ticks; 0 lets trucks drive through each other.
+    public void setReservationWindow(int reservationWindow) {
+        this.reservationWindow = reservationWindow;
+    }
 
-        Map<Spatial, Map<Parameter, String>> objectsParameters = undoManager.getObjectsParameters();
-        List<PalletTask> palletQueue = new ArrayList<>();
-
-        for (Pallet pallet : selectedPallets) {
-            boolean assigned = false;
-            for (Map.Entry<Spatial, Map<Parameter, String>> entry : objectsParameters.entrySet()) {
-                Spatial rack = entry.getKey();
-                Map<Parameter, String> parameters = entry.getValue();
-
-                if (isSimulationRack(parameters)) {
-                    RackSettings settings = extractRackSettings(parameters);
-
-                    if (canFitPalletInRack(pallet, settings)) {
-                        List<Vector3f> pathToRack = pathFinder.findPath(selectedArea, (Geometry) rack);
-                        if (pathToRack.isEmpty()) {
-                            System.out.println("No valid path found to rack: " + rack.getName());
-                            continue;
-                        }
-
-                        List<Vector3f> pathBack = new ArrayList<>(pathToRack);
-                        Collections.reverse(pathBack);
-
-                        palletQueue.add(new PalletTask(pallet, pathToRack, pathBack));
-                        assigned = true;
-                        break;
-                    }
-                }
+    public void setPutAwayPolicy(PutAwayPolicy putAwayPolicy) {
+        this.putAwayPolicy = putAwayPolicy;
+    }
+
+    // Samples pallet sizes and handling times from the seed; without a variation every run uses the nominal values.
+    public void setVariation(PalletVariation variation, long seed) {
+        this.variation = variation;
+        this.seed = seed;
+    }
+
+    public void setEventLogFile(File eventLogFile) {
+        this.eventLogFile = eventLogFile;
+    }
+
+    // Streams per-vehicle, per-rack and site metrics in intervals of the given simulated seconds; .jsonl files get JSON Lines.
+    public void setMetricsFile(File metricsFile, double metricsInterval) {
+        this.metricsFile = metricsFile;
+        this.metricsInterval = metricsInterval;
+    }
+
+    public SimulationReport startReceivingSimulation(Spatial selectedArea, List<Pallet> selectedPallets, Forklift forklift) {
+        return startReceivingSimulation(selectedArea, selectedPallets, forklift, 1.0);
+    }
+
+    public SimulationReport startReceivingSimulation(Spatial selectedArea, List<Pallet> selectedPallets, Forklift forklift, double playbackSpeed) {
+        return startReceivingSimulation(selectedArea, selectedPallets, Collections.singletonList(forklift), DispatchPolicy.NEAREST_IDLE, playbackSpeed);
+    }
+
+    public SimulationReport startReceivingSimulation(Spatial selectedArea, List<Pallet> selectedPallets, List<Forklift> fleet,
+                                                     DispatchPolicy dispatchPolicy, double playbackSpeed) {
+        ReceivingScenario scenario = prepareReceivingScenario(selectedArea, fleet, dispatchPolicy);
+
+        long putAwayStart = System.nanoTime();
+        List<PalletTask> palletQueue;
+        if (variation != null) {
+            System.out.println("Random seed " + seed + ", size variation " + variation.getSizeVariation() + ", time variation " + variation.getTimeVariation());
+            palletQueue = variation.sampleTasks(scenario, selectedPallets, new Random(seed), true);
+        } else {
+            palletQueue = scenario.createTasks(selectedPallets, true);
+        }
+        System.out.println("Put-away (" + putAwayPolicy + "): " + palletQueue.size() + " of " + scenario.getSlotLayout().getSlotCount() + " slots filled in "
+                + (System.nanoTime() - putAwayStart) / 1000 + " µs");
+
+        // Closest-open-slot in arrival order is the greedy baseline every policy is measured against.
+        double putAwayCost = scenario.putAwayCost(palletQueue);
+        List<PalletTask> greedyQueue = palletQueue;
+        if (putAwayPolicy != PutAwayPolicy.CLOSEST_OPEN_SLOT) {
+            ReceivingScenario greedy = scenario.withPutAwayPolicy(PutAwayPolicy.CLOSEST_OPEN_SLOT);
+            greedyQueue = variation != null
+                    ? variation.sampleTasks(greedy, selectedPallets, new Random(seed), false)
+                    : greedy.createTasks(selectedPallets, false);
+        }
+        double greedyCost = scenario.putAwayCost(greedyQueue);
+        System.out.println(String.format(Locale.ROOT, "Put-away cost (travel + lift) %.1f m for %d pallets, greedy %.1f m for %d pallets, saved %.1f m",
+                putAwayCost, palletQueue.size(), greedyCost, greedyQueue.size(), greedyCost - putAwayCost));
+        Set<Spatial> drawnRacks = new HashSet<>();
+        for (PalletTask task : palletQueue) {
+            if (drawnRacks.add(task.getRack())) {
+                pathFinder.drawPath(task.getPathToRack());
+            }
+        }
+
+        boolean playback = jmeScene != null && playbackSpeed > 0 && !palletQueue.isEmpty();
+        EventKernel kernel = new EventKernel(eventLogFile != null || playback);
+        MetricsBus metrics = openMetrics(scenario);
+        ReceivingProcess process = scenario.run(palletQueue, kernel, metrics);
+        CooperativeRouter router = process.getRouter();
+        if (metrics != null) {
+            try {
+                metrics.close(kernel.getClock());
+                System.out.println("Metrics written to " + metricsFile + " every " + metricsInterval + " s of simulated time");
+            } catch (IOException e) {
+                System.err.println("Error writing metrics: " + e.getMessage());
+            }
+        }
+
+        System.out.println("Simulated " + kernel.getHandledEvents() + " events, " + process.getStoredPallets()
+                + " pallets stored in " + String.format("%.1f", kernel.getClock()) + " s of simulated time");
+        double congestionWait = router != null ? router.getCongestionWait() : 0;
+        if (router != null) {
+            System.out.println("Reservation window " + reservationWindow + " ticks of " + String.format("%.2f", router.getTickSeconds()) + " s: "
+                    + router.getTrips() + " trips, " + router.getUnresolvedConflicts() + " unresolved conflicts, " + router.getPlannedWindows() + " windows planned, " + router.getExpandedNodes()
+                    + " nodes expanded, " + String.format("%.1f", congestionWait) + " s congestion wait");
+        }
+        Map<String, Double> utilisation = process.getUtilisation(kernel.getClock());
+        Map<String, Integer> storedByVehicle = process.getStoredPalletsByVehicle();
+        for (Map.Entry<String, Double> entry : utilisation.entrySet()) {
+            System.out.println(entry.getKey() + ": " + storedByVehicle.get(entry.getKey()) + " pallets, "
+                    + String.format("%.1f", entry.getValue() * 100) + "% utilisation");
+        }
+
+        if (eventLogFile != null) {
+            try {
+                long checksum = EventLog.write(eventLogFile, kernel.getEventLog());
+                System.out.println("Event log written to " + eventLogFile + String.format(" (CRC32 %08x)", checksum));
+            } catch (IOException e) {
+                System.err.println("Error writing event log: " + e.getMessage());
+            }
+        }
+
+        if (playback) {
+            new SimulationPlayback(jmeScene, pathFinder, kernel.getEventLog(), playbackSpeed).start();
+        }
+
+        System.out.println("Path finding (" + pathFinder.getMode() + "): " + pathFinder.getQueryCount() + " queries, "
+                + pathFinder.getExpandedNodes() + " nodes expanded, " + pathFinder.getSearchTimeNanos() / 1_000_000 + " ms, "
+                + pathFinder.getRawWaypoints() + " cells smoothed to " + pathFinder.getSmoothedWaypoints() + " waypoints, cache "
+                + pathFinder.getCacheHits() + " hits / " + pathFinder.getCacheMisses() + " misses");
+
+        return new SimulationReport(pathFinder.getMode(), pathFinder.getQueryCount(), pathFinder.getExpandedNodes(),
+                pathFinder.getSearchTimeNanos(), pathFinder.getCacheHits(), pathFinder.getCacheMisses(), palletQueue.size(), selectedPallets.size() - palletQueue.size(),
+                kernel.getClock(), process.getTravelDistance(), process.getMeanCycleTime(), dispatchPolicy, utilisation, congestionWait,
+                putAwayPolicy, scenario.getSlotLayout().getSlotCount(), putAwayCost, greedyCost, greedyQueue.size());
+    }
+
+    private MetricsBus openMetrics(ReceivingScenario scenario) {
+        if (metricsFile == null) {
+            return null;
+        }
+        List<String> vehicleIds = new ArrayList<>();
+        for (Forklift forklift : scenario.getFleet()) {
+            vehicleIds.add(forklift.getId());
+        }
+        List<String> rackIds = new ArrayList<>();
+        for (int rack = 0; rack < scenario.getSlotLayout().getRackCount(); rack++) {
+            rackIds.add(scenario.getSlotLayout().getRack(rack).getName());
+        }
+        try {
+            return new MetricsBus(metricsInterval, vehicleIds, rackIds, MetricsSink.open(metricsFile));
+        } catch (IOException e) {
+            System.err.println("Error opening metrics file: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Plays a recorded run back in the 3D view exactly as it was simulated, without planning any routes.
+    public int replayEventLog(File file, double playbackSpeed) throws IOException {
+        List<SimulationEvent> events = EventLog.read(file);
+        if (jmeScene != null) {
+            new SimulationPlayback(jmeScene, null, events, playbackSpeed).start();
+        }
+        return events.size();
+    }
+
+    // Picks the order lines from the simulation racks they name with every strategy and routing policy; the depot is where
+    // pickers start and drop their totes.
+    public List<PickingReport> startPickingSimulation(Spatial depot, List<PickLine> lines, int pickers, double pickerSpeed, double pickTime, int batchSize) {
+        PickingSimulation simulation = preparePickingSimulation(depot, lines, pickers, pickerSpeed, pickTime, batchSize);
+        List<PickingReport> reports = new ArrayList<>();
+        for (PickingStrategy strategy : PickingStrategy.values()) {
+            for (RoutingPolicy routing : RoutingPolicy.values()) {
+                PickingReport report = simulation.run(strategy, routing);
+                System.out.println(String.format("Picking %s/%s: %d trips, %.1f picks/h, %.1f m per order, routed in %d ms", strategy, routing,
+                        report.getTrips(), report.getPicksPerHour(), report.getTravelPerOrder(), report.getRoutingTimeNanos() / 1_000_000));
+                reports.add(report);
+            }
+        }
+        return reports;
+    }
+
+    public PickingSimulation preparePickingSimulation(Spatial depot, List<PickLine> lines, int pickers, double pickerSpeed, double pickTime, int batchSize) {
+        // Rack names are the pick locations; with duplicate names the first rack wins.
+        Map<String, Spatial> racksByName = new HashMap<>();
+        for (Map.Entry<Spatial, Map<Parameter, String>> entry : undoManager.getObjectsParameters().entrySet()) {
+            if (isSimulationRack(entry.getValue())) {
+                racksByName.putIfAbsent(entry.getKey().getName(), entry.getKey());
+            }
+        }
+
+        // Only the racks the orders use become nodes of the distance matrix.
+        Set<String> used = new LinkedHashSet<>();
+        Set<String> unknown = new HashSet<>();
+        for (PickLine line : lines) {
+            if (racksByName.containsKey(line.getLocation())) {
+                used.add(line.getLocation());
+            } else {
+                unknown.add(line.getLocation());
             }
-            if (!assigned) {
-                System.out.println("No suitable rack found for pallet: " + pallet.getId());
+        }
+        if (!unknown.isEmpty()) {
+            System.out.println("Unknown pick locations skipped: " + unknown);
+        }
+        List<String> names = new ArrayList<>(used);
+        int[] cells = new int[names.size()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = navGrid.cellAt(racksByName.get(names.get(i)).getWorldTranslation());
+        }
+
+        long layoutStart = System.nanoTime();
+        PickingLayout layout = new PickingLayout(navGrid.getWalkable(NavGrid.clearanceCells(avoidanceDistance, PICKER_WIDTH)), names, cells,
+                navGrid.cellAt(depot.getWorldTranslation()));
+        PickingSimulation simulation = new PickingSimulation(layout, lines, pickers, pickerSpeed, pickTime, batchSize);
+        System.out.println("Picking layout: " + layout.getLocationCount() + " locations in " + layout.getAisleCount() + " aisles, distances in "
+                + (System.nanoTime() - layoutStart) / 1_000_000 + " ms; " + simulation.getOrderCount() + " orders, "
+                + simulation.getSkippedLines() + " lines skipped");
+        return simulation;
+    }
+
+    // Finds the simulation racks and plans the routes to them once; the pallets are matched to racks afterwards.
+    public ReceivingScenario prepareReceivingScenario(Spatial selectedArea, List<Forklift> fleet, DispatchPolicy dispatchPolicy) {
+        // Aisles are shared, so routes are planned for the widest truck in the fleet.
+        double fleetWidth = 0;
+        for (Forklift forklift : fleet) {
+            fleetWidth = Math.max(fleetWidth, forklift.getWidth());
+        }
+        System.out.println("Avoidance: " + avoidanceDistance + ", fleet: " + fleet.size() + " forklifts, width: " + fleetWidth);
+        pathFinder = jmeScene != null
+                ? new AStarPathFind(jmeScene, avoidanceDistance, fleetWidth, mode)
+                : new AStarPathFind(navGrid, avoidanceDistance, fleetWidth, mode);
+
+        Map<Spatial, Map<Parameter, String>> objectsParameters = undoManager.getObjectsParameters();
+        Map<Spatial, RackSettings> simulationRacks = new LinkedHashMap<>();
+        Map<Spatial, Double> unloadTimes = new HashMap<>();
+        for (Map.Entry<Spatial, Map<Parameter, String>> entry : objectsParameters.entrySet()) {
+            if (isSimulationRack(entry.getValue())) {
+                simulationRacks.put(entry.getKey(), extractRackSettings(entry.getValue()));
+                unloadTimes.put(entry.getKey(), readNumber(entry.getValue(), "Unload Time", DEFAULT_HANDLING_TIME));
             }
         }
 
-        if (!palletQueue.isEmpty()) {
-            processPalletQueue(palletQueue, forklift, selectedArea);
+        List<PathRequest> pathRequests = new ArrayList<>();
+        for (Spatial rack : simulationRacks.keySet()) {
+            pathRequests.add(new PathRequest(selectedArea, rack));
+        }
+        List<List<Vector3f>> paths = pathFinder.findPaths(pathRequests);
+        Map<Spatial, List<Vector3f>> pathsToRacks = new HashMap<>();
+        int index = 0;
+        for (Spatial rack : simulationRacks.keySet()) {
+            pathsToRacks.put(rack, paths.get(index++));
+        }
+
+        double loadTime = readNumber(objectsParameters.get(selectedArea), "Load Time", DEFAULT_HANDLING_TIME);
+        return new ReceivingScenario(simulationRacks, pathsToRacks, unloadTimes, loadTime, fleet, dispatchPolicy, putAwayPolicy, navGrid,
+                NavGrid.clearanceCells(avoidanceDistance, fleetWidth), reservationWindow);
+    }
+
+    private double readNumber(Map<Parameter, String> parameters, String name, double defaultValue) {
+        if (parameters == null) {
+            return defaultValue;
+        }
+        Parameter parameter = findParameterByName(parameters, name);
+        if (parameter == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(parameters.get(parameter));
+        } catch (NumberFormatException | NullPointerException e) {
+            System.out.println("Invalid '" + name + "' value, using " + defaultValue + ".");
+            return defaultValue;
         }
     }
 
@@ -116,8 +362,10 @@ public class SimulationManager {
         int shelves = (int) Math.round(Double.parseDouble(parameters.get(shelvesParam)));
         int perShelfCapacity = (int) Math.round(Double.parseDouble(parameters.get(perShelfCapacityParam)));
         int totalCapacity = (int) Math.round(Double.parseDouble(parameters.get(totalCapacityParam)));
+        // Optional: shelves hold one pallet each unless the rack says otherwise.
+        int positionsPerShelf = (int) Math.round(readNumber(parameters, "Rack Positions Per Shelf", 1));
 
-        return new RackSettings(height, width, depth, shelves, perShelfCapacity, totalCapacity);
+        return new RackSettings(height, width, depth, shelves, perShelfCapacity, totalCapacity, positionsPerShelf);
     }
 
     private Parameter findParameterByName(Map<Parameter, String> parameters, String name) {
@@ -128,117 +376,4 @@ public class SimulationManager {
         }
         return null;
     }
-
-    private boolean canFitPalletInRack(Pallet pallet, RackSettings rackSettings) {
-        if (pallet.getHeight() > rackSettings.getHeight()) {
-            System.out.println("Rack cannot fit pallet: Pallet height (" + pallet.getHeight() + ") exceeds rack height (" + rackSettings.getHeight() + ").");
-            return false;
-        }
-        if (pallet.getWidth() > rackSettings.getWidth()) {
-            System.out.println("Rack cannot fit pallet: Pallet width (" + pallet.getWidth() + ") exceeds rack width (" + rackSettings.getWidth() + ").");
-            return false;
-        }
-        if (pallet.getDepth() > rackSettings.getDepth()) {
-            System.out.println("Rack cannot fit pallet: Pallet depth (" + pallet.getDepth() + ") exceeds rack depth (" + rackSettings.getDepth() + ").");
-            return false;
-        }
-        if (pallet.getWeight() > rackSettings.getPerShelfCapacity()) {
-            System.out.println("Rack cannot fit pallet: Pallet weight (" + pallet.getWeight() + ") exceeds rack per-shelf capacity (" + rackSettings.getPerShelfCapacity() + ").");
-            return false;
-        }
-        return true;
-    }
-
-    private void processPalletQueue(List<PalletTask> palletQueue, Forklift forklift, Geometry startArea) {
-        jmeScene.enqueue(() -> {
-            if (forkliftModel == null) {
-                forkliftModel = jmeScene.getAssetManager().loadModel("Models/Misc/forkLiftTruck.j3o");
-                forkliftModel.setLocalScale(4f);
-                rootNode.attachChild(forkliftModel);
-            }
-
-            Vector3f startPosition = startArea.getWorldTranslation();
-            forkliftModel.setLocalTranslation(startPosition);
-
-            new Thread(() -> {
-                try {
-                    for (PalletTask task : palletQueue) {
-                        System.out.println("Moving pallet " + task.pallet.getId() + " to rack...");
-                        animateModelAlongPath(forkliftModel, task.pathToRack, forklift.getSpeed());
-
-                        Thread.sleep(500); // Unload pallet to rack time.
-                        System.out.println("Returning to start...");
-                        animateModelAlongPath(forkliftModel, task.pathBack, forklift.getSpeed());
-                    }
-
-                    jmeScene.enqueue(() -> {
-                        rootNode.detachChild(forkliftModel);
-                        forkliftModel = null;
-                        pathFinder.clearAllLines();
-                    });
-
-                } catch (InterruptedException e) {
-                    System.err.println("Animation interrupted: " + e.getMessage());
-                }
-            }).start();
-        });
-    }
-
-    private void animateModelAlongPath(Spatial model, List<Vector3f> path, double forkliftSpeed) {
-        if (path == null || path.isEmpty()) return;
-
-        try {
-            Quaternion currentRotation = new Quaternion();
-            float gridSpeed = (float) (forkliftSpeed * Grid.GRID_LENGTH);
-
-            for (int i = 1; i < path.size(); i++) {
-                Vector3f start = path.get(i - 1);
-                Vector3f end = path.get(i);
-                Vector3f direction = end.subtract(start).normalizeLocal();
-                Quaternion targetRotation = new Quaternion();
-                targetRotation.lookAt(direction, Vector3f.UNIT_Y);
-
-                float distance = start.distance(end);
-                float duration = distance / gridSpeed;
-                float elapsedTime = 0;
-                float frameTime = 0.016f;
-
-                while (elapsedTime < duration) {
-                    Thread.sleep((long) (frameTime * 1000));
-                    elapsedTime += frameTime;
-
-                    float t = elapsedTime / duration;
-                    Vector3f interpolatedPosition = start.interpolateLocal(end, t);
-                    Quaternion interpolatedRotation = new Quaternion();
-                    interpolatedRotation.slerp(currentRotation, targetRotation, t);
-
-                    jmeScene.enqueue(() -> {
-                        model.setLocalTranslation(interpolatedPosition);
-                        model.setLocalRotation(interpolatedRotation);
-                    });
-                }
-
-                jmeScene.enqueue(() -> {
-                    model.setLocalTranslation(end);
-                    model.setLocalRotation(targetRotation);
-                });
-
-                currentRotation.set(targetRotation);
-            }
-        } catch (InterruptedException e) {
-            System.err.println("Animation interrupted: " + e.getMessage());
-        }
-    }
-
-    private static class PalletTask {
-        Pallet pallet;
-        List<Vector3f> pathToRack;
-        List<Vector3f> pathBack;
-
-        public PalletTask(Pallet pallet, List<Vector3f> pathToRack, List<Vector3f> pathBack) {
-            this.pallet = pallet;
-            this.pathToRack = pathToRack;
-            this.pathBack = pathBack;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,295 @@
+package tech.simulations;
+
+import com.jme3.app.Application;
+import com.jme3.app.state.BaseAppState;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Spatial;
+import tech.WareSkladInit;
+import tech.simulations.events.EventType;
+import tech.simulations.events.SimulationEvent;
+import tech.simulations.pathfinding.DStarLite;
+import tech.simulations.pathfinding.WalkableMap;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+
+// Plays a simulated run on the render thread: trajectories are flattened into arrays up front and update() only interpolates,
+// so a frame allocates nothing however many trucks are moving.
+public class SimulationPlayback extends BaseAppState {
+    private static final String FORKLIFT_MODEL = "Models/Misc/forkLiftTruck.j3o";
+
+    private final WareSkladInit jmeScene;
+    private final AStarPathFind pathFinder;
+    private final double speedMultiplier;
+    private final List<VehicleTrack> tracks = new ArrayList<>();
+    private final double endTime;
+    private double simulationTime;
+    private WalkableMap recordedLayout;
+    private WalkableMap layout;
+    private int layoutVersion;
+
+    // Without a path finder (replays of recorded runs) routes are played as recorded and never repaired.
+    public SimulationPlayback(WareSkladInit jmeScene, AStarPathFind pathFinder, List<SimulationEvent> events, double speedMultiplier) {
+        this.jmeScene = jmeScene;
+        this.pathFinder = pathFinder;
+        this.speedMultiplier = speedMultiplier;
+
+        Map<String, List<SimulationEvent>> travelsByVehicle = new LinkedHashMap<>();
+        double lastEnd = 0;
+        for (SimulationEvent event : events) {
+            if (event.getType() == EventType.TRAVEL_START && event.getRoute() != null && !event.getRoute().isEmpty()) {
+                travelsByVehicle.computeIfAbsent(event.getVehicleId(), k -> new ArrayList<>()).add(event);
+            }
+            lastEnd = Math.max(lastEnd, event.getEndTime());
+        }
+        for (List<SimulationEvent> travels : travelsByVehicle.values()) {
+            tracks.add(new VehicleTrack(travels));
+        }
+        this.endTime = lastEnd;
+    }
+
+    public void start() {
+        jmeScene.enqueue(() -> jmeScene.getStateManager().attach(this));
+    }
+
+    @Override
+    protected void initialize(Application app) {
+        if (pathFinder != null) {
+            recordedLayout = pathFinder.getWalkable();
+            layout = recordedLayout;
+            layoutVersion = layout.getVersion();
+        }
+        for (VehicleTrack track : tracks) {
+            track.model = jmeScene.getAssetManager().loadModel(FORKLIFT_MODEL);
+            track.model.setLocalScale(4f);
+            jmeScene.getRootNode().attachChild(track.model);
+            track.update(0);
+        }
+    }
+
+    @Override
+    public void update(float tpf) {
+        simulationTime += tpf * speedMultiplier;
+        if (pathFinder != null) {
+            // Each truck repairs its own route once its replanner lags behind the new layout.
+            int version = pathFinder.getLayoutVersion();
+            if (version != layoutVersion) {
+                layout = pathFinder.getWalkable();
+                layoutVersion = version;
+            }
+        }
+        for (VehicleTrack track : tracks) {
+            track.update(simulationTime);
+        }
+        if (simulationTime > endTime) {
+            getStateManager().detach(this);
+        }
+    }
+
+    @Override
+    protected void cleanup(Application app) {
+        for (VehicleTrack track : tracks) {
+            if (track.model != null) {
+                track.model.removeFromParent();
+            }
+        }
+        if (pathFinder != null) {
+            pathFinder.clearAllLines();
+        }
+    }
+
+    @Override
+    protected void onEnable() {
+    }
+
+    @Override
+    protected void onDisable() {
+    }
+
+    private class VehicleTrack {
+        private final double[] startTimes;
+        private final double[] endTimes;
+        private final int[] firstPoint;
+        private float[] xs;
+        private float[] ys;
+        private float[] zs;
+        private float[] cumulative; // distance from the first point of the point's travel
+        private final Vector3f position = new Vector3f();
+        private final Vector3f destination = new Vector3f();
+        private final Vector3f direction = new Vector3f();
+        private final Quaternion rotation = new Quaternion();
+        private Spatial model;
+        // One D* Lite per travel once the layout changed, planned on the recorded layout off the render thread and then only repaired.
+        private ForkJoinTask<DStarLite> pendingReplanner;
+        private DStarLite replanner;
+        private boolean replannerRequested;
+        private int travel = -1;
+        private int segment;
+        private boolean settled;
+
+        VehicleTrack(List<SimulationEvent> travels) {
+            int travelCount = travels.size();
+            startTimes = new double[travelCount];
+            endTimes = new double[travelCount];
+            firstPoint = new int[travelCount + 1];
+            int points = 0;
+            for (int i = 0; i < travelCount; i++) {
+                firstPoint[i] = points;
+                points += travels.get(i).getRoute().size();
+            }
+            firstPoint[travelCount] = points;
+
+            xs = new float[points];
+            ys = new float[points];
+            zs = new float[points];
+            cumulative = new float[points];
+            for (int i = 0; i < travelCount; i++) {
+                SimulationEvent event = travels.get(i);
+                startTimes[i] = event.getTime();
+                endTimes[i] = event.getEndTime();
+                List<Vector3f> route = event.getRoute();
+                for (int j = 0; j < route.size(); j++) {
+                    int point = firstPoint[i] + j;
+                    Vector3f waypoint = route.get(j);
+                    xs[point] = waypoint.x;
+                    ys[point] = waypoint.y;
+                    zs[point] = waypoint.z;
+                    cumulative[point] = j == 0 ? 0 : cumulative[point - 1] + distance(point - 1, point);
+                }
+            }
+        }
+
+        void update(double time) {
+            int count = startTimes.length;
+            int previousTravel = travel;
+            while (travel + 1 < count && startTimes[travel + 1] <= time) {
+                travel++;
+            }
+            if (travel != previousTravel) {
+                segment = firstPoint[Math.max(travel, 0)];
+                settled = false;
+                pendingReplanner = null;
+                replanner = null;
+                replannerRequested = false;
+            }
+            if (settled) {
+                return;
+            }
+
+            if (travel < 0) {
+                // Waiting for the first trip: stand at its start.
+                place(firstPoint[0], firstPoint[0], 0);
+                settled = true;
+                return;
+            }
+
+            int first = firstPoint[travel];
+            int last = firstPoint[travel + 1] - 1;
+            double duration = endTimes[travel] - startTimes[travel];
+            double fraction = duration > 0 ? Math.min(1, (time - startTimes[travel]) / duration) : 1;
+            float distance = (float) (fraction * cumulative[last]);
+            while (segment < last - 1 && cumulative[segment + 1] < distance) {
+                segment++;
+            }
+            if (first == last) {
+                place(first, first, 0);
+            } else {
+                float length = cumulative[segment + 1] - cumulative[segment];
+                place(segment, segment + 1, length > 0 ? (distance - cumulative[segment]) / length : 1);
+            }
+            settled = fraction >= 1;
+            if (!settled) {
+                repair();
+            }
+        }
+
+        private void place(int from, int to, float t) {
+            position.set(xs[from] + (xs[to] - xs[from]) * t, ys[from] + (ys[to] - ys[from]) * t, zs[from] + (zs[to] - zs[from]) * t);
+            model.setLocalTranslation(position);
+            direction.set(xs[to] - xs[from], 0, zs[to] - zs[from]);
+            if (direction.lengthSquared() > 0) {
+                direction.normalizeLocal();
+                rotation.lookAt(direction, Vector3f.UNIT_Y);
+                model.setLocalRotation(rotation);
+            }
+        }
+
+        // Replaces the rest of the current trip with a route repaired by D* Lite for the new layout. Later trips were
+        // recorded on the old layout as well and are repaired as soon as they start. Nothing is planned while the layout
+        // is the recorded one, nor for travels that stay in one place (waiting legs).
+        private void repair() {
+            if (pathFinder == null || layoutVersion == recordedLayout.getVersion()) {
+                return;
+            }
+            int first = firstPoint[travel];
+            int last = firstPoint[travel + 1] - 1;
+            if (xs[first] == xs[last] && ys[first] == ys[last] && zs[first] == zs[last]) {
+                return;
+            }
+            if (!replannerRequested) {
+                replannerRequested = true;
+                List<Vector3f> route = Arrays.asList(new Vector3f(xs[first], ys[first], zs[first]), new Vector3f(xs[last], ys[last], zs[last]));
+                pendingReplanner = pathFinder.createReplannerAsync(route, recordedLayout);
+            }
+            if (pendingReplanner != null && pendingReplanner.isDone()) {
+                replanner = pendingReplanner.join();
+                pendingReplanner = null;
+            }
+            if (replanner == null || replanner.getMap() == layout) {
+                return;
+            }
+            destination.set(xs[last], ys[last], zs[last]);
+            List<Vector3f> repairedRoute = pathFinder.replan(replanner, position, destination);
+            if (repairedRoute == null || repairedRoute.size() < 2) {
+                return;
+            }
+            pathFinder.drawPath(repairedRoute);
+            splice(repairedRoute);
+        }
+
+        // The repaired route runs from now to the original arrival time, so the current trip is cut at the present moment.
+        private void splice(List<Vector3f> route) {
+            int first = firstPoint[travel];
+            int oldEnd = firstPoint[travel + 1];
+            int delta = route.size() - (oldEnd - first);
+            int total = xs.length + delta;
+            float[] newXs = new float[total];
+            float[] newYs = new float[total];
+            float[] newZs = new float[total];
+            float[] newCumulative = new float[total];
+            System.arraycopy(xs, 0, newXs, 0, first);
+            System.arraycopy(ys, 0, newYs, 0, first);
+            System.arraycopy(zs, 0, newZs, 0, first);
+            System.arraycopy(cumulative, 0, newCumulative, 0, first);
+            System.arraycopy(xs, oldEnd, newXs, oldEnd + delta, xs.length - oldEnd);
+            System.arraycopy(ys, oldEnd, newYs, oldEnd + delta, ys.length - oldEnd);
+            System.arraycopy(zs, oldEnd, newZs, oldEnd + delta, zs.length - oldEnd);
+            System.arraycopy(cumulative, oldEnd, newCumulative, oldEnd + delta, cumulative.length - oldEnd);
+            xs = newXs;
+            ys = newYs;
+            zs = newZs;
+            cumulative = newCumulative;
+            for (int j = 0; j < route.size(); j++) {
+                int point = first + j;
+                Vector3f waypoint = route.get(j);
+                xs[point] = waypoint.x;
+                ys[point] = waypoint.y;
+                zs[point] = waypoint.z;
+                cumulative[point] = j == 0 ? 0 : cumulative[point - 1] + distance(point - 1, point);
+            }
+            for (int i = travel + 1; i < firstPoint.length; i++) {
+                firstPoint[i] += delta;
+            }
+            startTimes[travel] = simulationTime;
+            segment = first;
+        }
+
+        private float distance(int from, int to) {
+            float dx = xs[to] - xs[from];
+            float dy = ys[to] - ys[from];
+            float dz = zs[to] - zs[from];
+            return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+    }
+}
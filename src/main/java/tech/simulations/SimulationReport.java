@@ -0,0 +1,169 @@
+package tech.simulations;
+
+import tech.simulations.pathfinding.PathFindingMode;
+import tech.simulations.storage.PutAwayPolicy;
+
+import java.util.Map;
+import java.util.ResourceBundle;
+
+public class SimulationReport {
+    private final PathFindingMode mode;
+    private final int pathQueries;
+    private final long expandedNodes;
+    private final long searchTimeNanos;
+    private final long cacheHits;
+    private final long cacheMisses;
+    private final int assignedPallets;
+    private final int unassignedPallets;
+    private final double simulatedSeconds;
+    private final double travelDistance;
+    private final double meanCycleSeconds;
+    private final DispatchPolicy dispatchPolicy;
+    private final Map<String, Double> utilisation;
+    private final double congestionWait;
+    private final PutAwayPolicy putAwayPolicy;
+    private final int rackSlots;
+    private final double putAwayCost;
+    private final double greedyPutAwayCost;
+    private final int greedyStoredPallets;
+
+    public SimulationReport(PathFindingMode mode, int pathQueries, long expandedNodes, long searchTimeNanos, long cacheHits, long cacheMisses,
+                            int assignedPallets, int unassignedPallets, double simulatedSeconds, double travelDistance, double meanCycleSeconds,
+                            DispatchPolicy dispatchPolicy, Map<String, Double> utilisation, double congestionWait, PutAwayPolicy putAwayPolicy,
+                            int rackSlots, double putAwayCost, double greedyPutAwayCost, int greedyStoredPallets) {
+        this.mode = mode;
+        this.pathQueries = pathQueries;
+        this.expandedNodes = expandedNodes;
+        this.searchTimeNanos = searchTimeNanos;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.assignedPallets = assignedPallets;
+        this.unassignedPallets = unassignedPallets;
+        this.simulatedSeconds = simulatedSeconds;
+        this.travelDistance = travelDistance;
+        this.meanCycleSeconds = meanCycleSeconds;
+        this.dispatchPolicy = dispatchPolicy;
+        this.utilisation = utilisation;
+        this.congestionWait = congestionWait;
+        this.putAwayPolicy = putAwayPolicy;
+        this.rackSlots = rackSlots;
+        this.putAwayCost = putAwayCost;
+        this.greedyPutAwayCost = greedyPutAwayCost;
+        this.greedyStoredPallets = greedyStoredPallets;
+    }
+
+    public PathFindingMode getMode() {
+        return mode;
+    }
+
+    public int getPathQueries() {
+        return pathQueries;
+    }
+
+    public long getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    public long getSearchTimeNanos() {
+        return searchTimeNanos;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public int getAssignedPallets() {
+        return assignedPallets;
+    }
+
+    public int getUnassignedPallets() {
+        return unassignedPallets;
+    }
+
+    public double getSimulatedSeconds() {
+        return simulatedSeconds;
+    }
+
+    public double getTravelDistance() {
+        return travelDistance;
+    }
+
+    public double getMeanCycleSeconds() {
+        return meanCycleSeconds;
+    }
+
+    public DispatchPolicy getDispatchPolicy() {
+        return dispatchPolicy;
+    }
+
+    public Map<String, Double> getUtilisation() {
+        return utilisation;
+    }
+
+    public double getMeanUtilisation() {
+        double total = 0;
+        for (double value : utilisation.values()) {
+            total += value;
+        }
+        return utilisation.isEmpty() ? 0 : total / utilisation.size();
+    }
+
+    public double getCongestionWait() {
+        return congestionWait;
+    }
+
+    public PutAwayPolicy getPutAwayPolicy() {
+        return putAwayPolicy;
+    }
+
+    public int getRackSlots() {
+        return rackSlots;
+    }
+
+    // Put-away cost (dock-to-rack distance plus lift, in metres) of the plan, and of closest-open-slot in arrival order for the same pallets.
+    public double getPutAwayCost() {
+        return putAwayCost;
+    }
+
+    public double getGreedyPutAwayCost() {
+        return greedyPutAwayCost;
+    }
+
+    public int getGreedyStoredPallets() {
+        return greedyStoredPallets;
+    }
+
+    public double getThroughputPerHour() {
+        return simulatedSeconds > 0 ? assignedPallets * 3600.0 / simulatedSeconds : 0;
+    }
+
+    public String format(ResourceBundle bundle) {
+        StringBuilder fleet = new StringBuilder();
+        for (Map.Entry<String, Double> entry : utilisation.entrySet()) {
+            fleet.append("\n  ").append(entry.getKey()).append(": ").append(String.format("%.1f", entry.getValue() * 100)).append("%");
+        }
+        return bundle.getString("pathFindingMode") + ": " + bundle.getString(mode.getBundleKey()) + "\n"
+                + bundle.getString("pathQueries") + " " + pathQueries + "\n"
+                + bundle.getString("nodesExpanded") + " " + expandedNodes + "\n"
+                + bundle.getString("searchTime") + " " + String.format("%.2f", searchTimeNanos / 1_000_000.0) + " ms\n"
+                + bundle.getString("pathCache") + " " + cacheHits + " / " + cacheMisses + "\n"
+                + bundle.getString("assignedPallets") + " " + assignedPallets + "\n"
+                + bundle.getString("unassignedPallets") + " " + unassignedPallets + "\n"
+                + bundle.getString("simulatedTime") + " " + String.format("%.1f", simulatedSeconds) + " s\n"
+                + bundle.getString("travelDistance") + " " + String.format("%.1f", travelDistance) + " m\n"
+                + bundle.getString("meanCycleTime") + " " + String.format("%.1f", meanCycleSeconds) + " s\n"
+                + bundle.getString("throughput") + " " + String.format("%.1f", getThroughputPerHour()) + " " + bundle.getString("palletsPerHour") + "\n"
+                + bundle.getString("congestionWait") + " " + String.format("%.1f", congestionWait) + " s\n"
+                + bundle.getString("dispatchPolicy") + ": " + bundle.getString(dispatchPolicy.getBundleKey()) + "\n"
+                + bundle.getString("putAwayPolicy") + ": " + bundle.getString(putAwayPolicy.getBundleKey()) + "\n"
+                + bundle.getString("rackSlots") + " " + assignedPallets + " / " + rackSlots + "\n"
+                + bundle.getString("putAwayCost") + " " + String.format("%.1f", putAwayCost) + " m ("
+                + bundle.getString("greedyPutAway") + " " + String.format("%.1f", greedyPutAwayCost) + " m, "
+                + greedyStoredPallets + " " + bundle.getString("palletsStored") + ")\n"
+                + bundle.getString("forkliftUtilisation") + fleet;
+    }
+}
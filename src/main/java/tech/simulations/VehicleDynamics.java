@@ -0,0 +1,148 @@
+package tech.simulations;
+
+import com.jme3.math.Vector3f;
+import ui.Grid;
+
+import java.util.List;
+
+// Travel and mast times of a truck, worked out in closed form from the route geometry. The truck starts and stops at rest,
+// slows down for corners depending on how sharp they are, and otherwise accelerates up to its top speed and brakes in time:
+// every straight piece of the route is a trapezoidal (or, when too short, triangular) speed profile.
+public class VehicleDynamics {
+    public static final VehicleDynamics DEFAULT = new VehicleDynamics(0.5, 0.8, 0.8, 0.8, 0.3, 0.5);
+
+    private static final double STRAIGHT_ANGLE = 1e-3; // radians of heading change still driven at full speed
+
+    private final double acceleration; // m/s²
+    private final double deceleration; // m/s²
+    private final double cornerSpeed; // m/s through a right-angle turn
+    private final double loadedSpeedFactor; // share of the top speed left with a pallet on the forks
+    private final double liftSpeed; // m/s raising a pallet
+    private final double lowerSpeed; // m/s lowering the empty forks
+
+    public VehicleDynamics(double acceleration, double deceleration, double cornerSpeed, double loadedSpeedFactor, double liftSpeed,
+                           double lowerSpeed) {
+        this.acceleration = acceleration;
+        this.deceleration = deceleration;
+        this.cornerSpeed = cornerSpeed;
+        this.loadedSpeedFactor = loadedSpeedFactor;
+        this.liftSpeed = liftSpeed;
+        this.lowerSpeed = lowerSpeed;
+    }
+
+    public VehicleDynamics withAcceleration(double acceleration) {
+        return new VehicleDynamics(acceleration, deceleration, cornerSpeed, loadedSpeedFactor, liftSpeed, lowerSpeed);
+    }
+
+    public VehicleDynamics withLiftSpeed(double liftSpeed) {
+        return new VehicleDynamics(acceleration, deceleration, cornerSpeed, loadedSpeedFactor, liftSpeed, lowerSpeed);
+    }
+
+    public double topSpeed(double speed, boolean loaded) {
+        return loaded ? speed * loadedSpeedFactor : speed;
+    }
+
+    // Seconds from standing at the first waypoint to standing at the last one.
+    public double travelTime(List<Vector3f> route, double topSpeed) {
+        if (topSpeed <= 0 || route.size() < 2) {
+            return 0;
+        }
+
+        // Straight pieces of the route; waypoints in a straight line are merged, repeated ones dropped.
+        int count = route.size();
+        double[] lengths = new double[count];
+        double[] limits = new double[count + 1]; // speed allowed where piece i starts
+        int pieces = 0;
+        Vector3f previousDirection = null;
+        for (int i = 1; i < count; i++) {
+            Vector3f step = route.get(i).subtract(route.get(i - 1));
+            double length = step.length() / Grid.GRID_SPACING;
+            if (length <= 0) continue;
+
+            Vector3f direction = step.normalizeLocal();
+            double turn = previousDirection != null ? Math.acos(Math.max(-1, Math.min(1, previousDirection.dot(direction)))) : 0;
+            if (previousDirection != null && turn <= STRAIGHT_ANGLE) {
+                lengths[pieces - 1] += length;
+            } else {
+                limits[pieces] = pieces == 0 ? 0 : cornerLimit(turn, topSpeed);
+                lengths[pieces++] = length;
+            }
+            previousDirection = direction;
+        }
+        if (pieces == 0) {
+            return 0;
+        }
+        limits[pieces] = 0;
+
+        // Forward pass: no corner faster than the truck can accelerate to; backward pass: none faster than it can brake from.
+        for (int i = 1; i <= pieces; i++) {
+            limits[i] = Math.min(limits[i], Math.sqrt(limits[i - 1] * limits[i - 1] + 2 * acceleration * lengths[i - 1]));
+        }
+        for (int i = pieces - 1; i >= 0; i--) {
+            limits[i] = Math.min(limits[i], Math.sqrt(limits[i + 1] * limits[i + 1] + 2 * deceleration * lengths[i]));
+        }
+
+        double time = 0;
+        for (int i = 0; i < pieces; i++) {
+            time += pieceTime(lengths[i], limits[i], limits[i + 1], topSpeed);
+        }
+        return time;
+    }
+
+    // Full speed going straight, the corner speed at a right angle and down to a standstill when turning back.
+    private double cornerLimit(double turn, double topSpeed) {
+        double corner = Math.min(cornerSpeed, topSpeed);
+        double share = turn / (Math.PI / 2);
+        if (share <= 1) {
+            return topSpeed - (topSpeed - corner) * share;
+        }
+        return corner * Math.max(0, 2 - share);
+    }
+
+    // Entry and exit speeds are reachable from each other within the length, as the passes above make sure.
+    private double pieceTime(double length, double entry, double exit, double topSpeed) {
+        if (acceleration <= 0 || deceleration <= 0) {
+            return length / topSpeed;
+        }
+        double peak = Math.sqrt((2 * acceleration * deceleration * length + deceleration * entry * entry + acceleration * exit * exit)
+                / (acceleration + deceleration));
+        if (peak <= topSpeed) {
+            return (peak - entry) / acceleration + (peak - exit) / deceleration;
+        }
+        double accelerating = (topSpeed * topSpeed - entry * entry) / (2 * acceleration);
+        double braking = (topSpeed * topSpeed - exit * exit) / (2 * deceleration);
+        return (topSpeed - entry) / acceleration + (topSpeed - exit) / deceleration + (length - accelerating - braking) / topSpeed;
+    }
+
+    // Raising a pallet to a shelf and lowering the empty forks again.
+    public double liftTime(double height) {
+        if (height <= 0) {
+            return 0;
+        }
+        return (liftSpeed > 0 ? height / liftSpeed : 0) + (lowerSpeed > 0 ? height / lowerSpeed : 0);
+    }
+
+    public double getAcceleration() {
+        return acceleration;
+    }
+
+    public double getDeceleration() {
+        return deceleration;
+    }
+
+    public double getCornerSpeed() {
+        return cornerSpeed;
+    }
+
+    public double getLoadedSpeedFactor() {
+        return loadedSpeedFactor;
+    }
+
+    public double getLiftSpeed() {
+        return liftSpeed;
+    }
+
+    public double getLowerSpeed() {
+        return lowerSpeed;
+    }
+}
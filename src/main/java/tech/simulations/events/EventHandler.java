@@ -0,0 +1,5 @@
+package tech.simulations.events;
+
+public interface EventHandler {
+    void handle(SimulationEvent event, EventKernel kernel);
+}
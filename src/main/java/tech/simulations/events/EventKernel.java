@@ -0,0 +1,62 @@
+package tech.simulations.events;
+
+import com.jme3.math.Vector3f;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public class EventKernel {
+    private final PriorityQueue<SimulationEvent> queue = new PriorityQueue<>();
+    private final List<SimulationEvent> eventLog = new ArrayList<>();
+    private final boolean recording;
+    private double clock;
+    private long nextSequence;
+    private long handledEvents;
+
+    public EventKernel() {
+        this(true);
+    }
+
+    // Without recording, handled events are dropped, so long runs only hold the pending ones.
+    public EventKernel(boolean recording) {
+        this.recording = recording;
+    }
+
+    public SimulationEvent schedule(double delay, EventType type, String vehicleId, String palletId) {
+        return schedule(delay, type, vehicleId, palletId, null, 0);
+    }
+
+    public SimulationEvent schedule(double delay, EventType type, String vehicleId, String palletId, List<Vector3f> route, double duration) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Cannot schedule an event in the past: " + delay);
+        }
+        SimulationEvent event = new SimulationEvent(clock + delay, nextSequence++, type, vehicleId, palletId, route, duration);
+        queue.add(event);
+        return event;
+    }
+
+    public void run(EventHandler handler) {
+        while (!queue.isEmpty()) {
+            SimulationEvent event = queue.poll();
+            clock = event.getTime();
+            handledEvents++;
+            if (recording) {
+                eventLog.add(event);
+            }
+            handler.handle(event, this);
+        }
+    }
+
+    public double getClock() {
+        return clock;
+    }
+
+    public long getHandledEvents() {
+        return handledEvents;
+    }
+
+    public List<SimulationEvent> getEventLog() {
+        return eventLog;
+    }
+}
@@ -0,0 +1,128 @@
+package tech.simulations.events;
+
+import com.jme3.math.Vector3f;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Compact binary record of a simulation run: vehicle and pallet ids and routes are stored once and referenced by index.
+// Layout: magic, version, string table, route table, events, CRC32 of everything before it.
+public class EventLog {
+    private static final int MAGIC = 0x5753454C; // "WSEL"
+    private static final short VERSION = 1;
+    private static final int NONE = -1;
+
+    public static long write(File file, List<SimulationEvent> events) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        Map<List<Vector3f>, Integer> routes = new IdentityHashMap<>();
+        List<List<Vector3f>> routeTable = new ArrayList<>();
+        for (SimulationEvent event : events) {
+            index(strings, event.getVehicleId());
+            index(strings, event.getPalletId());
+            if (event.getRoute() != null && !routes.containsKey(event.getRoute())) {
+                routes.put(event.getRoute(), routeTable.size());
+                routeTable.add(event.getRoute());
+            }
+        }
+
+        CRC32 checksum = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))), checksum))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+
+            out.writeInt(strings.size());
+            for (String value : strings.keySet()) {
+                out.writeUTF(value);
+            }
+
+            out.writeInt(routeTable.size());
+            for (List<Vector3f> route : routeTable) {
+                out.writeInt(route.size());
+                for (Vector3f point : route) {
+                    out.writeFloat(point.x);
+                    out.writeFloat(point.y);
+                    out.writeFloat(point.z);
+                }
+            }
+
+            out.writeInt(events.size());
+            for (SimulationEvent event : events) {
+                out.writeDouble(event.getTime());
+                out.writeByte(event.getType().ordinal());
+                out.writeInt(event.getVehicleId() != null ? strings.get(event.getVehicleId()) : NONE);
+                out.writeInt(event.getPalletId() != null ? strings.get(event.getPalletId()) : NONE);
+                out.writeInt(event.getRoute() != null ? routes.get(event.getRoute()) : NONE);
+                out.writeDouble(event.getDuration());
+            }
+            out.flush();
+            long value = checksum.getValue();
+            out.writeLong(value);
+            return value;
+        }
+    }
+
+    public static List<SimulationEvent> read(File file) throws IOException {
+        CRC32 checksum = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))), checksum))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a simulation event log: " + file.getName());
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported event log version " + version + " in " + file.getName());
+            }
+
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readUTF();
+            }
+
+            List<List<Vector3f>> routes = new ArrayList<>();
+            int routeCount = in.readInt();
+            for (int i = 0; i < routeCount; i++) {
+                int points = in.readInt();
+                List<Vector3f> route = new ArrayList<>(points);
+                for (int j = 0; j < points; j++) {
+                    route.add(new Vector3f(in.readFloat(), in.readFloat(), in.readFloat()));
+                }
+                routes.add(route);
+            }
+
+            EventType[] types = EventType.values();
+            int eventCount = in.readInt();
+            List<SimulationEvent> events = new ArrayList<>(eventCount);
+            for (int i = 0; i < eventCount; i++) {
+                double time = in.readDouble();
+                EventType type = types[in.readUnsignedByte()];
+                int vehicle = in.readInt();
+                int pallet = in.readInt();
+                int route = in.readInt();
+                double duration = in.readDouble();
+                // Events are stored in processing order, so the position is the sequence number.
+                events.add(new SimulationEvent(time, i, type, vehicle != NONE ? strings[vehicle] : null, pallet != NONE ? strings[pallet] : null,
+                        route != NONE ? routes.get(route) : null, duration));
+            }
+
+            long expected = checksum.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Event log is corrupted: " + file.getName());
+            }
+            return events;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Event log is corrupted: " + file.getName(), e);
+        }
+    }
+
+    private static void index(Map<String, Integer> strings, String value) {
+        if (value != null) {
+            strings.putIfAbsent(value, strings.size());
+        }
+    }
+}
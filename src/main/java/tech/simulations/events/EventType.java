@@ -0,0 +1,10 @@
+package tech.simulations.events;
+
+public enum EventType {
+    LOAD,
+    DEPART,
+    TRAVEL_START,
+    ARRIVE,
+    UNLOAD,
+    IDLE
+}
@@ -0,0 +1,68 @@
+package tech.simulations.events;
+
+import com.jme3.math.Vector3f;
+
+import java.util.List;
+
+public class SimulationEvent implements Comparable<SimulationEvent> {
+    private final double time;
+    private final long sequence;
+    private final EventType type;
+    private final String vehicleId;
+    private final String palletId;
+    private final List<Vector3f> route;
+    private final double duration;
+
+    public SimulationEvent(double time, long sequence, EventType type, String vehicleId, String palletId, List<Vector3f> route, double duration) {
+        this.time = time;
+        this.sequence = sequence;
+        this.type = type;
+        this.vehicleId = vehicleId;
+        this.palletId = palletId;
+        this.route = route;
+        this.duration = duration;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public EventType getType() {
+        return type;
+    }
+
+    public String getVehicleId() {
+        return vehicleId;
+    }
+
+    public String getPalletId() {
+        return palletId;
+    }
+
+    public List<Vector3f> getRoute() {
+        return route;
+    }
+
+    public double getDuration() {
+        return duration;
+    }
+
+    public double getEndTime() {
+        return time + duration;
+    }
+
+    @Override
+    public int compareTo(SimulationEvent other) {
+        int byTime = Double.compare(time, other.time);
+        return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.2f %s %s %s", time, type, vehicleId, palletId != null ? palletId : "");
+    }
+}
@@ -0,0 +1,39 @@
+package tech.simulations.metrics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+public class CsvMetricsSink implements MetricsSink {
+    private static final String HEADER = "interval_start_s,interval_end_s,scope,id,utilisation,idle_time_s,travel_distance_m,"
+            + "pallets_stored,pallets_per_h,queue_length_mean,queue_length_max";
+
+    private final Writer writer;
+
+    public CsvMetricsSink(File file) throws IOException {
+        this.writer = new BufferedWriter(new FileWriter(file));
+        writer.write(HEADER);
+        writer.write('\n');
+    }
+
+    @Override
+    public void write(MetricsRow row) throws IOException {
+        writer.write(String.format(Locale.ROOT, "%.1f,%.1f,%s,%s,%s,%s,%s,%d,%.2f,%s,%s\n", row.getIntervalStart(), row.getIntervalEnd(),
+                row.getScope().name().toLowerCase(Locale.ROOT), row.getId(), value(row.getUtilisation(), "%.3f"), value(row.getIdleTime(), "%.1f"),
+                value(row.getTravelDistance(), "%.1f"), row.getPalletsStored(), row.getPalletsPerHour(), value(row.getQueueLength(), "%.2f"),
+                value(row.getMaxQueueLength(), "%.0f")));
+    }
+
+    // Values that do not apply to the row's scope are left empty.
+    private static String value(double value, String format) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, format, value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,48 @@
+package tech.simulations.metrics;
+
+import com.google.gson.JsonObject;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+// One JSON object per line; fields that do not apply to the row's scope are left out.
+public class JsonLinesMetricsSink implements MetricsSink {
+    private final Writer writer;
+
+    public JsonLinesMetricsSink(File file) throws IOException {
+        this.writer = new BufferedWriter(new FileWriter(file));
+    }
+
+    @Override
+    public void write(MetricsRow row) throws IOException {
+        JsonObject json = new JsonObject();
+        json.addProperty("intervalStart", row.getIntervalStart());
+        json.addProperty("intervalEnd", row.getIntervalEnd());
+        json.addProperty("scope", row.getScope().name().toLowerCase(Locale.ROOT));
+        json.addProperty("id", row.getId());
+        put(json, "utilisation", row.getUtilisation());
+        put(json, "idleTime", row.getIdleTime());
+        put(json, "travelDistance", row.getTravelDistance());
+        json.addProperty("palletsStored", row.getPalletsStored());
+        json.addProperty("palletsPerHour", row.getPalletsPerHour());
+        put(json, "queueLength", row.getQueueLength());
+        put(json, "maxQueueLength", row.getMaxQueueLength());
+        writer.write(json.toString());
+        writer.write('\n');
+    }
+
+    private static void put(JsonObject json, String key, double value) {
+        if (!Double.isNaN(value)) {
+            json.addProperty(key, value);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
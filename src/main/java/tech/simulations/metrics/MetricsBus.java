@@ -0,0 +1,175 @@
+package tech.simulations.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Collects what a simulation run publishes into fixed-length intervals and hands every finished interval to the sink, one
+// row per vehicle, per rack and for the site. Only the open interval and the busy spans reaching into it are kept, so memory
+// does not grow with the simulated horizon. Publish in time order, as the event kernel does.
+public class MetricsBus {
+    private final double interval;
+    private final MetricsSink sink;
+    private final String[] vehicleIds;
+    private final String[] rackIds;
+    private final Map<String, Integer> rackIndex = new HashMap<>();
+    private final List<ArrayDeque<double[]>> busySpans = new ArrayList<>(); // per vehicle: start, end, distance
+    private final int[] vehicleStored;
+    private final int[] rackStored;
+    private final Gauge dockQueue = new Gauge();
+    private final Gauge[] rackQueues;
+    private double intervalStart;
+
+    // Racks sharing a name are reported together.
+    public MetricsBus(double interval, List<String> vehicleIds, List<String> rackIds, MetricsSink sink) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Metrics interval must be positive: " + interval);
+        }
+        this.interval = interval;
+        this.sink = sink;
+        this.vehicleIds = vehicleIds.toArray(new String[0]);
+        List<String> distinctRacks = new ArrayList<>();
+        for (String rackId : rackIds) {
+            if (rackIndex.putIfAbsent(rackId, distinctRacks.size()) == null) {
+                distinctRacks.add(rackId);
+            }
+        }
+        this.rackIds = distinctRacks.toArray(new String[0]);
+        for (int i = 0; i < this.vehicleIds.length; i++) {
+            busySpans.add(new ArrayDeque<>());
+        }
+        this.vehicleStored = new int[this.vehicleIds.length];
+        this.rackStored = new int[this.rackIds.length];
+        this.rackQueues = new Gauge[this.rackIds.length];
+        for (int i = 0; i < rackQueues.length; i++) {
+            rackQueues[i] = new Gauge();
+        }
+    }
+
+    // Loading, driving or unloading from now until the given time; distance in metres is spread evenly over the span.
+    public void busy(int vehicle, double time, double until, double distance) {
+        advance(time);
+        if (until > time || distance > 0) {
+            busySpans.get(vehicle).add(new double[]{time, Math.max(time, until), distance});
+        }
+    }
+
+    public void stored(int vehicle, String rack, double time) {
+        advance(time);
+        vehicleStored[vehicle]++;
+        Integer index = rackIndex.get(rack);
+        if (index != null) {
+            rackStored[index]++;
+        }
+    }
+
+    public void dockQueue(double time, int pallets) {
+        advance(time);
+        dockQueue.set(time, pallets);
+    }
+
+    // A truck takes on (+1) or finishes (-1) a pallet for the rack.
+    public void rackQueue(String rack, double time, int change) {
+        advance(time);
+        Integer index = rackIndex.get(rack);
+        if (index != null) {
+            rackQueues[index].set(time, rackQueues[index].value + change);
+        }
+    }
+
+    // Writes the intervals up to the end of the run, the last one cut short, and closes the sink.
+    public void close(double endTime) throws IOException {
+        try {
+            advance(endTime);
+            if (endTime > intervalStart) {
+                flush(endTime);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            sink.close();
+        }
+    }
+
+    private void advance(double time) {
+        while (time >= intervalStart + interval) {
+            flush(intervalStart + interval);
+        }
+    }
+
+    private void flush(double end) {
+        double start = intervalStart;
+        double length = end - start;
+        double fleetBusy = 0;
+        double fleetDistance = 0;
+        int fleetStored = 0;
+        try {
+            for (int vehicle = 0; vehicle < vehicleIds.length; vehicle++) {
+                double busy = 0;
+                double distance = 0;
+                ArrayDeque<double[]> spans = busySpans.get(vehicle);
+                for (double[] span : spans) {
+                    double overlap = Math.min(span[1], end) - Math.max(span[0], start);
+                    if (span[1] > span[0]) {
+                        busy += Math.max(0, overlap);
+                        distance += span[2] * Math.max(0, overlap) / (span[1] - span[0]);
+                    } else if (span[0] >= start && span[0] < end) {
+                        distance += span[2];
+                    }
+                }
+                while (!spans.isEmpty() && spans.peek()[1] <= end) {
+                    spans.poll();
+                }
+                fleetBusy += busy;
+                fleetDistance += distance;
+                fleetStored += vehicleStored[vehicle];
+                sink.write(new MetricsRow(start, end, MetricsRow.Scope.VEHICLE, vehicleIds[vehicle], busy / length, length - busy, distance,
+                        vehicleStored[vehicle], Double.NaN, Double.NaN));
+                vehicleStored[vehicle] = 0;
+            }
+            for (int rack = 0; rack < rackIds.length; rack++) {
+                Gauge queue = rackQueues[rack];
+                sink.write(new MetricsRow(start, end, MetricsRow.Scope.RACK, rackIds[rack], Double.NaN, Double.NaN, Double.NaN,
+                        rackStored[rack], queue.mean(end, length), queue.max));
+                queue.restart(end);
+                rackStored[rack] = 0;
+            }
+            double fleetUtilisation = vehicleIds.length > 0 ? fleetBusy / (length * vehicleIds.length) : 0;
+            sink.write(new MetricsRow(start, end, MetricsRow.Scope.SITE, "site", fleetUtilisation, length * vehicleIds.length - fleetBusy,
+                    fleetDistance, fleetStored, dockQueue.mean(end, length), dockQueue.max));
+            dockQueue.restart(end);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        intervalStart = end;
+    }
+
+    // A level that changes at points in time, averaged over the interval.
+    private static class Gauge {
+        private double value;
+        private double changedAt;
+        private double area;
+        private double max;
+
+        void set(double time, double newValue) {
+            area += value * (time - changedAt);
+            changedAt = time;
+            value = newValue;
+            max = Math.max(max, newValue);
+        }
+
+        double mean(double end, double length) {
+            return (area + value * (end - changedAt)) / length;
+        }
+
+        void restart(double start) {
+            area = 0;
+            changedAt = start;
+            max = value;
+        }
+    }
+}
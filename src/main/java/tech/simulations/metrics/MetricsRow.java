@@ -0,0 +1,82 @@
+package tech.simulations.metrics;
+
+// One interval of one vehicle, rack or the whole site. Values that do not apply to the scope are NaN.
+public class MetricsRow {
+    public enum Scope {
+        SITE,
+        VEHICLE,
+        RACK
+    }
+
+    private final double intervalStart;
+    private final double intervalEnd;
+    private final Scope scope;
+    private final String id;
+    private final double utilisation;
+    private final double idleTime;
+    private final double travelDistance;
+    private final int palletsStored;
+    private final double queueLength;
+    private final double maxQueueLength;
+
+    public MetricsRow(double intervalStart, double intervalEnd, Scope scope, String id, double utilisation, double idleTime, double travelDistance,
+                      int palletsStored, double queueLength, double maxQueueLength) {
+        this.intervalStart = intervalStart;
+        this.intervalEnd = intervalEnd;
+        this.scope = scope;
+        this.id = id;
+        this.utilisation = utilisation;
+        this.idleTime = idleTime;
+        this.travelDistance = travelDistance;
+        this.palletsStored = palletsStored;
+        this.queueLength = queueLength;
+        this.maxQueueLength = maxQueueLength;
+    }
+
+    public double getIntervalStart() {
+        return intervalStart;
+    }
+
+    public double getIntervalEnd() {
+        return intervalEnd;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    // Share of the interval spent loading, driving or unloading; the site value is the fleet mean.
+    public double getUtilisation() {
+        return utilisation;
+    }
+
+    public double getIdleTime() {
+        return idleTime;
+    }
+
+    public double getTravelDistance() {
+        return travelDistance;
+    }
+
+    public int getPalletsStored() {
+        return palletsStored;
+    }
+
+    public double getPalletsPerHour() {
+        double length = intervalEnd - intervalStart;
+        return length > 0 ? palletsStored * 3600.0 / length : 0;
+    }
+
+    // Time-weighted mean over the interval: pallets waiting at the dock for the site, trucks bound for a rack for racks.
+    public double getQueueLength() {
+        return queueLength;
+    }
+
+    public double getMaxQueueLength() {
+        return maxQueueLength;
+    }
+}
@@ -0,0 +1,17 @@
+package tech.simulations.metrics;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+// Receives rows as soon as their interval is over, so nothing of the run has to be kept in memory.
+public interface MetricsSink extends Closeable {
+    void write(MetricsRow row) throws IOException;
+
+    // JSON Lines for .jsonl or .json files, CSV otherwise.
+    static MetricsSink open(File file) throws IOException {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jsonl") || name.endsWith(".json") ? new JsonLinesMetricsSink(file) : new CsvMetricsSink(file);
+    }
+}
@@ -0,0 +1,139 @@
+package tech.simulations.pathfinding;
+
+import java.util.Arrays;
+
+public class CellHeap {
+    private int[] heap = new int[0];
+    private int[] positions = new int[0];
+    private long[] keys = new long[0];
+    private int size;
+
+    public void ensureCapacity(int cellCount) {
+        if (positions.length < cellCount) {
+            heap = new int[cellCount];
+            keys = new long[cellCount];
+            positions = new int[cellCount];
+            Arrays.fill(positions, -1);
+            size = 0;
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int cell) {
+        return positions[cell] >= 0;
+    }
+
+    public long peekKey() {
+        return keys[heap[0]];
+    }
+
+    public int peek() {
+        return heap[0];
+    }
+
+    public long getKey(int cell) {
+        return keys[cell];
+    }
+
+    public void insertOrUpdate(int cell, long key) {
+        int position = positions[cell];
+        if (position < 0) {
+            keys[cell] = key;
+            heap[size] = cell;
+            positions[cell] = size;
+            siftUp(size++);
+        } else {
+            long oldKey = keys[cell];
+            keys[cell] = key;
+            if (key < oldKey) {
+                siftUp(position);
+            } else if (key > oldKey) {
+                siftDown(position);
+            }
+        }
+    }
+
+    public int pop() {
+        int top = heap[0];
+        removeAt(0);
+        return top;
+    }
+
+    public void remove(int cell) {
+        int position = positions[cell];
+        if (position >= 0) {
+            removeAt(position);
+        }
+    }
+
+    private void removeAt(int position) {
+        int removed = heap[position];
+        positions[removed] = -1;
+        size--;
+        if (position == size) {
+            return;
+        }
+        int last = heap[size];
+        heap[position] = last;
+        positions[last] = position;
+        if (position > 0 && keys[last] < keys[heap[(position - 1) >>> 1]]) {
+            siftUp(position);
+        } else {
+            siftDown(position);
+        }
+    }
+
+    private void siftUp(int position) {
+        int cell = heap[position];
+        long key = keys[cell];
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            int parent = heap[parentPosition];
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[position] = parent;
+            positions[parent] = position;
+            position = parentPosition;
+        }
+        heap[position] = cell;
+        positions[cell] = position;
+    }
+
+    private void siftDown(int position) {
+        int cell = heap[position];
+        long key = keys[cell];
+        int half = size >>> 1;
+        while (position < half) {
+            int childPosition = 2 * position + 1;
+            int child = heap[childPosition];
+            int rightPosition = childPosition + 1;
+            if (rightPosition < size && keys[heap[rightPosition]] < keys[child]) {
+                childPosition = rightPosition;
+                child = heap[childPosition];
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            heap[position] = child;
+            positions[child] = position;
+            position = childPosition;
+        }
+        heap[position] = cell;
+        positions[cell] = position;
+    }
+}
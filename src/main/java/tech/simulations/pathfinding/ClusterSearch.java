@@ -0,0 +1,107 @@
+package tech.simulations.pathfinding;
+
+import java.util.Arrays;
+
+// Dijkstra restricted to one cluster of the hierarchical graph. Buffers are sized for a single cluster, so every thread
+// that builds or queries the graph can cheaply own one.
+final class ClusterSearch {
+
+    private final int clusterSize;
+    private final int[] dist;
+    private final int[] parent;
+    private final CellHeap open = new CellHeap();
+    private int columns;
+    private int minX, minZ, width, height;
+    private int expandedNodes;
+
+    ClusterSearch(int clusterSize) {
+        this.clusterSize = clusterSize;
+        this.dist = new int[clusterSize * clusterSize];
+        this.parent = new int[clusterSize * clusterSize];
+        open.ensureCapacity(clusterSize * clusterSize);
+    }
+
+    void run(WalkableMap map, int source, int cluster, int clustersX) {
+        columns = map.getColumns();
+        minX = (cluster % clustersX) * clusterSize;
+        minZ = (cluster / clustersX) * clusterSize;
+        width = Math.min(clusterSize, columns - minX);
+        height = Math.min(clusterSize, map.getRows() - minZ);
+
+        Arrays.fill(dist, -1);
+        open.clear();
+
+        int sourceLocal = toLocal(source);
+        dist[sourceLocal] = 0;
+        parent[sourceLocal] = -1;
+        open.insertOrUpdate(sourceLocal, 0);
+
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            expandedNodes++;
+            int x = current % width;
+            int z = current / width;
+            int currentDist = dist[current];
+
+            for (int dir = 0; dir < 8; dir++) {
+                int dx = GridAStar.DX[dir];
+                int dz = GridAStar.DZ[dir];
+                int nx = x + dx;
+                int nz = z + dz;
+                if (nx < 0 || nz < 0 || nx >= width || nz >= height) continue;
+                if (!map.isWalkable(minX + nx, minZ + nz)) continue;
+
+                int stepCost = GridAStar.STRAIGHT_COST;
+                if (dx != 0 && dz != 0) {
+                    if (!map.isWalkable(minX + x + dx, minZ + z) || !map.isWalkable(minX + x, minZ + z + dz)) continue;
+                    stepCost = GridAStar.DIAGONAL_COST;
+                }
+
+                int neighbor = nz * width + nx;
+                int distance = currentDist + stepCost;
+                if (dist[neighbor] >= 0 && distance >= dist[neighbor]) continue;
+
+                dist[neighbor] = distance;
+                parent[neighbor] = current;
+                open.insertOrUpdate(neighbor, distance);
+            }
+        }
+    }
+
+    // -1 if the cell lies outside the searched cluster or was not reached.
+    int distance(int cell) {
+        int x = cell % columns - minX;
+        int z = cell / columns - minZ;
+        if (x < 0 || z < 0 || x >= width || z >= height) {
+            return -1;
+        }
+        return dist[toLocal(cell)];
+    }
+
+    int[] path(int target) {
+        int length = 0;
+        for (int local = toLocal(target); local != -1; local = parent[local]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int index = length - 1;
+        for (int local = toLocal(target); local != -1; local = parent[local]) {
+            path[index--] = fromLocal(local);
+        }
+        return path;
+    }
+
+    int takeExpandedNodes() {
+        int expanded = expandedNodes;
+        expandedNodes = 0;
+        return expanded;
+    }
+
+    private int toLocal(int cell) {
+        return (cell / columns - minZ) * width + (cell % columns - minX);
+    }
+
+    private int fromLocal(int local) {
+        return (minZ + local / width) * columns + minX + local % width;
+    }
+}
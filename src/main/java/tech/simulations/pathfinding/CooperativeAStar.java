@@ -0,0 +1,144 @@
+package tech.simulations.pathfinding;
+
+import java.util.*;
+
+public class CooperativeAStar {
+
+    private final ReservationTable reservations;
+    private final int window;
+    private int expandedNodes;
+
+    public CooperativeAStar(ReservationTable reservations, int window) {
+        this.reservations = reservations;
+        this.window = window;
+    }
+
+    // Space-time A* over the next window ticks (WHCA*); beyond the window the goal distance field is the estimate.
+    // The goal and the staging cell (dock or rack face the trip starts from, -1 for none) are never reserved. A goal that is not
+    // a staging cell (a place to make way) is treated like any other cell and the truck waits there until the window ends.
+    // Without a goal field (short moves to make way) the octile distance to the goal is the estimate.
+    public TimedPath planWindow(WalkableMap map, FlowField goalField, int agent, int start, int goal, boolean stagingGoal, int stagingCell,
+                                int startTick, int straightTicks, int diagonalTicks) {
+        expandedNodes = 0;
+        int columns = map.getColumns();
+        double heuristicScale = Math.min(straightTicks / (double) GridAStar.STRAIGHT_COST, diagonalTicks / (double) GridAStar.DIAGONAL_COST);
+
+        List<int[]> nodes = new ArrayList<>();
+        Set<Long> closed = new HashSet<>();
+        PriorityQueue<int[]> openSet = new PriorityQueue<>((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(b[1], a[1]));
+
+        nodes.add(new int[]{start, startTick, -1});
+        openSet.add(new int[]{heuristic(goalField, goal, columns, start, heuristicScale), 0, 0});
+
+        while (!openSet.isEmpty()) {
+            int[] entry = openSet.poll();
+            int nodeIndex = entry[2];
+            int[] node = nodes.get(nodeIndex);
+            int cell = node[0];
+            int tick = node[1];
+            if (!closed.add(stateKey(cell, tick - startTick))) continue;
+            expandedNodes++;
+
+            if ((stagingGoal && cell == goal) || tick - startTick >= window) {
+                return reconstruct(nodes, nodeIndex, goal);
+            }
+
+            if (cell == stagingCell || reservations.isFree(cell, tick + 1, agent)) {
+                push(nodes, openSet, goalField, goal, columns, heuristicScale, cell, tick + 1, nodeIndex, startTick);
+            }
+
+            int x = cell % columns;
+            int z = cell / columns;
+            for (int dir = 0; dir < 8; dir++) {
+                int dx = GridAStar.DX[dir];
+                int dz = GridAStar.DZ[dir];
+                int nx = x + dx;
+                int nz = z + dz;
+                if (!map.isWalkable(nx, nz)) continue;
+                boolean diagonal = dx != 0 && dz != 0;
+                if (diagonal && (!map.isWalkable(x + dx, z) || !map.isWalkable(x, z + dz))) continue;
+
+                int neighbor = nz * columns + nx;
+                int duration = diagonal ? diagonalTicks : straightTicks;
+                // The truck holds its current cell until it has left and the next one from the moment it starts moving.
+                if (cell != stagingCell && !reservations.isFree(cell, tick + 1, tick + duration - 1, agent)) continue;
+                if (!(stagingGoal && neighbor == goal) && neighbor != stagingCell && !reservations.isFree(neighbor, tick + 1, tick + duration, agent)) continue;
+                if (goalField != null && goalField.getDistance(neighbor) < 0) continue;
+
+                push(nodes, openSet, goalField, goal, columns, heuristicScale, neighbor, tick + duration, nodeIndex, startTick);
+            }
+        }
+        return new TimedPath(new int[]{start}, new int[]{startTick}, start == goal);
+    }
+
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    private void push(List<int[]> nodes, PriorityQueue<int[]> openSet, FlowField goalField, int goal, int columns, double heuristicScale,
+                      int cell, int tick, int parent, int startTick) {
+        int elapsed = tick - startTick;
+        nodes.add(new int[]{cell, tick, parent});
+        openSet.add(new int[]{elapsed + heuristic(goalField, goal, columns, cell, heuristicScale), elapsed, nodes.size() - 1});
+    }
+
+    private static int heuristic(FlowField goalField, int goal, int columns, int cell, double scale) {
+        if (goalField == null) {
+            return (int) (GridAStar.heuristic(cell % columns, cell / columns, goal % columns, goal / columns) * scale);
+        }
+        return (int) (goalField.getDistance(cell) * scale);
+    }
+
+    private static long stateKey(int cell, int elapsed) {
+        return ((long) elapsed << 32) | (cell & 0xffffffffL);
+    }
+
+    private static TimedPath reconstruct(List<int[]> nodes, int nodeIndex, int goal) {
+        int length = 0;
+        for (int index = nodeIndex; index >= 0; index = nodes.get(index)[2]) {
+            length++;
+        }
+        int[] cells = new int[length];
+        int[] ticks = new int[length];
+        int index = nodeIndex;
+        for (int i = length - 1; i >= 0; i--) {
+            int[] node = nodes.get(index);
+            cells[i] = node[0];
+            ticks[i] = node[1];
+            index = node[2];
+        }
+        return new TimedPath(cells, ticks, cells[length - 1] == goal);
+    }
+
+    public static final class TimedPath {
+        private final int[] cells;
+        private final int[] ticks;
+        private final boolean reachesGoal;
+
+        public TimedPath(int[] cells, int[] ticks, boolean reachesGoal) {
+            this.cells = cells;
+            this.ticks = ticks;
+            this.reachesGoal = reachesGoal;
+        }
+
+        public int getLength() {
+            return cells.length;
+        }
+
+        public int getCell(int index) {
+            return cells[index];
+        }
+
+        public int getTick(int index) {
+            return ticks[index];
+        }
+
+        public boolean reachesGoal() {
+            return reachesGoal;
+        }
+    }
+}
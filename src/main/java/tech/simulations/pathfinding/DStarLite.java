@@ -0,0 +1,272 @@
+package tech.simulations.pathfinding;
+
+import java.util.Arrays;
+
+public class DStarLite {
+
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+
+    private int[] gCost = new int[0];
+    private int[] rhs = new int[0];
+    private int[] visitStamp = new int[0];
+    private final CellHeap openSet = new CellHeap();
+    private int currentStamp;
+    private int expandedNodes;
+
+    private WalkableMap map;
+    private int columns;
+    private int start;
+    private int goal;
+    private int lastStart;
+    private int keyModifier;
+
+    public void initialize(WalkableMap map, int start, int goal) {
+        this.map = map;
+        this.columns = map.getColumns();
+        this.start = start;
+        this.lastStart = start;
+        this.goal = goal;
+        this.keyModifier = 0;
+
+        int cellCount = map.getCellCount();
+        if (gCost.length < cellCount) {
+            gCost = new int[cellCount];
+            rhs = new int[cellCount];
+            visitStamp = new int[cellCount];
+            currentStamp = 0;
+        }
+        openSet.ensureCapacity(cellCount);
+        openSet.clear();
+        if (++currentStamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitStamp, 0);
+            currentStamp = 1;
+        }
+
+        setCosts(goal, INFINITY, 0);
+        openSet.insertOrUpdate(goal, calculateKey(goal));
+    }
+
+    public int[] computePath() {
+        expandedNodes = 0;
+        computeShortestPath();
+        return extractPath();
+    }
+
+    public int[] replan(WalkableMap newMap, int newStart) {
+        if (newMap.getColumns() != columns || newMap.getRows() != map.getRows()) {
+            return restart(newMap, newStart);
+        }
+
+        expandedNodes = 0;
+        WalkableMap oldMap = map;
+        map = newMap;
+
+        start = newStart;
+        keyModifier += GridAStar.heuristic(lastStart % columns, lastStart / columns, start % columns, start / columns);
+        lastStart = start;
+
+        long[] oldBits = oldMap.getBits();
+        long[] newBits = newMap.getBits();
+        for (int word = 0; word < newBits.length; word++) {
+            long changed = oldBits[word] ^ newBits[word];
+            while (changed != 0) {
+                int cell = (word << 6) + Long.numberOfTrailingZeros(changed);
+                changed &= changed - 1;
+                updateNeighborhood(cell);
+            }
+        }
+
+        computeShortestPath();
+        return extractPath();
+    }
+
+    // Cell indices do not carry over to a resized grid, so the goal is moved to the same place on the new grid (which
+    // grows and shrinks around the world origin) and the search starts over.
+    private int[] restart(WalkableMap newMap, int newStart) {
+        int newColumns = newMap.getColumns();
+        int newRows = newMap.getRows();
+        int goalX = Math.max(0, Math.min(goal % columns + (newColumns - columns) / 2, newColumns - 1));
+        int goalZ = Math.max(0, Math.min(goal / columns + (newRows - map.getRows()) / 2, newRows - 1));
+        int newGoal = newMap.cell(goalX, goalZ);
+        int walkableGoal = NavGrid.nearestWalkable(newMap, newGoal);
+
+        initialize(newMap, newStart, walkableGoal >= 0 ? walkableGoal : newGoal);
+        return computePath();
+    }
+
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    public int getGoal() {
+        return goal;
+    }
+
+    public WalkableMap getMap() {
+        return map;
+    }
+
+    private void updateNeighborhood(int cell) {
+        int x = cell % columns;
+        int z = cell / columns;
+        for (int dz = -1; dz <= 1; dz++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int nx = x + dx;
+                int nz = z + dz;
+                if (nx < 0 || nz < 0 || nx >= columns || nz >= map.getRows()) continue;
+
+                int neighbor = nz * columns + nx;
+                if (neighbor != goal) {
+                    setCosts(neighbor, g(neighbor), bestSuccessorCost(neighbor));
+                }
+                updateVertex(neighbor);
+            }
+        }
+    }
+
+    private void computeShortestPath() {
+        while (!openSet.isEmpty()
+                && (openSet.peekKey() < calculateKey(start) || rhs(start) != g(start))) {
+            int current = openSet.peek();
+            long oldKey = openSet.peekKey();
+            long newKey = calculateKey(current);
+            expandedNodes++;
+
+            if (oldKey < newKey) {
+                openSet.insertOrUpdate(current, newKey);
+            } else if (g(current) > rhs(current)) {
+                setCosts(current, rhs(current), rhs(current));
+                openSet.remove(current);
+                forEachNeighbor(current, false);
+            } else {
+                setCosts(current, INFINITY, rhs(current));
+                forEachNeighbor(current, true);
+                if (current != goal) {
+                    setCosts(current, INFINITY, bestSuccessorCost(current));
+                }
+                updateVertex(current);
+            }
+        }
+    }
+
+    private void forEachNeighbor(int cell, boolean recompute) {
+        int x = cell % columns;
+        int z = cell / columns;
+        int cellG = g(cell);
+
+        for (int dir = 0; dir < 8; dir++) {
+            int nx = x + GridAStar.DX[dir];
+            int nz = z + GridAStar.DZ[dir];
+            if (!map.isWalkable(nx, nz)) continue;
+
+            int neighbor = nz * columns + nx;
+            if (neighbor == goal) continue;
+
+            if (recompute) {
+                setCosts(neighbor, g(neighbor), bestSuccessorCost(neighbor));
+            } else {
+                int cost = edgeCost(nx, nz, GridAStar.DX[dir] * -1, GridAStar.DZ[dir] * -1);
+                if (cost < INFINITY && cellG + cost < rhs(neighbor)) {
+                    setCosts(neighbor, g(neighbor), cellG + cost);
+                }
+            }
+            updateVertex(neighbor);
+        }
+    }
+
+    private void updateVertex(int cell) {
+        if (g(cell) != rhs(cell)) {
+            openSet.insertOrUpdate(cell, calculateKey(cell));
+        } else if (openSet.contains(cell)) {
+            openSet.remove(cell);
+        }
+    }
+
+    private int bestSuccessorCost(int cell) {
+        int x = cell % columns;
+        int z = cell / columns;
+        int best = INFINITY;
+        for (int dir = 0; dir < 8; dir++) {
+            int dx = GridAStar.DX[dir];
+            int dz = GridAStar.DZ[dir];
+            int cost = edgeCost(x, z, dx, dz);
+            if (cost >= INFINITY) continue;
+
+            int successorG = g((z + dz) * columns + x + dx);
+            if (successorG < INFINITY) {
+                best = Math.min(best, cost + successorG);
+            }
+        }
+        return best;
+    }
+
+    private int edgeCost(int x, int z, int dx, int dz) {
+        if (!map.isWalkable(x, z) || !map.isWalkable(x + dx, z + dz)) {
+            return INFINITY;
+        }
+        if (dx != 0 && dz != 0) {
+            if (!map.isWalkable(x + dx, z) || !map.isWalkable(x, z + dz)) {
+                return INFINITY;
+            }
+            return GridAStar.DIAGONAL_COST;
+        }
+        return GridAStar.STRAIGHT_COST;
+    }
+
+    private int[] extractPath() {
+        if (g(start) >= INFINITY) {
+            return GridAStar.EMPTY_PATH;
+        }
+
+        int[] path = new int[64];
+        int length = 0;
+        int current = start;
+        path[length++] = current;
+        while (current != goal && length <= map.getCellCount()) {
+            int x = current % columns;
+            int z = current / columns;
+            int next = -1;
+            int best = INFINITY;
+            for (int dir = 0; dir < 8; dir++) {
+                int cost = edgeCost(x, z, GridAStar.DX[dir], GridAStar.DZ[dir]);
+                if (cost >= INFINITY) continue;
+
+                int neighbor = (z + GridAStar.DZ[dir]) * columns + x + GridAStar.DX[dir];
+                int total = cost + g(neighbor);
+                if (total < best) {
+                    best = total;
+                    next = neighbor;
+                }
+            }
+            if (next < 0) {
+                return GridAStar.EMPTY_PATH;
+            }
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length * 2);
+            }
+            path[length++] = next;
+            current = next;
+        }
+        return current == goal ? Arrays.copyOf(path, length) : GridAStar.EMPTY_PATH;
+    }
+
+    private long calculateKey(int cell) {
+        int minCost = Math.min(g(cell), rhs(cell));
+        int h = GridAStar.heuristic(start % columns, start / columns, cell % columns, cell / columns);
+        return GridAStar.key(minCost + h + keyModifier, minCost);
+    }
+
+    private int g(int cell) {
+        return visitStamp[cell] == currentStamp ? gCost[cell] : INFINITY;
+    }
+
+    private int rhs(int cell) {
+        return visitStamp[cell] == currentStamp ? rhs[cell] : INFINITY;
+    }
+
+    private void setCosts(int cell, int g, int rhsValue) {
+        gCost[cell] = g;
+        rhs[cell] = rhsValue;
+        visitStamp[cell] = currentStamp;
+    }
+}
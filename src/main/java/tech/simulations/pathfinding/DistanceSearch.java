@@ -0,0 +1,121 @@
+package tech.simulations.pathfinding;
+
+import java.util.Arrays;
+
+// Single-source grid distances for many sources in a row. Step costs are only STRAIGHT_COST or DIAGONAL_COST, so a
+// ring of buckets (Dial's algorithm) replaces the heap, and stamps replace clearing the arrays between searches.
+// Searches stop once the requested targets are settled, so only their distances are final. One instance per thread.
+public class DistanceSearch {
+    private static final int BUCKETS = GridAStar.DIAGONAL_COST + 1;
+
+    private final WalkableMap map;
+    private final int[] distance;
+    private final int[] stamp;
+    private final byte[] moves; // per cell, a bit for every direction that may be stepped in
+    private final int[] targetIndex; // last index of the cell in the target list, -1 if it is none
+    private final int[] targetsFrom; // distinct target cells among targets[i..]
+    private final int[][] buckets = new int[BUCKETS][64];
+    private final int[] bucketSizes = new int[BUCKETS];
+    private int currentStamp;
+
+    public DistanceSearch(WalkableMap map, int[] targets) {
+        this.map = map;
+        this.distance = new int[map.getCellCount()];
+        this.stamp = new int[map.getCellCount()];
+        this.targetIndex = new int[map.getCellCount()];
+        this.moves = new byte[map.getCellCount()];
+        int columns = map.getColumns();
+        for (int cell = 0; cell < moves.length; cell++) {
+            int x = cell % columns;
+            int z = cell / columns;
+            for (int dir = 0; dir < 8; dir++) {
+                int dx = GridAStar.DX[dir];
+                int dz = GridAStar.DZ[dir];
+                boolean open = map.isWalkable(x + dx, z + dz)
+                        && (dx == 0 || dz == 0 || (map.isWalkable(x + dx, z) && map.isWalkable(x, z + dz)));
+                if (open) {
+                    moves[cell] |= (byte) (1 << dir);
+                }
+            }
+        }
+        Arrays.fill(targetIndex, -1);
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] >= 0) {
+                targetIndex[targets[i]] = i;
+            }
+        }
+        this.targetsFrom = new int[targets.length + 1];
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] >= 0 && targetIndex[targets[i]] == i) {
+                targetsFrom[i]++;
+            }
+        }
+        for (int i = targets.length - 1; i >= 0; i--) {
+            targetsFrom[i] += targetsFrom[i + 1];
+        }
+    }
+
+    // Settles cells outward from the source until targets[firstTarget..] are settled or the reachable area is exhausted.
+    public void run(int source, int firstTarget) {
+        currentStamp++;
+        if (source < 0 || !map.isWalkable(source)) {
+            return;
+        }
+        int targetsLeft = targetsFrom[firstTarget];
+
+        int columns = map.getColumns();
+        int[] offsets = new int[8];
+        for (int dir = 0; dir < 8; dir++) {
+            offsets[dir] = GridAStar.DZ[dir] * columns + GridAStar.DX[dir];
+        }
+        distance[source] = 0;
+        stamp[source] = currentStamp;
+        push(source, 0);
+        int pending = 1;
+        for (int current = 0; pending > 0 && targetsLeft > 0; current++) {
+            int slot = current % BUCKETS;
+            // Steps cost more than nothing and less than the ring, so nothing is pushed into the bucket being drained.
+            int[] bucket = buckets[slot];
+            int size = bucketSizes[slot];
+            bucketSizes[slot] = 0;
+            pending -= size;
+            for (int i = 0; i < size; i++) {
+                int cell = bucket[i];
+                if (distance[cell] != current) {
+                    continue; // superseded by a shorter entry
+                }
+                if (targetIndex[cell] >= firstTarget) {
+                    targetsLeft--;
+                }
+                int cellMoves = moves[cell];
+                for (int dir = 0; dir < 8; dir++) {
+                    if ((cellMoves & (1 << dir)) == 0) continue;
+
+                    int neighbor = offsets[dir] + cell;
+                    int tentative = current + (dir < 4 ? GridAStar.STRAIGHT_COST : GridAStar.DIAGONAL_COST);
+                    if (stamp[neighbor] == currentStamp && tentative >= distance[neighbor]) continue;
+
+                    stamp[neighbor] = currentStamp;
+                    distance[neighbor] = tentative;
+                    push(neighbor, tentative);
+                    pending++;
+                }
+            }
+        }
+        // Drop whatever an early stop left queued.
+        Arrays.fill(bucketSizes, 0);
+    }
+
+    private void push(int cell, int cellDistance) {
+        int slot = cellDistance % BUCKETS;
+        if (bucketSizes[slot] == buckets[slot].length) {
+            buckets[slot] = Arrays.copyOf(buckets[slot], buckets[slot].length * 2);
+        }
+        buckets[slot][bucketSizes[slot]++] = cell;
+    }
+
+    // Distance in cost units from the last source to a target, -1 if it cannot be reached.
+    public int getDistance(int cell) {
+        return cell >= 0 && stamp[cell] == currentStamp ? distance[cell] : -1;
+    }
+}
@@ -0,0 +1,126 @@
+package tech.simulations.pathfinding;
+
+import java.util.Arrays;
+
+public final class FlowField {
+
+    private final int columns;
+    private final int rows;
+    private final int source;
+    private final int version;
+    private final int[] distance;
+    private final int[] parent;
+    private final int maxDistance;
+    private final int settledCells;
+
+    private FlowField(int columns, int rows, int source, int version, int[] distance, int[] parent, int maxDistance, int settledCells) {
+        this.columns = columns;
+        this.rows = rows;
+        this.source = source;
+        this.version = version;
+        this.distance = distance;
+        this.parent = parent;
+        this.maxDistance = maxDistance;
+        this.settledCells = settledCells;
+    }
+
+    public static FlowField compute(WalkableMap map, int source) {
+        int columns = map.getColumns();
+        int rows = map.getRows();
+        int[] distance = new int[map.getCellCount()];
+        int[] parent = new int[map.getCellCount()];
+        Arrays.fill(distance, -1);
+        Arrays.fill(parent, -1);
+
+        if (source < 0 || !map.isWalkable(source)) {
+            return new FlowField(columns, rows, source, map.getVersion(), distance, parent, 0, 0);
+        }
+
+        CellHeap openSet = new CellHeap();
+        openSet.ensureCapacity(map.getCellCount());
+        distance[source] = 0;
+        openSet.insertOrUpdate(source, 0);
+
+        int maxDistance = 0;
+        int settledCells = 0;
+        while (!openSet.isEmpty()) {
+            int current = openSet.pop();
+            settledCells++;
+            int currentX = current % columns;
+            int currentZ = current / columns;
+            int currentDistance = distance[current];
+            maxDistance = Math.max(maxDistance, currentDistance);
+
+            for (int dir = 0; dir < 8; dir++) {
+                int dx = GridAStar.DX[dir];
+                int dz = GridAStar.DZ[dir];
+                int nx = currentX + dx;
+                int nz = currentZ + dz;
+                if (!map.isWalkable(nx, nz)) continue;
+
+                int stepCost = GridAStar.STRAIGHT_COST;
+                if (dx != 0 && dz != 0) {
+                    if (!map.isWalkable(currentX + dx, currentZ) || !map.isWalkable(currentX, currentZ + dz)) continue;
+                    stepCost = GridAStar.DIAGONAL_COST;
+                }
+
+                int neighbor = nz * columns + nx;
+                int tentative = currentDistance + stepCost;
+                if (distance[neighbor] >= 0 && tentative >= distance[neighbor]) continue;
+
+                distance[neighbor] = tentative;
+                parent[neighbor] = current;
+                openSet.insertOrUpdate(neighbor, tentative);
+            }
+        }
+        return new FlowField(columns, rows, source, map.getVersion(), distance, parent, maxDistance, settledCells);
+    }
+
+    public int[] pathTo(int cell) {
+        if (cell < 0 || cell >= distance.length || distance[cell] < 0) {
+            return GridAStar.EMPTY_PATH;
+        }
+
+        int length = 0;
+        for (int current = cell; current != -1; current = parent[current]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int current = cell, i = length - 1; current != -1; current = parent[current], i--) {
+            path[i] = current;
+        }
+        return path;
+    }
+
+    public int getDistance(int cell) {
+        return distance[cell];
+    }
+
+    public boolean isReachable(int cell) {
+        return distance[cell] >= 0;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    public int getSettledCells() {
+        return settledCells;
+    }
+}
@@ -0,0 +1,27 @@
+package tech.simulations.pathfinding;
+
+public class FlowFieldSearch implements GridSearch {
+
+    private final NavGrid navGrid;
+    private final int clearanceCells;
+    private FlowField lastField;
+    private int expandedNodes;
+
+    public FlowFieldSearch(NavGrid navGrid, int clearanceCells) {
+        this.navGrid = navGrid;
+        this.clearanceCells = clearanceCells;
+    }
+
+    @Override
+    public int[] findPath(WalkableMap map, int start, int goal) {
+        FlowField field = navGrid.getFlowField(map, start, clearanceCells);
+        expandedNodes = field != lastField ? field.getSettledCells() : 0;
+        lastField = field;
+        return field.pathTo(goal);
+    }
+
+    @Override
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+}
@@ -0,0 +1,131 @@
+package tech.simulations.pathfinding;
+
+import java.util.Arrays;
+
+public class GridAStar implements GridSearch {
+
+    public static final int STRAIGHT_COST = 10;
+    public static final int DIAGONAL_COST = 14;
+    static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    static final int[] DZ = {0, 0, 1, -1, 1, -1, 1, -1};
+    static final int[] EMPTY_PATH = new int[0];
+
+    private int[] gCost = new int[0];
+    private int[] parent = new int[0];
+    private int[] visitStamp = new int[0];
+    private long[] closed = new long[0];
+    private final CellHeap openSet = new CellHeap();
+    private int currentStamp;
+    private int expandedNodes;
+
+    @Override
+    public int[] findPath(WalkableMap map, int start, int goal) {
+        expandedNodes = 0;
+        if (!map.isWalkable(start) || !map.isWalkable(goal)) {
+            return EMPTY_PATH;
+        }
+
+        int columns = map.getColumns();
+        int rows = map.getRows();
+        long[] walkable = map.getBits();
+        beginQuery(map.getCellCount());
+
+        int goalX = goal % columns;
+        int goalZ = goal / columns;
+
+        visit(start, 0, -1);
+        openSet.insertOrUpdate(start, key(0, heuristic(start % columns, start / columns, goalX, goalZ)));
+
+        while (!openSet.isEmpty()) {
+            int current = openSet.pop();
+            expandedNodes++;
+            if (current == goal) {
+                return buildPath(goal);
+            }
+            closed[current >>> 6] |= 1L << current;
+
+            int currentX = current % columns;
+            int currentZ = current / columns;
+            int currentG = gCost[current];
+
+            for (int dir = 0; dir < 8; dir++) {
+                int dx = DX[dir];
+                int dz = DZ[dir];
+                int nx = currentX + dx;
+                int nz = currentZ + dz;
+                if (nx < 0 || nz < 0 || nx >= columns || nz >= rows) continue;
+
+                int neighbor = nz * columns + nx;
+                if ((walkable[neighbor >>> 6] & (1L << neighbor)) == 0) continue;
+                if ((closed[neighbor >>> 6] & (1L << neighbor)) != 0) continue;
+
+                int stepCost = STRAIGHT_COST;
+                if (dx != 0 && dz != 0) {
+                    if (!map.isWalkable(currentX + dx, currentZ) || !map.isWalkable(currentX, currentZ + dz)) continue;
+                    stepCost = DIAGONAL_COST;
+                }
+
+                int tentativeG = currentG + stepCost;
+                if (visitStamp[neighbor] == currentStamp && tentativeG >= gCost[neighbor]) continue;
+
+                visit(neighbor, tentativeG, current);
+                int h = heuristic(nx, nz, goalX, goalZ);
+                openSet.insertOrUpdate(neighbor, key(tentativeG + h, h));
+            }
+        }
+
+        return EMPTY_PATH;
+    }
+
+    @Override
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    public static int heuristic(int x, int z, int goalX, int goalZ) {
+        int dx = Math.abs(x - goalX);
+        int dz = Math.abs(z - goalZ);
+        return STRAIGHT_COST * Math.max(dx, dz) + (DIAGONAL_COST - STRAIGHT_COST) * Math.min(dx, dz);
+    }
+
+    static long key(int f, int h) {
+        return ((long) f << 32) | h;
+    }
+
+    private void beginQuery(int cellCount) {
+        if (gCost.length < cellCount) {
+            gCost = new int[cellCount];
+            parent = new int[cellCount];
+            visitStamp = new int[cellCount];
+            closed = new long[(cellCount + 63) >>> 6];
+            currentStamp = 0;
+        } else {
+            Arrays.fill(closed, 0L);
+        }
+        openSet.ensureCapacity(cellCount);
+        openSet.clear();
+
+        if (++currentStamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitStamp, 0);
+            currentStamp = 1;
+        }
+    }
+
+    private void visit(int cell, int g, int parentCell) {
+        gCost[cell] = g;
+        parent[cell] = parentCell;
+        visitStamp[cell] = currentStamp;
+    }
+
+    private int[] buildPath(int goal) {
+        int length = 0;
+        for (int cell = goal; cell != -1; cell = parent[cell]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int cell = goal, i = length - 1; cell != -1; cell = parent[cell], i--) {
+            path[i] = cell;
+        }
+        return path;
+    }
+}
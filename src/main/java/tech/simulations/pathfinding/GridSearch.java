@@ -0,0 +1,7 @@
+package tech.simulations.pathfinding;
+
+public interface GridSearch {
+    int[] findPath(WalkableMap map, int start, int goal);
+
+    int getExpandedNodes();
+}
@@ -0,0 +1,200 @@
+package tech.simulations.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// The abstract graph of HPA*: cluster entrances and the distances between them, patched per cluster when the layout
+// changes. One graph per clearance is shared by all HierarchicalPathFinder queries; they read it under the read lock, so
+// batch queries run in parallel, and only a layout change takes the write lock.
+public class HierarchicalGraph {
+
+    static final int CLUSTER_SIZE = 16;
+    private static final int MAX_SINGLE_ENTRANCE_WIDTH = 6;
+
+    private final NavGrid navGrid;
+    private final int clearanceCells;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ClusterSearch buildSearch = new ClusterSearch(CLUSTER_SIZE);
+
+    WalkableMap map;
+    int columns;
+    int rows;
+    int clustersX;
+    int clustersZ;
+    int[][] clusterNodes;
+    int[][] clusterDistances;
+    int[][] eastTransitions;
+    int[][] northTransitions;
+    private int builtVersion = -1;
+
+    public HierarchicalGraph(NavGrid navGrid, int clearanceCells) {
+        this.navGrid = navGrid;
+        this.clearanceCells = clearanceCells;
+    }
+
+    public int getClearanceCells() {
+        return clearanceCells;
+    }
+
+    // Brings the graph up to the given map, or a newer one, and holds the read lock until release(). Queries must use
+    // the returned map, which is the one the graph was built from.
+    WalkableMap acquire(WalkableMap requested) {
+        lock.readLock().lock();
+        if (isBuiltFor(requested)) {
+            return map;
+        }
+        lock.readLock().unlock();
+
+        lock.writeLock().lock();
+        try {
+            if (!isBuiltFor(requested)) {
+                update(requested);
+            }
+            lock.readLock().lock();
+            return map;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void release() {
+        lock.readLock().unlock();
+    }
+
+    private boolean isBuiltFor(WalkableMap requested) {
+        return map == requested || (map != null && map.getVersion() > requested.getVersion()
+                && map.getColumns() == requested.getColumns() && map.getRows() == requested.getRows());
+    }
+
+    int clusterOf(int cell) {
+        return (cell / columns / CLUSTER_SIZE) * clustersX + (cell % columns) / CLUSTER_SIZE;
+    }
+
+    int nodeIndex(int cluster, int cell) {
+        int[] nodes = clusterNodes[cluster];
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i] == cell) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void update(WalkableMap newMap) {
+        boolean sameSize = map != null && newMap.getColumns() == columns && newMap.getRows() == rows;
+        int[] region = sameSize ? navGrid.getChangedRegion(builtVersion) : null;
+        map = newMap;
+        builtVersion = newMap.getVersion();
+
+        if (!sameSize) {
+            columns = newMap.getColumns();
+            rows = newMap.getRows();
+            clustersX = (columns + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+            clustersZ = (rows + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+            clusterNodes = new int[clustersX * clustersZ][];
+            clusterDistances = new int[clustersX * clustersZ][];
+            eastTransitions = new int[clustersX * clustersZ][];
+            northTransitions = new int[clustersX * clustersZ][];
+            region = new int[]{0, 0, columns - 1, rows - 1};
+        }
+        if (region == null) {
+            return;
+        }
+
+        int margin = clearanceCells + 1;
+        int fromX = Math.max(0, (region[0] - margin) / CLUSTER_SIZE);
+        int fromZ = Math.max(0, (region[1] - margin) / CLUSTER_SIZE);
+        int toX = Math.min(clustersX - 1, (region[2] + margin) / CLUSTER_SIZE);
+        int toZ = Math.min(clustersZ - 1, (region[3] + margin) / CLUSTER_SIZE);
+
+        for (int cz = Math.max(0, fromZ - 1); cz <= toZ; cz++) {
+            for (int cx = Math.max(0, fromX - 1); cx <= toX; cx++) {
+                int cluster = cz * clustersX + cx;
+                if (cz >= fromZ) eastTransitions[cluster] = findTransitions(cx, cz, true);
+                if (cx >= fromX) northTransitions[cluster] = findTransitions(cx, cz, false);
+            }
+        }
+
+        for (int cz = Math.max(0, fromZ - 1); cz <= Math.min(clustersZ - 1, toZ + 1); cz++) {
+            for (int cx = Math.max(0, fromX - 1); cx <= Math.min(clustersX - 1, toX + 1); cx++) {
+                buildCluster(cz * clustersX + cx);
+            }
+        }
+        buildSearch.takeExpandedNodes();
+    }
+
+    private int[] findTransitions(int cx, int cz, boolean east) {
+        int[] pairs = new int[0];
+        int count = 0;
+        if (east ? cx + 1 >= clustersX : cz + 1 >= clustersZ) {
+            return pairs;
+        }
+
+        int border = east ? (cx + 1) * CLUSTER_SIZE - 1 : (cz + 1) * CLUSTER_SIZE - 1;
+        int from = east ? cz * CLUSTER_SIZE : cx * CLUSTER_SIZE;
+        int to = east ? Math.min(rows, from + CLUSTER_SIZE) : Math.min(columns, from + CLUSTER_SIZE);
+
+        int runStart = -1;
+        for (int i = from; i <= to; i++) {
+            boolean open = i < to && (east
+                    ? map.isWalkable(border, i) && map.isWalkable(border + 1, i)
+                    : map.isWalkable(i, border) && map.isWalkable(i, border + 1));
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                int runEnd = i - 1;
+                int[] positions = runEnd - runStart + 1 < MAX_SINGLE_ENTRANCE_WIDTH
+                        ? new int[]{(runStart + runEnd) / 2}
+                        : new int[]{runStart, runEnd};
+                for (int position : positions) {
+                    if (count + 2 > pairs.length) {
+                        pairs = Arrays.copyOf(pairs, Math.max(8, pairs.length * 2));
+                    }
+                    pairs[count++] = east ? map.cell(border, position) : map.cell(position, border);
+                    pairs[count++] = east ? map.cell(border + 1, position) : map.cell(position, border + 1);
+                }
+                runStart = -1;
+            }
+        }
+        return Arrays.copyOf(pairs, count);
+    }
+
+    private void buildCluster(int cluster) {
+        int cx = cluster % clustersX;
+        int cz = cluster / clustersX;
+        List<Integer> nodes = new ArrayList<>();
+
+        addNodes(nodes, eastTransitions[cluster], 0);
+        addNodes(nodes, northTransitions[cluster], 0);
+        if (cx > 0) addNodes(nodes, eastTransitions[cluster - 1], 1);
+        if (cz > 0) addNodes(nodes, northTransitions[cluster - clustersX], 1);
+
+        int[] nodeCells = new int[nodes.size()];
+        for (int i = 0; i < nodeCells.length; i++) {
+            nodeCells[i] = nodes.get(i);
+        }
+        clusterNodes[cluster] = nodeCells;
+
+        int[] distances = new int[nodeCells.length * nodeCells.length];
+        for (int i = 0; i < nodeCells.length; i++) {
+            buildSearch.run(map, nodeCells[i], cluster, clustersX);
+            for (int j = 0; j < nodeCells.length; j++) {
+                distances[i * nodeCells.length + j] = buildSearch.distance(nodeCells[j]);
+            }
+        }
+        clusterDistances[cluster] = distances;
+    }
+
+    private static void addNodes(List<Integer> nodes, int[] pairs, int side) {
+        if (pairs == null) {
+            return;
+        }
+        for (int i = side; i < pairs.length; i += 2) {
+            if (!nodes.contains(pairs[i])) {
+                nodes.add(pairs[i]);
+            }
+        }
+    }
+}
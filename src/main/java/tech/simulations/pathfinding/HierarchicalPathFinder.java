@@ -0,0 +1,219 @@
+package tech.simulations.pathfinding;
+
+import java.util.Arrays;
+
+// One HPA* query state over a shared HierarchicalGraph. Instances are cheap and not thread-safe; give each worker its own.
+public class HierarchicalPathFinder implements GridSearch {
+
+    private final HierarchicalGraph graph;
+    private final ClusterSearch localSearch = new ClusterSearch(HierarchicalGraph.CLUSTER_SIZE);
+
+    private int[] gCost = new int[0];
+    private int[] parent = new int[0];
+    private int[] visitStamp = new int[0];
+    private final CellHeap openSet = new CellHeap();
+    private int currentStamp;
+    private int expandedNodes;
+    private WalkableMap map;
+    private int columns;
+
+    public HierarchicalPathFinder(HierarchicalGraph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public int[] findPath(WalkableMap requestedMap, int start, int goal) {
+        map = graph.acquire(requestedMap);
+        try {
+            columns = map.getColumns();
+            localSearch.takeExpandedNodes();
+            expandedNodes = 0;
+            if (!map.isWalkable(start) || !map.isWalkable(goal)) {
+                return GridAStar.EMPTY_PATH;
+            }
+            return search(start, goal);
+        } finally {
+            expandedNodes += localSearch.takeExpandedNodes();
+            graph.release();
+        }
+    }
+
+    @Override
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    public int getClearanceCells() {
+        return graph.getClearanceCells();
+    }
+
+    private int[] search(int start, int goal) {
+        int startCluster = graph.clusterOf(start);
+        int goalCluster = graph.clusterOf(goal);
+
+        runLocal(start, startCluster);
+        if (startCluster == goalCluster && localSearch.distance(goal) >= 0) {
+            return localSearch.path(goal);
+        }
+
+        int[] startDistances = distancesToNodes(startCluster);
+        runLocal(goal, goalCluster);
+        int[] goalDistances = distancesToNodes(goalCluster);
+
+        int[] abstractPath = searchAbstractGraph(start, goal, startCluster, goalCluster, startDistances, goalDistances);
+        if (abstractPath.length == 0) {
+            return GridAStar.EMPTY_PATH;
+        }
+        return refine(abstractPath);
+    }
+
+    private void runLocal(int source, int cluster) {
+        localSearch.run(map, source, cluster, graph.clustersX);
+    }
+
+    private int[] searchAbstractGraph(int start, int goal, int startCluster, int goalCluster, int[] startDistances, int[] goalDistances) {
+        beginQuery();
+        int goalX = goal % columns;
+        int goalZ = goal / columns;
+
+        visit(start, 0, -1);
+        openSet.insertOrUpdate(start, GridAStar.key(0, GridAStar.heuristic(start % columns, start / columns, goalX, goalZ)));
+
+        while (!openSet.isEmpty()) {
+            int current = openSet.pop();
+            expandedNodes++;
+            if (current == goal) {
+                return buildPath(goal);
+            }
+
+            int currentG = gCost[current];
+            if (current == start) {
+                int[] nodes = graph.clusterNodes[startCluster];
+                for (int i = 0; i < nodes.length; i++) {
+                    if (startDistances[i] >= 0) relax(nodes[i], currentG + startDistances[i], current, goalX, goalZ);
+                }
+            }
+
+            int cluster = graph.clusterOf(current);
+            int index = graph.nodeIndex(cluster, current);
+            if (index < 0) {
+                continue;
+            }
+
+            int[] nodes = graph.clusterNodes[cluster];
+            int[] distances = graph.clusterDistances[cluster];
+            for (int j = 0; j < nodes.length; j++) {
+                int distance = distances[index * nodes.length + j];
+                if (j != index && distance >= 0) relax(nodes[j], currentG + distance, current, goalX, goalZ);
+            }
+            relaxPartners(current, cluster, currentG, goalX, goalZ);
+
+            if (cluster == goalCluster && goalDistances[index] >= 0) {
+                relax(goal, currentG + goalDistances[index], current, goalX, goalZ);
+            }
+        }
+        return GridAStar.EMPTY_PATH;
+    }
+
+    private void relaxPartners(int cell, int cluster, int currentG, int goalX, int goalZ) {
+        int clustersX = graph.clustersX;
+        int cx = cluster % clustersX;
+        int cz = cluster / clustersX;
+        relaxPartners(cell, graph.eastTransitions[cluster], 0, currentG, goalX, goalZ);
+        relaxPartners(cell, graph.northTransitions[cluster], 0, currentG, goalX, goalZ);
+        if (cx > 0) relaxPartners(cell, graph.eastTransitions[cluster - 1], 1, currentG, goalX, goalZ);
+        if (cz > 0) relaxPartners(cell, graph.northTransitions[cluster - clustersX], 1, currentG, goalX, goalZ);
+    }
+
+    private void relaxPartners(int cell, int[] pairs, int side, int currentG, int goalX, int goalZ) {
+        if (pairs == null) {
+            return;
+        }
+        for (int i = side; i < pairs.length; i += 2) {
+            if (pairs[i] == cell) {
+                relax(pairs[i ^ 1], currentG + GridAStar.STRAIGHT_COST, cell, goalX, goalZ);
+            }
+        }
+    }
+
+    private void relax(int cell, int g, int from, int goalX, int goalZ) {
+        if (visitStamp[cell] == currentStamp && g >= gCost[cell]) {
+            return;
+        }
+        visit(cell, g, from);
+        int h = GridAStar.heuristic(cell % columns, cell / columns, goalX, goalZ);
+        openSet.insertOrUpdate(cell, GridAStar.key(g + h, h));
+    }
+
+    private int[] refine(int[] abstractPath) {
+        int[] path = new int[64];
+        int length = 0;
+        path[length++] = abstractPath[0];
+
+        for (int i = 1; i < abstractPath.length; i++) {
+            int from = abstractPath[i - 1];
+            int to = abstractPath[i];
+            int[] segment;
+            if (isAdjacent(from, to)) {
+                segment = new int[]{from, to};
+            } else {
+                runLocal(from, graph.clusterOf(from));
+                segment = localSearch.path(to);
+            }
+            if (length + segment.length > path.length) {
+                path = Arrays.copyOf(path, Math.max(path.length * 2, length + segment.length));
+            }
+            System.arraycopy(segment, 1, path, length, segment.length - 1);
+            length += segment.length - 1;
+        }
+        return Arrays.copyOf(path, length);
+    }
+
+    private boolean isAdjacent(int a, int b) {
+        return Math.abs(a % columns - b % columns) + Math.abs(a / columns - b / columns) == 1;
+    }
+
+    private int[] distancesToNodes(int cluster) {
+        int[] nodes = graph.clusterNodes[cluster];
+        int[] distances = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            distances[i] = localSearch.distance(nodes[i]);
+        }
+        return distances;
+    }
+
+    private void beginQuery() {
+        int cellCount = columns * map.getRows();
+        if (gCost.length < cellCount) {
+            gCost = new int[cellCount];
+            parent = new int[cellCount];
+            visitStamp = new int[cellCount];
+            currentStamp = 0;
+        }
+        openSet.ensureCapacity(cellCount);
+        openSet.clear();
+
+        if (++currentStamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitStamp, 0);
+            currentStamp = 1;
+        }
+    }
+
+    private void visit(int cell, int g, int parentCell) {
+        gCost[cell] = g;
+        parent[cell] = parentCell;
+        visitStamp[cell] = currentStamp;
+    }
+
+    private int[] buildPath(int goal) {
+        int length = 0;
+        for (int cell = goal; cell != -1; cell = parent[cell]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int cell = goal, i = length - 1; cell != -1; cell = parent[cell], i--) {
+            path[i] = cell;
+        }
+        return path;
+    }
+}
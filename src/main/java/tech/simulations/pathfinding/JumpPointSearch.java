@@ -0,0 +1,216 @@
+package tech.simulations.pathfinding;
+
+import java.util.Arrays;
+
+public class JumpPointSearch implements GridSearch {
+
+    private int[] gCost = new int[0];
+    private int[] parent = new int[0];
+    private int[] visitStamp = new int[0];
+    private long[] closed = new long[0];
+    private final CellHeap openSet = new CellHeap();
+    private final int[] neighborDx = new int[8];
+    private final int[] neighborDz = new int[8];
+    private int currentStamp;
+    private int expandedNodes;
+
+    private WalkableMap map;
+    private int columns;
+    private int goal;
+
+    @Override
+    public int[] findPath(WalkableMap map, int start, int goal) {
+        expandedNodes = 0;
+        if (!map.isWalkable(start) || !map.isWalkable(goal)) {
+            return GridAStar.EMPTY_PATH;
+        }
+
+        this.map = map;
+        this.columns = map.getColumns();
+        this.goal = goal;
+        beginQuery(map.getCellCount());
+
+        int goalX = goal % columns;
+        int goalZ = goal / columns;
+
+        visit(start, 0, -1);
+        openSet.insertOrUpdate(start, GridAStar.key(0, GridAStar.heuristic(start % columns, start / columns, goalX, goalZ)));
+
+        try {
+            while (!openSet.isEmpty()) {
+                int current = openSet.pop();
+                expandedNodes++;
+                if (current == goal) {
+                    return buildPath(goal);
+                }
+                closed[current >>> 6] |= 1L << current;
+
+                int currentX = current % columns;
+                int currentZ = current / columns;
+                int neighborCount = prunedNeighbors(current, currentX, currentZ);
+
+                for (int i = 0; i < neighborCount; i++) {
+                    int jumpPoint = jump(currentX, currentZ, neighborDx[i], neighborDz[i]);
+                    if (jumpPoint < 0 || (closed[jumpPoint >>> 6] & (1L << jumpPoint)) != 0) continue;
+
+                    int jumpX = jumpPoint % columns;
+                    int jumpZ = jumpPoint / columns;
+                    int tentativeG = gCost[current] + GridAStar.heuristic(currentX, currentZ, jumpX, jumpZ);
+                    if (visitStamp[jumpPoint] == currentStamp && tentativeG >= gCost[jumpPoint]) continue;
+
+                    visit(jumpPoint, tentativeG, current);
+                    int h = GridAStar.heuristic(jumpX, jumpZ, goalX, goalZ);
+                    openSet.insertOrUpdate(jumpPoint, GridAStar.key(tentativeG + h, h));
+                }
+            }
+            return GridAStar.EMPTY_PATH;
+        } finally {
+            this.map = null;
+        }
+    }
+
+    @Override
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    private int prunedNeighbors(int cell, int x, int z) {
+        int count = 0;
+        int parentCell = parent[cell];
+
+        if (parentCell < 0) {
+            for (int dir = 0; dir < 8; dir++) {
+                int dx = GridAStar.DX[dir];
+                int dz = GridAStar.DZ[dir];
+                if (!map.isWalkable(x + dx, z + dz)) continue;
+                if (dx != 0 && dz != 0 && (!map.isWalkable(x + dx, z) || !map.isWalkable(x, z + dz))) continue;
+                count = addNeighbor(count, dx, dz);
+            }
+            return count;
+        }
+
+        int dx = Integer.signum(x - parentCell % columns);
+        int dz = Integer.signum(z - parentCell / columns);
+
+        if (dx != 0 && dz != 0) {
+            boolean zWalkable = map.isWalkable(x, z + dz);
+            boolean xWalkable = map.isWalkable(x + dx, z);
+            if (zWalkable) count = addNeighbor(count, 0, dz);
+            if (xWalkable) count = addNeighbor(count, dx, 0);
+            if (zWalkable && xWalkable) count = addNeighbor(count, dx, dz);
+        } else if (dx != 0) {
+            boolean nextWalkable = map.isWalkable(x + dx, z);
+            boolean topWalkable = map.isWalkable(x, z + 1);
+            boolean bottomWalkable = map.isWalkable(x, z - 1);
+            if (nextWalkable) {
+                count = addNeighbor(count, dx, 0);
+                if (topWalkable) count = addNeighbor(count, dx, 1);
+                if (bottomWalkable) count = addNeighbor(count, dx, -1);
+            }
+            if (topWalkable) count = addNeighbor(count, 0, 1);
+            if (bottomWalkable) count = addNeighbor(count, 0, -1);
+        } else {
+            boolean nextWalkable = map.isWalkable(x, z + dz);
+            boolean rightWalkable = map.isWalkable(x + 1, z);
+            boolean leftWalkable = map.isWalkable(x - 1, z);
+            if (nextWalkable) {
+                count = addNeighbor(count, 0, dz);
+                if (rightWalkable) count = addNeighbor(count, 1, dz);
+                if (leftWalkable) count = addNeighbor(count, -1, dz);
+            }
+            if (rightWalkable) count = addNeighbor(count, 1, 0);
+            if (leftWalkable) count = addNeighbor(count, -1, 0);
+        }
+        return count;
+    }
+
+    private int addNeighbor(int count, int dx, int dz) {
+        neighborDx[count] = dx;
+        neighborDz[count] = dz;
+        return count + 1;
+    }
+
+    private int jump(int x, int z, int dx, int dz) {
+        while (true) {
+            x += dx;
+            z += dz;
+            if (!map.isWalkable(x, z)) {
+                return -1;
+            }
+
+            int cell = z * columns + x;
+            if (cell == goal) {
+                return cell;
+            }
+
+            if (dx != 0 && dz != 0) {
+                if (jump(x, z, dx, 0) >= 0 || jump(x, z, 0, dz) >= 0) {
+                    return cell;
+                }
+            } else if (dx != 0) {
+                if ((map.isWalkable(x, z - 1) && !map.isWalkable(x - dx, z - 1))
+                        || (map.isWalkable(x, z + 1) && !map.isWalkable(x - dx, z + 1))) {
+                    return cell;
+                }
+            } else {
+                if ((map.isWalkable(x - 1, z) && !map.isWalkable(x - 1, z - dz))
+                        || (map.isWalkable(x + 1, z) && !map.isWalkable(x + 1, z - dz))) {
+                    return cell;
+                }
+            }
+
+            if (!map.isWalkable(x + dx, z) || !map.isWalkable(x, z + dz)) {
+                return -1;
+            }
+        }
+    }
+
+    private void beginQuery(int cellCount) {
+        if (gCost.length < cellCount) {
+            gCost = new int[cellCount];
+            parent = new int[cellCount];
+            visitStamp = new int[cellCount];
+            closed = new long[(cellCount + 63) >>> 6];
+            currentStamp = 0;
+        } else {
+            Arrays.fill(closed, 0L);
+        }
+        openSet.ensureCapacity(cellCount);
+        openSet.clear();
+
+        if (++currentStamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitStamp, 0);
+            currentStamp = 1;
+        }
+    }
+
+    private void visit(int cell, int g, int parentCell) {
+        gCost[cell] = g;
+        parent[cell] = parentCell;
+        visitStamp[cell] = currentStamp;
+    }
+
+    private int[] buildPath(int goal) {
+        int length = 1;
+        for (int cell = goal; parent[cell] != -1; cell = parent[cell]) {
+            int from = parent[cell];
+            length += Math.max(Math.abs(cell % columns - from % columns), Math.abs(cell / columns - from / columns));
+        }
+
+        int[] path = new int[length];
+        int index = length - 1;
+        path[index] = goal;
+        for (int cell = goal; parent[cell] != -1; cell = parent[cell]) {
+            int from = parent[cell];
+            int x = cell % columns, z = cell / columns;
+            int stepX = Integer.signum(from % columns - x);
+            int stepZ = Integer.signum(from / columns - z);
+            while (x != from % columns || z != from / columns) {
+                x += stepX;
+                z += stepZ;
+                path[--index] = z * columns + x;
+            }
+        }
+        return path;
+    }
+}
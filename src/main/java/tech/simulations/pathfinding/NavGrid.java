@@ -0,0 +1,511 @@
+package tech.simulations.pathfinding;
+
+import UndoRedo.*;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Spatial;
+import ui.Grid;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+public class NavGrid implements SceneChangeListener {
+
+    private static final int MAX_LOGGED_CHANGES = 64;
+    private static final double UNBLOCKED = 1e12;
+    // Each flow field holds two ints per grid cell; the least recently used ones are dropped beyond this budget.
+    private static final long FLOW_FIELD_BUDGET_BYTES = 64L << 20;
+    private static final int MIN_FLOW_FIELDS = 4;
+
+    private final UndoManager undoManager;
+    private final Map<Spatial, int[]> obstacleFootprints = new HashMap<>();
+    private final Map<Geometry, int[]> floorFootprints = new HashMap<>();
+    private final Set<Spatial> dirtyObjects = new LinkedHashSet<>();
+    private final Map<Integer, WalkableMap> walkableCache = new HashMap<>();
+    private final Map<Integer, HierarchicalGraph> hierarchies = new HashMap<>();
+    private final Map<Long, FlowFieldTask> flowFields = new LinkedHashMap<Long, FlowFieldTask>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, FlowFieldTask> eldest) {
+            return size() > maxFlowFields();
+        }
+    };
+    private final Deque<int[]> changeLog = new ArrayDeque<>();
+    private final PathCache pathCache = new PathCache();
+
+    private int columns;
+    private int rows;
+    private long[] floorBits;
+    private int[] obstacleCounts;
+    private float[] clearanceField;
+    private boolean fullRebuild = true;
+    private int version;
+    private int changeLogStartVersion;
+
+    public NavGrid(UndoManager undoManager) {
+        this.undoManager = undoManager;
+        undoManager.addSceneChangeListener(this);
+    }
+
+    @Override
+    public synchronized void onSceneChanged(UndoableAction action) {
+        if (action == null) {
+            fullRebuild = true;
+        } else if (action instanceof ModelLoadAction) {
+            dirtyObjects.add(((ModelLoadAction) action).getModel());
+        } else if (action instanceof DeleteAction) {
+            dirtyObjects.add(((DeleteAction) action).getDeletedObject());
+        } else if (action instanceof PropertyChangeAction) {
+            dirtyObjects.add(((PropertyChangeAction) action).getObject());
+        } else if (action instanceof FloorPlacementAction) {
+            dirtyObjects.addAll(((FloorPlacementAction) action).getFloorGeometries());
+        } else if (action instanceof FloorDeleteAction) {
+            dirtyObjects.addAll(((FloorDeleteAction) action).getFloorGeometries());
+        } else if (action instanceof RackPlacementAction) {
+            dirtyObjects.addAll(((RackPlacementAction) action).getPlacedRacks());
+        } else if (action instanceof PasteAction) {
+            dirtyObjects.addAll(((PasteAction) action).getPastedObjects());
+        }
+    }
+
+    public synchronized void ensureUpToDate() {
+        if (columns != Grid.GRID_LENGTH * 2 || rows != Grid.GRID_WIDTH * 2) {
+            fullRebuild = true;
+        }
+
+        if (fullRebuild) {
+            rebuild();
+        } else if (!dirtyObjects.isEmpty()) {
+            patch();
+        }
+    }
+
+    public synchronized WalkableMap getWalkable(int clearanceCells) {
+        ensureUpToDate();
+        return walkableCache.computeIfAbsent(clearanceCells, this::computeWalkable);
+    }
+
+    public synchronized HierarchicalGraph getHierarchy(int clearanceCells) {
+        return hierarchies.computeIfAbsent(clearanceCells, clearance -> new HierarchicalGraph(this, clearance));
+    }
+
+    public FlowField getFlowField(int sourceCell, int clearanceCells) {
+        return getFlowField(getWalkable(clearanceCells), sourceCell, clearanceCells);
+    }
+
+    // The field is a full Dijkstra over the grid, so it is computed outside the monitor and callers asking for other
+    // sources are not held up. Callers asking for the same source on the same layout wait for the first one's field.
+    // Only fields of the current layout are cached; an older snapshot gets a field of its own.
+    public FlowField getFlowField(WalkableMap map, int sourceCell, int clearanceCells) {
+        int source = nearestWalkable(map, sourceCell);
+        long key = ((long) clearanceCells << 32) | (source & 0xFFFFFFFFL);
+        FlowFieldTask task;
+        boolean owner = false;
+        synchronized (this) {
+            task = flowFields.get(key);
+            if (task == null || task.version != map.getVersion()) {
+                task = new FlowFieldTask(map.getVersion());
+                owner = true;
+                if (map.getVersion() == version) {
+                    flowFields.put(key, task);
+                }
+            }
+        }
+
+        if (owner) {
+            try {
+                task.field.complete(FlowField.compute(map, source));
+            } catch (RuntimeException | Error e) {
+                task.field.completeExceptionally(e);
+                synchronized (this) {
+                    flowFields.remove(key, task);
+                }
+                throw e;
+            }
+        }
+        return task.field.join();
+    }
+
+    private long maxFlowFields() {
+        long fieldBytes = 8L * Math.max(1, columns * rows);
+        return Math.max(MIN_FLOW_FIELDS, FLOW_FIELD_BUDGET_BYTES / fieldBytes);
+    }
+
+    public PathCache getPathCache() {
+        return pathCache;
+    }
+
+    public synchronized int[] getChangedRegion(int sinceVersion) {
+        ensureUpToDate();
+        if (sinceVersion >= version) {
+            return null;
+        }
+        if (sinceVersion < changeLogStartVersion) {
+            return new int[]{0, 0, columns - 1, rows - 1};
+        }
+
+        int[] region = null;
+        for (int[] entry : changeLog) {
+            if (entry[0] > sinceVersion) {
+                region = union(region, new int[]{entry[1], entry[2], entry[3], entry[4]});
+            }
+        }
+        return region;
+    }
+
+    public synchronized int getVersion() {
+        ensureUpToDate();
+        return version;
+    }
+
+    public synchronized int getColumns() {
+        ensureUpToDate();
+        return columns;
+    }
+
+    public synchronized int getRows() {
+        ensureUpToDate();
+        return rows;
+    }
+
+    public static int clearanceCells(float avoidanceDistance, double vehicleWidth) {
+        return (int) Math.ceil(avoidanceDistance + vehicleWidth / 2);
+    }
+
+    public int cellAt(Vector3f position) {
+        int columns = Grid.GRID_LENGTH * 2;
+        int rows = Grid.GRID_WIDTH * 2;
+        int x = Math.max(0, Math.min(toCellX(position.x), columns - 1));
+        int z = Math.max(0, Math.min(toCellZ(position.z), rows - 1));
+        return z * columns + x;
+    }
+
+    public Vector3f cellPosition(int cell) {
+        int columns = Grid.GRID_LENGTH * 2;
+        return new Vector3f(
+                (cell % columns) * Grid.GRID_SPACING - Grid.GRID_LENGTH * Grid.GRID_SPACING,
+                Grid.GRID_Y_LEVEL,
+                (cell / columns) * Grid.GRID_SPACING - Grid.GRID_WIDTH * Grid.GRID_SPACING);
+    }
+
+    public static int nearestWalkable(WalkableMap map, int cell) {
+        if (map.isWalkable(cell)) {
+            return cell;
+        }
+
+        int columns = map.getColumns();
+        int cx = cell % columns;
+        int cz = cell / columns;
+        int maxRadius = Math.max(columns, map.getRows());
+
+        for (int radius = 1; radius < maxRadius; radius++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                if (map.isWalkable(cx + dx, cz - radius)) return map.cell(cx + dx, cz - radius);
+                if (map.isWalkable(cx + dx, cz + radius)) return map.cell(cx + dx, cz + radius);
+            }
+            for (int dz = -radius + 1; dz < radius; dz++) {
+                if (map.isWalkable(cx - radius, cz + dz)) return map.cell(cx - radius, cz + dz);
+                if (map.isWalkable(cx + radius, cz + dz)) return map.cell(cx + radius, cz + dz);
+            }
+        }
+        return -1;
+    }
+
+    private void rebuild() {
+        columns = Grid.GRID_LENGTH * 2;
+        rows = Grid.GRID_WIDTH * 2;
+        floorBits = WalkableMap.newBits(columns, rows);
+        obstacleCounts = new int[columns * rows];
+        obstacleFootprints.clear();
+        floorFootprints.clear();
+        dirtyObjects.clear();
+
+        for (Spatial object : undoManager.getCurrentSceneObjects()) {
+            addObject(object);
+        }
+        rasterizeFloors(0, 0, columns - 1, rows - 1);
+
+        fullRebuild = false;
+        invalidate();
+        changeLog.clear();
+        changeLogStartVersion = version;
+    }
+
+    private void patch() {
+        Set<Spatial> currentObjects = new HashSet<>(undoManager.getCurrentSceneObjects());
+        Map<Geometry, Float> floorCompleteAreas = undoManager.getFloorCompleteAreas();
+
+        int[] changedRegion = null;
+        for (Spatial object : dirtyObjects) {
+            int[] oldFootprint = obstacleFootprints.remove(object);
+            if (oldFootprint != null) {
+                addFootprint(oldFootprint, -1);
+                changedRegion = union(changedRegion, oldFootprint);
+            }
+
+            int[] oldFloor = floorFootprints.remove(object);
+            boolean isFloor = oldFloor != null || floorCompleteAreas.containsKey(object);
+            if (isFloor) {
+                int[] newFloor = null;
+                if (currentObjects.contains(object) && floorCompleteAreas.containsKey(object)) {
+                    newFloor = floorFootprint((Geometry) object);
+                    if (newFloor != null) {
+                        floorFootprints.put((Geometry) object, newFloor);
+                    }
+                }
+                int[] region = union(oldFloor, newFloor);
+                if (region != null) {
+                    rasterizeFloors(region[0], region[1], region[2], region[3]);
+                    changedRegion = union(changedRegion, region);
+                }
+            } else if (currentObjects.contains(object)) {
+                changedRegion = union(changedRegion, addObject(object));
+            }
+        }
+
+        dirtyObjects.clear();
+        invalidate();
+        if (changedRegion != null) {
+            changeLog.addLast(new int[]{version, changedRegion[0], changedRegion[1], changedRegion[2], changedRegion[3]});
+            if (changeLog.size() > MAX_LOGGED_CHANGES) {
+                changeLogStartVersion = changeLog.removeFirst()[0];
+            }
+        }
+    }
+
+    private void invalidate() {
+        version++;
+        walkableCache.clear();
+        flowFields.clear();
+        clearanceField = null;
+    }
+
+    private int[] addObject(Spatial object) {
+        if (undoManager.getFloorCompleteAreas().containsKey(object)) {
+            int[] footprint = floorFootprint((Geometry) object);
+            if (footprint != null) {
+                floorFootprints.put((Geometry) object, footprint);
+            }
+            return null;
+        }
+        if (!isObstacle(object)) {
+            return null;
+        }
+
+        int[] footprint = obstacleFootprint(object);
+        if (footprint != null) {
+            obstacleFootprints.put(object, footprint);
+            addFootprint(footprint, 1);
+        }
+        return footprint;
+    }
+
+    private boolean isObstacle(Spatial object) {
+        return !undoManager.getFloorSegmentDistances().containsKey(object)
+                && !undoManager.getPlainAreaCompleteAreas().containsKey(object)
+                && !undoManager.isFloorRelated(object);
+    }
+
+    // Same footprint the placement and stacking checks see, rasterised to grid cells.
+    private int[] obstacleFootprint(Spatial object) {
+        float[] footprint = undoManager.getFootprintIndex().getFootprint(object);
+        if (footprint == null) {
+            return null;
+        }
+        return clip(toCellX(footprint[0]), toCellZ(footprint[1]), toCellX(footprint[2]), toCellZ(footprint[3]));
+    }
+
+    private int[] floorFootprint(Geometry floor) {
+        List<Vector3f> vertices = undoManager.getCompleteFloorVertices().get(floor);
+        Vector3f center = floorCenter(floor);
+        if (vertices == null || center == null || vertices.size() < 3) {
+            return null;
+        }
+
+        float minX = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (Vector3f vertex : vertices) {
+            minX = Math.min(minX, center.x + vertex.x);
+            minZ = Math.min(minZ, center.z + vertex.z);
+            maxX = Math.max(maxX, center.x + vertex.x);
+            maxZ = Math.max(maxZ, center.z + vertex.z);
+        }
+        return clip(toCellX(minX) - 1, toCellZ(minZ) - 1, toCellX(maxX) + 1, toCellZ(maxZ) + 1);
+    }
+
+    private Vector3f floorCenter(Geometry floor) {
+        Integer floorId = undoManager.getFloorSegmentToFloorId().get(floor);
+        return floorId != null ? undoManager.getCompleteFloorCenters().get(floorId) : null;
+    }
+
+    private void addFootprint(int[] footprint, int delta) {
+        for (int z = footprint[1]; z <= footprint[3]; z++) {
+            int rowStart = z * columns;
+            for (int x = footprint[0]; x <= footprint[2]; x++) {
+                obstacleCounts[rowStart + x] += delta;
+            }
+        }
+    }
+
+    private void rasterizeFloors(int minX, int minZ, int maxX, int maxZ) {
+        for (int z = minZ; z <= maxZ; z++) {
+            for (int x = minX; x <= maxX; x++) {
+                WalkableMap.clear(floorBits, z * columns + x);
+            }
+        }
+
+        for (Map.Entry<Geometry, int[]> entry : floorFootprints.entrySet()) {
+            int[] footprint = entry.getValue();
+            int fromX = Math.max(minX, footprint[0]), toX = Math.min(maxX, footprint[2]);
+            int fromZ = Math.max(minZ, footprint[1]), toZ = Math.min(maxZ, footprint[3]);
+            if (fromX > toX || fromZ > toZ) continue;
+
+            List<Vector3f> vertices = undoManager.getCompleteFloorVertices().get(entry.getKey());
+            Vector3f center = floorCenter(entry.getKey());
+            if (vertices == null || center == null) continue;
+
+            for (int z = fromZ; z <= toZ; z++) {
+                float localZ = z * Grid.GRID_SPACING - rows * Grid.GRID_SPACING / 2f - center.z;
+                for (int x = fromX; x <= toX; x++) {
+                    float localX = x * Grid.GRID_SPACING - columns * Grid.GRID_SPACING / 2f - center.x;
+                    if (isPointInsidePolygon(localX, localZ, vertices)) {
+                        WalkableMap.set(floorBits, z * columns + x);
+                    }
+                }
+            }
+        }
+    }
+
+    private WalkableMap computeWalkable(int clearanceCells) {
+        float[] field = getClearanceField();
+        float threshold = (float) clearanceCells * clearanceCells;
+        long[] bits = WalkableMap.newBits(columns, rows);
+        for (int cell = 0; cell < field.length; cell++) {
+            if (field[cell] > threshold) {
+                WalkableMap.set(bits, cell);
+            }
+        }
+        return new WalkableMap(columns, rows, bits, version);
+    }
+
+    private float[] getClearanceField() {
+        if (clearanceField == null) {
+            clearanceField = computeClearanceField();
+        }
+        return clearanceField;
+    }
+
+    private float[] computeClearanceField() {
+        float[] field = new float[columns * rows];
+        for (int cell = 0; cell < field.length; cell++) {
+            field[cell] = obstacleCounts[cell] > 0 || !WalkableMap.get(floorBits, cell) ? 0f : (float) UNBLOCKED;
+        }
+
+        int length = Math.max(columns, rows);
+        double[] line = new double[length];
+        double[] result = new double[length];
+        int[] vertices = new int[length];
+        double[] boundaries = new double[length + 1];
+
+        for (int x = 0; x < columns; x++) {
+            for (int z = 0; z < rows; z++) {
+                line[z] = field[z * columns + x];
+            }
+            distanceTransform(line, rows, result, vertices, boundaries);
+            for (int z = 0; z < rows; z++) {
+                field[z * columns + x] = (float) result[z];
+            }
+        }
+        for (int z = 0; z < rows; z++) {
+            int rowStart = z * columns;
+            for (int x = 0; x < columns; x++) {
+                line[x] = field[rowStart + x];
+            }
+            distanceTransform(line, columns, result, vertices, boundaries);
+            for (int x = 0; x < columns; x++) {
+                field[rowStart + x] = (float) Math.min(result[x], UNBLOCKED);
+            }
+        }
+        return field;
+    }
+
+    private static void distanceTransform(double[] f, int n, double[] d, int[] v, double[] z) {
+        int k = 0;
+        v[0] = 0;
+        z[0] = -Double.MAX_VALUE;
+        z[1] = Double.MAX_VALUE;
+        for (int q = 1; q < n; q++) {
+            double s = ((f[q] + (double) q * q) - (f[v[k]] + (double) v[k] * v[k])) / (2.0 * q - 2.0 * v[k]);
+            while (s <= z[k]) {
+                k--;
+                s = ((f[q] + (double) q * q) - (f[v[k]] + (double) v[k] * v[k])) / (2.0 * q - 2.0 * v[k]);
+            }
+            k++;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = Double.MAX_VALUE;
+        }
+
+        k = 0;
+        for (int q = 0; q < n; q++) {
+            while (z[k + 1] < q) {
+                k++;
+            }
+            d[q] = (double) (q - v[k]) * (q - v[k]) + f[v[k]];
+        }
+    }
+
+    private int toCellX(float worldX) {
+        return (int) Math.floor((worldX + Grid.GRID_LENGTH * Grid.GRID_SPACING) / Grid.GRID_SPACING);
+    }
+
+    private int toCellZ(float worldZ) {
+        return (int) Math.floor((worldZ + Grid.GRID_WIDTH * Grid.GRID_SPACING) / Grid.GRID_SPACING);
+    }
+
+    private int[] clip(int minX, int minZ, int maxX, int maxZ) {
+        minX = Math.max(0, minX);
+        minZ = Math.max(0, minZ);
+        maxX = Math.min(columns - 1, maxX);
+        maxZ = Math.min(rows - 1, maxZ);
+        if (minX > maxX || minZ > maxZ) {
+            return null;
+        }
+        return new int[]{minX, minZ, maxX, maxZ};
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return new int[]{Math.min(a[0], b[0]), Math.min(a[1], b[1]), Math.max(a[2], b[2]), Math.max(a[3], b[3])};
+    }
+
+    private static boolean isPointInsidePolygon(float px, float pz, List<Vector3f> polygon) {
+        boolean inside = false;
+        int n = polygon.size();
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            Vector3f vi = polygon.get(i);
+            Vector3f vj = polygon.get(j);
+
+            if (px == vi.x && pz == vi.z) {
+                return true;
+            }
+
+            if ((vi.z > pz) != (vj.z > pz)) {
+                double intersect = (vj.x - vi.x) * (pz - vi.z) / (vj.z - vi.z) + vi.x;
+                if (px <= intersect) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    private static final class FlowFieldTask {
+        private final int version;
+        private final CompletableFuture<FlowField> field = new CompletableFuture<>();
+
+        FlowFieldTask(int version) {
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package tech.simulations.pathfinding;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PathCache {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private final Map<Key, int[]> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public PathCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PathCache(int capacity) {
+        this.entries = new LinkedHashMap<Key, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, int[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized int[] get(int start, int end, int clearanceCells, int version, PathFindingMode mode) {
+        int[] path = entries.get(new Key(start, end, clearanceCells, version, mode));
+        if (path == null) {
+            int[] reversePath = entries.get(new Key(end, start, clearanceCells, version, mode));
+            if (reversePath != null) {
+                path = reverse(reversePath);
+                entries.put(new Key(start, end, clearanceCells, version, mode), path);
+            }
+        }
+
+        if (path == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return path;
+    }
+
+    public synchronized void put(int start, int end, int clearanceCells, int version, PathFindingMode mode, int[] path) {
+        entries.put(new Key(start, end, clearanceCells, version, mode), path);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static int[] reverse(int[] path) {
+        int[] reversed = new int[path.length];
+        for (int i = 0; i < path.length; i++) {
+            reversed[i] = path[path.length - 1 - i];
+        }
+        return reversed;
+    }
+
+    private static final class Key {
+        private final int start;
+        private final int end;
+        private final int clearanceCells;
+        private final int version;
+        private final PathFindingMode mode;
+
+        private Key(int start, int end, int clearanceCells, int version, PathFindingMode mode) {
+            this.start = start;
+            this.end = end;
+            this.clearanceCells = clearanceCells;
+            this.version = version;
+            this.mode = mode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return start == key.start && end == key.end && clearanceCells == key.clearanceCells
+                    && version == key.version && mode == key.mode;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(start, end, clearanceCells, version, mode);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package tech.simulations.pathfinding;
+
+public enum PathFindingMode {
+    A_STAR("aStar"),
+    JUMP_POINT_SEARCH("jumpPointSearch"),
+    HIERARCHICAL("hierarchicalSearch"),
+    FLOW_FIELD("flowField");
+
+    private final String bundleKey;
+
+    PathFindingMode(String bundleKey) {
+        this.bundleKey = bundleKey;
+    }
+
+    public String getBundleKey() {
+        return bundleKey;
+    }
+
+    public GridSearch createSearch(NavGrid navGrid, int clearanceCells) {
+        switch (this) {
+            case FLOW_FIELD:
+                return new FlowFieldSearch(navGrid, clearanceCells);
+            case HIERARCHICAL:
+                return new HierarchicalPathFinder(navGrid.getHierarchy(clearanceCells));
+            case JUMP_POINT_SEARCH:
+                return new JumpPointSearch();
+            case A_STAR:
+            default:
+                return new GridAStar();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package tech.simulations.pathfinding;
+
+import java.util.Arrays;
+
+public final class PathSmoother {
+
+    private PathSmoother() {
+    }
+
+    public static int[] smooth(WalkableMap map, int[] cells) {
+        if (cells.length <= 2) {
+            return cells;
+        }
+
+        int columns = map.getColumns();
+        int[] waypoints = new int[cells.length];
+        int count = 0;
+        waypoints[count++] = cells[0];
+
+        int anchor = 0;
+        while (anchor < cells.length - 1) {
+            int next = anchor + 1;
+            while (next + 1 < cells.length && hasLineOfSight(map, cells[anchor], cells[next + 1], columns)) {
+                next++;
+            }
+            waypoints[count++] = cells[next];
+            anchor = next;
+        }
+        return Arrays.copyOf(waypoints, count);
+    }
+
+    public static boolean hasLineOfSight(WalkableMap map, int from, int to, int columns) {
+        int x = from % columns;
+        int z = from / columns;
+        int targetX = to % columns;
+        int targetZ = to / columns;
+
+        int dx = Math.abs(targetX - x);
+        int dz = Math.abs(targetZ - z);
+        int stepX = targetX > x ? 1 : -1;
+        int stepZ = targetZ > z ? 1 : -1;
+        int error = dx - dz;
+        dx *= 2;
+        dz *= 2;
+
+        while (true) {
+            if (!map.isWalkable(x, z)) {
+                return false;
+            }
+            if (x == targetX && z == targetZ) {
+                return true;
+            }
+            if (error > 0) {
+                x += stepX;
+                error -= dz;
+            } else if (error < 0) {
+                z += stepZ;
+                error += dx;
+            } else {
+                if (!map.isWalkable(x + stepX, z) || !map.isWalkable(x, z + stepZ)) {
+                    return false;
+                }
+                x += stepX;
+                z += stepZ;
+                error += dx - dz;
+            }
+        }
+    }
+}
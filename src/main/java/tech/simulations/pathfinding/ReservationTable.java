@@ -0,0 +1,71 @@
+package tech.simulations.pathfinding;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ReservationTable {
+
+    private final Map<Long, Integer> owners = new HashMap<>();
+    private final Map<Integer, List<Long>> keysByAgent = new HashMap<>();
+    // Cell an agent stands on once its reserved window runs out, blocked for every later tick until the agent replans.
+    private final Map<Integer, int[]> parkedCells = new HashMap<>();
+    private final Map<Integer, Integer> parkedByAgent = new HashMap<>();
+
+    public boolean isFree(int cell, int tick, int agent) {
+        int[] parked = parkedCells.get(cell);
+        if (parked != null && parked[0] != agent && tick >= parked[1]) {
+            return false;
+        }
+        Integer owner = owners.get(key(cell, tick));
+        return owner == null || owner == agent;
+    }
+
+    public boolean isFree(int cell, int fromTick, int toTick, int agent) {
+        for (int tick = fromTick; tick <= toTick; tick++) {
+            if (!isFree(cell, tick, agent)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void reserve(int cell, int fromTick, int toTick, int agent) {
+        List<Long> keys = keysByAgent.computeIfAbsent(agent, k -> new ArrayList<>());
+        for (int tick = fromTick; tick <= toTick; tick++) {
+            long key = key(cell, tick);
+            if (owners.putIfAbsent(key, agent) == null) {
+                keys.add(key);
+            }
+        }
+    }
+
+    public void park(int cell, int fromTick, int agent) {
+        if (parkedCells.putIfAbsent(cell, new int[]{agent, fromTick}) == null) {
+            parkedByAgent.put(agent, cell);
+        }
+    }
+
+    public void release(int agent) {
+        Integer parkedCell = parkedByAgent.remove(agent);
+        if (parkedCell != null) {
+            parkedCells.remove(parkedCell);
+        }
+        List<Long> keys = keysByAgent.remove(agent);
+        if (keys == null) {
+            return;
+        }
+        for (long key : keys) {
+            owners.remove(key, agent);
+        }
+    }
+
+    public int size() {
+        return owners.size();
+    }
+
+    private static long key(int cell, int tick) {
+        return ((long) tick << 32) | (cell & 0xffffffffL);
+    }
+}
@@ -0,0 +1,71 @@
+package tech.simulations.pathfinding;
+
+public final class WalkableMap {
+    private final int columns;
+    private final int rows;
+    private final long[] bits;
+    private final int version;
+
+    public WalkableMap(int columns, int rows, long[] bits) {
+        this(columns, rows, bits, 0);
+    }
+
+    public WalkableMap(int columns, int rows, long[] bits, int version) {
+        this.columns = columns;
+        this.rows = rows;
+        this.bits = bits;
+        this.version = version;
+    }
+
+    public static long[] newBits(int columns, int rows) {
+        return new long[(columns * rows + 63) >>> 6];
+    }
+
+    public static void set(long[] bits, int cell) {
+        bits[cell >>> 6] |= 1L << cell;
+    }
+
+    public static void clear(long[] bits, int cell) {
+        bits[cell >>> 6] &= ~(1L << cell);
+    }
+
+    public static boolean get(long[] bits, int cell) {
+        return (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCellCount() {
+        return columns * rows;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public long[] getBits() {
+        return bits;
+    }
+
+    public int cell(int x, int z) {
+        return z * columns + x;
+    }
+
+    public boolean isWalkable(int cell) {
+        return (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public boolean isWalkable(int x, int z) {
+        if (x < 0 || z < 0 || x >= columns || z >= rows) {
+            return false;
+        }
+        int cell = z * columns + x;
+        return (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+}
@@ -0,0 +1,33 @@
+package tech.simulations.picking;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Order lists are CSV rows of order,sku,location where location names a simulation rack; further columns are ignored.
+public class OrderFile {
+    public static List<PickLine> read(File file) throws IOException {
+        List<PickLine> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || (lineNumber == 1 && line.toLowerCase(Locale.ROOT).startsWith("order"))) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length < 3) {
+                    throw new IllegalArgumentException(file + ":" + lineNumber + " expected order,sku,location");
+                }
+                lines.add(new PickLine(fields[0].trim(), fields[1].trim(), fields[2].trim()));
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,25 @@
+package tech.simulations.picking;
+
+public class PickLine {
+    private final String orderId;
+    private final String sku;
+    private final String location; // name of the rack the SKU is picked from
+
+    public PickLine(String orderId, String sku, String location) {
+        this.orderId = orderId;
+        this.sku = sku;
+        this.location = location;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+}
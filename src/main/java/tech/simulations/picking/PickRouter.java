@@ -0,0 +1,242 @@
+package tech.simulations.picking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+// Orders the stops of a picking trip. S-shape and largest-gap walk the aisle structure and pass through the aisle ends
+// they turn at; optimal solves the tour exactly up to EXACT_STOPS stops and by nearest neighbour plus 2-opt beyond.
+// Travel between consecutive nodes is always the walking distance, so the policies compare on the same metric.
+public class PickRouter {
+    private static final int EXACT_STOPS = 10;
+
+    private final PickingLayout layout;
+
+    public PickRouter(PickingLayout layout) {
+        this.layout = layout;
+    }
+
+    // Nodes in walking order for a trip that starts and ends at the given node; every distinct stop appears once.
+    public int[] route(int start, int[] stops, RoutingPolicy policy) {
+        int[] distinct = Arrays.stream(stops).distinct().toArray();
+        if (distinct.length < 2) {
+            return distinct;
+        }
+        switch (policy) {
+            case S_SHAPE:
+                return sShape(start, distinct);
+            case LARGEST_GAP:
+                return largestGap(start, distinct);
+            default:
+                return distinct.length <= EXACT_STOPS ? exactTour(start, distinct) : improvedTour(start, distinct);
+        }
+    }
+
+    public double length(int start, int[] route) {
+        if (route.length == 0) {
+            return 0;
+        }
+        double length = layout.getDistance(start, route[0]);
+        for (int i = 1; i < route.length; i++) {
+            length += layout.getDistance(route[i - 1], route[i]);
+        }
+        return length + layout.getDistance(route[route.length - 1], start);
+    }
+
+    // Stops grouped by aisle, aisles in order away from the start, stops in each aisle from front to back.
+    private List<List<Integer>> byAisle(int start, int[] stops) {
+        TreeMap<Integer, List<Integer>> aisles = new TreeMap<>();
+        for (int stop : stops) {
+            aisles.computeIfAbsent(layout.getAisle(stop), k -> new ArrayList<>()).add(stop);
+        }
+        List<List<Integer>> ordered = new ArrayList<>(aisles.values());
+        for (List<Integer> aisle : ordered) {
+            aisle.sort((a, b) -> Float.compare(layout.getAlong(a), layout.getAlong(b)));
+        }
+        int startAisle = layout.getAisle(start);
+        if (Math.abs(startAisle - aisles.lastKey()) < Math.abs(startAisle - aisles.firstKey())) {
+            Collections.reverse(ordered);
+        }
+        return ordered;
+    }
+
+    // Every aisle with a pick is traversed completely, alternating direction; with an odd number of aisles the last one
+    // is entered from the front and left the same way.
+    private int[] sShape(int start, int[] stops) {
+        List<Integer> route = new ArrayList<>();
+        List<List<Integer>> aisles = byAisle(start, stops);
+        for (int i = 0; i < aisles.size(); i++) {
+            List<Integer> aisle = aisles.get(i);
+            int index = layout.getAisle(aisle.get(0));
+            if (i % 2 == 1) {
+                route.add(layout.getAisleBack(index));
+                for (int j = aisle.size() - 1; j >= 0; j--) {
+                    route.add(aisle.get(j));
+                }
+                route.add(layout.getAisleFront(index));
+            } else {
+                route.add(layout.getAisleFront(index));
+                route.addAll(aisle);
+                route.add(i == aisles.size() - 1 ? layout.getAisleFront(index) : layout.getAisleBack(index));
+            }
+        }
+        return route.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // The first and last aisles are traversed; the others are entered from the back on the way out and from the front on
+    // the way back, each up to its largest gap between picks or aisle ends.
+    private int[] largestGap(int start, int[] stops) {
+        List<List<Integer>> aisles = byAisle(start, stops);
+        List<Integer> route = new ArrayList<>();
+        int last = aisles.size() - 1;
+        int firstIndex = layout.getAisle(aisles.get(0).get(0));
+        route.add(layout.getAisleFront(firstIndex));
+        route.addAll(aisles.get(0));
+        if (last == 0) {
+            route.add(layout.getAisleFront(firstIndex));
+            return route.stream().mapToInt(Integer::intValue).toArray();
+        }
+        route.add(layout.getAisleBack(firstIndex));
+
+        int[] splits = new int[aisles.size()];
+        for (int i = 1; i < last; i++) {
+            List<Integer> aisle = aisles.get(i);
+            splits[i] = gapSplit(aisle);
+            if (splits[i] < aisle.size()) {
+                int back = layout.getAisleBack(layout.getAisle(aisle.get(0)));
+                route.add(back);
+                for (int j = aisle.size() - 1; j >= splits[i]; j--) {
+                    route.add(aisle.get(j));
+                }
+                route.add(back);
+            }
+        }
+        List<Integer> lastAisle = aisles.get(last);
+        int lastIndex = layout.getAisle(lastAisle.get(0));
+        route.add(layout.getAisleBack(lastIndex));
+        for (int j = lastAisle.size() - 1; j >= 0; j--) {
+            route.add(lastAisle.get(j));
+        }
+        route.add(layout.getAisleFront(lastIndex));
+        for (int i = last - 1; i >= 1; i--) {
+            List<Integer> aisle = aisles.get(i);
+            if (splits[i] > 0) {
+                int front = layout.getAisleFront(layout.getAisle(aisle.get(0)));
+                route.add(front);
+                route.addAll(aisle.subList(0, splits[i]));
+                route.add(front);
+            }
+        }
+        return route.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Number of picks taken from the front: those before the largest gap.
+    private int gapSplit(List<Integer> aisle) {
+        int count = aisle.size();
+        int split = count;
+        float largest = layout.getBack() - layout.getAlong(aisle.get(count - 1));
+        float frontGap = layout.getAlong(aisle.get(0)) - layout.getFront();
+        if (frontGap > largest) {
+            largest = frontGap;
+            split = 0;
+        }
+        for (int j = 0; j + 1 < count; j++) {
+            float gap = layout.getAlong(aisle.get(j + 1)) - layout.getAlong(aisle.get(j));
+            if (gap > largest) {
+                largest = gap;
+                split = j + 1;
+            }
+        }
+        return split;
+    }
+
+    // Held-Karp over subsets of stops.
+    private int[] exactTour(int start, int[] stops) {
+        int count = stops.length;
+        int subsets = 1 << count;
+        float[] cost = new float[subsets * count];
+        byte[] previous = new byte[subsets * count];
+        Arrays.fill(cost, Float.POSITIVE_INFINITY);
+        for (int j = 0; j < count; j++) {
+            cost[(1 << j) * count + j] = layout.getDistance(start, stops[j]);
+        }
+        for (int subset = 1; subset < subsets; subset++) {
+            for (int j = 0; j < count; j++) {
+                float current = cost[subset * count + j];
+                if ((subset & (1 << j)) == 0 || current == Float.POSITIVE_INFINITY) {
+                    continue;
+                }
+                for (int k = 0; k < count; k++) {
+                    if ((subset & (1 << k)) != 0) {
+                        continue;
+                    }
+                    int extended = (subset | (1 << k)) * count + k;
+                    float candidate = current + layout.getDistance(stops[j], stops[k]);
+                    if (candidate < cost[extended]) {
+                        cost[extended] = candidate;
+                        previous[extended] = (byte) j;
+                    }
+                }
+            }
+        }
+
+        int full = subsets - 1;
+        int end = 0;
+        for (int j = 1; j < count; j++) {
+            if (cost[full * count + j] + layout.getDistance(stops[j], start) < cost[full * count + end] + layout.getDistance(stops[end], start)) {
+                end = j;
+            }
+        }
+        int[] route = new int[count];
+        for (int subset = full, j = end, i = count - 1; i >= 0; i--) {
+            route[i] = stops[j];
+            int before = previous[subset * count + j];
+            subset &= ~(1 << j);
+            j = before;
+        }
+        return route;
+    }
+
+    private int[] improvedTour(int start, int[] stops) {
+        int count = stops.length;
+        int[] route = new int[count];
+        boolean[] visited = new boolean[count];
+        int current = start;
+        for (int i = 0; i < count; i++) {
+            int nearest = -1;
+            for (int j = 0; j < count; j++) {
+                if (!visited[j] && (nearest < 0 || layout.getDistance(current, stops[j]) < layout.getDistance(current, stops[nearest]))) {
+                    nearest = j;
+                }
+            }
+            visited[nearest] = true;
+            route[i] = stops[nearest];
+            current = stops[nearest];
+        }
+
+        // 2-opt on the closed tour through the start until no reversal shortens it.
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < count - 1; i++) {
+                int before = i == 0 ? start : route[i - 1];
+                for (int j = i + 1; j < count; j++) {
+                    int after = j == count - 1 ? start : route[j + 1];
+                    float delta = layout.getDistance(before, route[j]) + layout.getDistance(route[i], after)
+                            - layout.getDistance(before, route[i]) - layout.getDistance(route[j], after);
+                    if (delta < -1e-3f) {
+                        for (int a = i, b = j; a < b; a++, b--) {
+                            int swap = route[a];
+                            route[a] = route[b];
+                            route[b] = swap;
+                        }
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return route;
+    }
+}
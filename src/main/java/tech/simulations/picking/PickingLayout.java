@@ -0,0 +1,251 @@
+package tech.simulations.picking;
+
+import tech.simulations.pathfinding.DistanceSearch;
+import tech.simulations.pathfinding.GridAStar;
+import tech.simulations.pathfinding.NavGrid;
+import tech.simulations.pathfinding.WalkableMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Pick locations, the depot and the aisle ends as nodes of a walking-distance matrix, plus the aisles the locations
+// line up in. Nodes below getLocationCount() are locations, then come the depot, the aisle fronts and the aisle backs.
+public class PickingLayout {
+    private static final ForkJoinPool DISTANCE_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private static final int AISLE_GAP_CELLS = 2; // aisle centres closer than this are the same aisle
+    private static final float CELL_METRES = 1f / GridAStar.STRAIGHT_COST;
+
+    private final String[] names;
+    private final Map<String, Integer> locations = new HashMap<>();
+    private final int locationCount;
+    private final int nodes;
+    private final float[] distances; // metres, row-major, infinite when unreachable
+    private final int[] aisles; // per node; the depot gets the aisle it is nearest to
+    private final float[] along; // cells along the aisles, growing away from the depot end
+    private final float[] aisleCross; // cells across the aisles, per aisle
+    private final float front;
+    private final float back;
+
+    // Aisles are found first so their ends can join the matrix: S-shape and largest-gap routes turn at aisle ends rather
+    // than cutting across. One distance search per node, spread over the cores; only the matrix is kept, so memory grows
+    // with the square of the nodes rather than with the grid. Distances are symmetric, so with the nodes in cell order
+    // each search only has to reach the nodes after its own, which mostly lie on one side of it.
+    public PickingLayout(WalkableMap map, List<String> locationNames, int[] locationCells, int depotCell) {
+        this.locationCount = locationNames.size();
+        this.names = locationNames.toArray(new String[0]);
+        for (int i = 0; i < locationCount; i++) {
+            locations.putIfAbsent(names[i], i);
+        }
+        int[] placedCells = Arrays.copyOf(locationCells, locationCount + 1);
+        placedCells[locationCount] = depotCell;
+        for (int node = 0; node <= locationCount; node++) {
+            placedCells[node] = NavGrid.nearestWalkable(map, placedCells[node]);
+        }
+
+        // Across an aisle the walkable run through a location ends at the racks on either side, along it only at the far
+        // walls, so the shorter run of most locations gives the aisle direction and its middle the aisle centre.
+        int columns = map.getColumns();
+        float[] xs = new float[locationCount + 1];
+        float[] zs = new float[locationCount + 1];
+        float[] xMiddles = new float[locationCount + 1];
+        float[] zMiddles = new float[locationCount + 1];
+        List<Integer> placed = new ArrayList<>();
+        int alongZVotes = 0;
+        for (int node = 0; node <= locationCount; node++) {
+            int cell = Math.max(placedCells[node], 0);
+            int x = cell % columns;
+            int z = cell / columns;
+            xs[node] = x;
+            zs[node] = z;
+            int left = run(map, x, z, -1, 0);
+            int right = run(map, x, z, 1, 0);
+            int down = run(map, x, z, 0, -1);
+            int up = run(map, x, z, 0, 1);
+            xMiddles[node] = x + (right - left) / 2f;
+            zMiddles[node] = z + (up - down) / 2f;
+            if (node < locationCount && placedCells[node] >= 0) {
+                placed.add(node);
+                alongZVotes += left + right < down + up ? 1 : -1;
+            }
+        }
+        boolean alongZ = alongZVotes >= 0;
+        float[] cross = alongZ ? xMiddles : zMiddles;
+        float[] alongCells = alongZ ? zs : xs;
+
+        List<float[]> bands = clusters(cross, placed);
+        int aisleCount = bands.size();
+        this.aisleCross = new float[aisleCount];
+        for (int aisle = 0; aisle < aisleCount; aisle++) {
+            aisleCross[aisle] = (bands.get(aisle)[0] + bands.get(aisle)[1]) / 2;
+        }
+
+        float min = alongCells[locationCount];
+        float max = min;
+        if (!placed.isEmpty()) {
+            min = Float.POSITIVE_INFINITY;
+            max = Float.NEGATIVE_INFINITY;
+            for (int node : placed) {
+                min = Math.min(min, alongCells[node]);
+                max = Math.max(max, alongCells[node]);
+            }
+        }
+        // The aisle end nearer the depot is the front; mirroring keeps "front" the smaller coordinate.
+        boolean mirrored = Math.abs(alongCells[locationCount] - max) < Math.abs(alongCells[locationCount] - min);
+
+        this.nodes = locationCount + 1 + 2 * aisleCount;
+        int[] cells = Arrays.copyOf(placedCells, nodes);
+        this.aisles = new int[nodes];
+        this.along = new float[nodes];
+        for (int node = 0; node <= locationCount; node++) {
+            aisles[node] = nearestAisle(cross[node]);
+            along[node] = mirrored ? -alongCells[node] : alongCells[node];
+        }
+        for (int aisle = 0; aisle < aisleCount; aisle++) {
+            int crossCell = Math.round(aisleCross[aisle]);
+            for (int end = 0; end < 2; end++) {
+                int node = end == 0 ? getAisleFront(aisle) : getAisleBack(aisle);
+                int alongCell = (int) ((end == 0) != mirrored ? min : max);
+                cells[node] = NavGrid.nearestWalkable(map, alongZ ? map.cell(crossCell, alongCell) : map.cell(alongCell, crossCell));
+                aisles[node] = aisle;
+                along[node] = mirrored ? -alongCell : alongCell;
+            }
+        }
+        this.front = mirrored ? -max : min;
+        this.back = mirrored ? -min : max;
+
+        int[] order = new int[nodes];
+        long[] keys = new long[nodes];
+        for (int node = 0; node < nodes; node++) {
+            keys[node] = ((long) cells[node] << 32) | node;
+        }
+        Arrays.sort(keys);
+        int[] orderedCells = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            order[i] = (int) keys[i];
+            orderedCells[i] = cells[order[i]];
+        }
+
+        this.distances = new float[nodes * nodes];
+        // One search per chunk of sources, dropped with the chunk; sources are dealt out in turn because later ones have
+        // fewer targets left.
+        int chunks = Math.max(1, Math.min(nodes, DISTANCE_POOL.getParallelism()));
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            int chunk = c;
+            tasks.add(DISTANCE_POOL.submit(() -> {
+                DistanceSearch search = new DistanceSearch(map, orderedCells);
+                for (int first = chunk; first < nodes; first += chunks) {
+                    search.run(orderedCells[first], first);
+                    int from = order[first];
+                    for (int j = first; j < nodes; j++) {
+                        int distance = search.getDistance(orderedCells[j]);
+                        float metres = distance >= 0 ? distance * CELL_METRES : Float.POSITIVE_INFINITY;
+                        distances[from * nodes + order[j]] = metres;
+                        distances[order[j] * nodes + from] = metres;
+                    }
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    // Walkable cells from (x, z) in one direction, not counting the cell itself.
+    private static int run(WalkableMap map, int x, int z, int dx, int dz) {
+        int length = 0;
+        while (map.isWalkable(x + (length + 1) * dx, z + (length + 1) * dz)) {
+            length++;
+        }
+        return length;
+    }
+
+    // Ranges of coordinates separated by more than AISLE_GAP_CELLS, in ascending order.
+    private static List<float[]> clusters(float[] coordinates, List<Integer> nodes) {
+        float[] sorted = new float[nodes.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = coordinates[nodes.get(i)];
+        }
+        Arrays.sort(sorted);
+        List<float[]> ranges = new ArrayList<>();
+        for (float value : sorted) {
+            if (ranges.isEmpty() || value - ranges.get(ranges.size() - 1)[1] > AISLE_GAP_CELLS) {
+                ranges.add(new float[]{value, value});
+            } else {
+                ranges.get(ranges.size() - 1)[1] = value;
+            }
+        }
+        return ranges;
+    }
+
+    private int nearestAisle(float cross) {
+        int nearest = 0;
+        for (int aisle = 1; aisle < aisleCross.length; aisle++) {
+            if (Math.abs(aisleCross[aisle] - cross) < Math.abs(aisleCross[nearest] - cross)) {
+                nearest = aisle;
+            }
+        }
+        return nearest;
+    }
+
+    // Location node for a rack name, -1 if there is none.
+    public int indexOf(String name) {
+        Integer index = locations.get(name);
+        return index != null ? index : -1;
+    }
+
+    public boolean isReachable(int location) {
+        return Float.isFinite(getDistance(getDepot(), location));
+    }
+
+    public float getDistance(int from, int to) {
+        return distances[from * nodes + to];
+    }
+
+    public int getLocationCount() {
+        return locationCount;
+    }
+
+    public int getDepot() {
+        return locationCount;
+    }
+
+    // Node where the aisle meets the front cross aisle.
+    public int getAisleFront(int aisle) {
+        return locationCount + 1 + aisle;
+    }
+
+    public int getAisleBack(int aisle) {
+        return locationCount + 1 + aisleCross.length + aisle;
+    }
+
+    public String getName(int location) {
+        return names[location];
+    }
+
+    public int getAisleCount() {
+        return aisleCross.length;
+    }
+
+    // Aisles are numbered in order across the layout.
+    public int getAisle(int node) {
+        return aisles[node];
+    }
+
+    public float getAlong(int node) {
+        return along[node];
+    }
+
+    public float getFront() {
+        return front;
+    }
+
+    public float getBack() {
+        return back;
+    }
+}
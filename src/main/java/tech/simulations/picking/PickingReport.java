@@ -0,0 +1,88 @@
+package tech.simulations.picking;
+
+import java.util.ResourceBundle;
+
+public class PickingReport {
+    private final PickingStrategy strategy;
+    private final RoutingPolicy routing;
+    private final int pickers;
+    private final int orders;
+    private final int pickedLines;
+    private final int skippedLines;
+    private final int trips;
+    private final double travelDistance;
+    private final double makespan;
+    private final long routingTimeNanos;
+
+    public PickingReport(PickingStrategy strategy, RoutingPolicy routing, int pickers, int orders, int pickedLines, int skippedLines,
+                         int trips, double travelDistance, double makespan, long routingTimeNanos) {
+        this.strategy = strategy;
+        this.routing = routing;
+        this.pickers = pickers;
+        this.orders = orders;
+        this.pickedLines = pickedLines;
+        this.skippedLines = skippedLines;
+        this.trips = trips;
+        this.travelDistance = travelDistance;
+        this.makespan = makespan;
+        this.routingTimeNanos = routingTimeNanos;
+    }
+
+    public PickingStrategy getStrategy() {
+        return strategy;
+    }
+
+    public RoutingPolicy getRouting() {
+        return routing;
+    }
+
+    public int getPickers() {
+        return pickers;
+    }
+
+    public int getOrders() {
+        return orders;
+    }
+
+    public int getPickedLines() {
+        return pickedLines;
+    }
+
+    // Lines whose location is not a reachable simulation rack.
+    public int getSkippedLines() {
+        return skippedLines;
+    }
+
+    public int getTrips() {
+        return trips;
+    }
+
+    public double getTravelDistance() {
+        return travelDistance;
+    }
+
+    public double getTravelPerOrder() {
+        return orders > 0 ? travelDistance / orders : 0;
+    }
+
+    // Time until the last picker finishes.
+    public double getMakespan() {
+        return makespan;
+    }
+
+    public double getPicksPerHour() {
+        return makespan > 0 ? pickedLines * 3600.0 / makespan : 0;
+    }
+
+    public long getRoutingTimeNanos() {
+        return routingTimeNanos;
+    }
+
+    public String format(ResourceBundle bundle) {
+        return bundle.getString(strategy.getBundleKey()) + ", " + bundle.getString(routing.getBundleKey()) + ": "
+                + bundle.getString("picksPerHour") + " " + String.format("%.1f", getPicksPerHour()) + ", "
+                + bundle.getString("travelPerOrder") + " " + String.format("%.1f", getTravelPerOrder()) + " m, "
+                + bundle.getString("pickingTrips") + " " + trips + ", "
+                + bundle.getString("simulatedTime") + " " + String.format("%.1f", makespan) + " s";
+    }
+}
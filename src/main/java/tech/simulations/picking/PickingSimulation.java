@@ -0,0 +1,231 @@
+package tech.simulations.picking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Picks an order list with a team of pickers. Orders keep their file order; a trip's time is its walk plus a fixed
+// time per line, and each trip goes to the picker who is free first.
+public class PickingSimulation {
+    private static final int BATCH_WINDOW = 100; // orders looked ahead when filling a batch
+
+    private final PickingLayout layout;
+    private final PickRouter router;
+    private final List<int[]> orders = new ArrayList<>(); // location node of every line
+    private final int pickedLines;
+    private final int skippedLines;
+    private final int pickers;
+    private final double pickerSpeed;
+    private final double pickTime;
+    private final int batchSize;
+
+    public PickingSimulation(PickingLayout layout, List<PickLine> lines, int pickers, double pickerSpeed, double pickTime, int batchSize) {
+        this.layout = layout;
+        this.router = new PickRouter(layout);
+        this.pickers = pickers;
+        this.pickerSpeed = pickerSpeed;
+        this.pickTime = pickTime;
+        this.batchSize = batchSize;
+
+        Map<String, List<Integer>> linesByOrder = new LinkedHashMap<>();
+        int skipped = 0;
+        for (PickLine line : lines) {
+            int location = layout.indexOf(line.getLocation());
+            if (location < 0 || !layout.isReachable(location)) {
+                skipped++;
+                continue;
+            }
+            linesByOrder.computeIfAbsent(line.getOrderId(), k -> new ArrayList<>()).add(location);
+        }
+        for (List<Integer> order : linesByOrder.values()) {
+            orders.add(order.stream().mapToInt(Integer::intValue).toArray());
+        }
+        this.pickedLines = lines.size() - skipped;
+        this.skippedLines = skipped;
+    }
+
+    public PickingReport run(PickingStrategy strategy, RoutingPolicy routing) {
+        List<Trip> trips;
+        switch (strategy) {
+            case BATCH:
+                trips = batchTrips();
+                break;
+            case ZONE:
+                trips = zoneTrips();
+                break;
+            default:
+                trips = new ArrayList<>(orders.size());
+                for (int[] order : orders) {
+                    trips.add(new Trip(layout.getDepot(), order, -1));
+                }
+        }
+
+        long routingStart = System.nanoTime();
+        double travel = 0;
+        double[] pickerFree = new double[pickers];
+        for (Trip trip : trips) {
+            double length = router.length(trip.start, router.route(trip.start, trip.stops, routing));
+            travel += length;
+            int picker = trip.picker;
+            if (picker < 0) {
+                picker = 0;
+                for (int i = 1; i < pickers; i++) {
+                    if (pickerFree[i] < pickerFree[picker]) {
+                        picker = i;
+                    }
+                }
+            }
+            pickerFree[picker] += length / pickerSpeed + trip.stops.length * pickTime;
+        }
+        long routingTime = System.nanoTime() - routingStart;
+        double makespan = Arrays.stream(pickerFree).max().orElse(0);
+        return new PickingReport(strategy, routing, pickers, orders.size(), pickedLines, skippedLines, trips.size(), travel, makespan, routingTime);
+    }
+
+    // Seed batching: the oldest open order starts a batch, which is filled with the orders from the look-ahead window that add
+    // the fewest new aisles, then the fewest new locations.
+    private List<Trip> batchTrips() {
+        List<Trip> trips = new ArrayList<>();
+        boolean[] batched = new boolean[orders.size()];
+        BitSet aisles = new BitSet(layout.getAisleCount());
+        BitSet locations = new BitSet(layout.getLocationCount());
+        int first = 0;
+        while (first < orders.size()) {
+            aisles.clear();
+            locations.clear();
+            List<Integer> stops = new ArrayList<>();
+            int seed = first;
+            for (int size = 0; size < batchSize && seed >= 0; size++) {
+                batched[seed] = true;
+                for (int location : orders.get(seed)) {
+                    stops.add(location);
+                    aisles.set(layout.getAisle(location));
+                    locations.set(location);
+                }
+                if (size + 1 == batchSize) {
+                    break;
+                }
+
+                seed = -1;
+                long bestScore = Long.MAX_VALUE;
+                for (int i = first, looked = 0; i < orders.size() && looked < BATCH_WINDOW; i++) {
+                    if (batched[i]) {
+                        continue;
+                    }
+                    looked++;
+                    long score = score(orders.get(i), aisles, locations);
+                    if (score < bestScore) {
+                        bestScore = score;
+                        seed = i;
+                    }
+                }
+            }
+            trips.add(new Trip(layout.getDepot(), stops.stream().mapToInt(Integer::intValue).toArray(), -1));
+            while (first < orders.size() && batched[first]) {
+                first++;
+            }
+        }
+        return trips;
+    }
+
+    private long score(int[] order, BitSet aisles, BitSet locations) {
+        int newAisles = 0;
+        int newLocations = 0;
+        for (int location : order) {
+            if (!aisles.get(layout.getAisle(location))) {
+                newAisles++;
+            }
+            if (!locations.get(location)) {
+                newLocations++;
+            }
+        }
+        return ((long) newAisles << 32) | newLocations;
+    }
+
+    // Aisles are split into one run of neighbouring aisles per picker with about the same number of lines. Each order is
+    // picked in every zone it touches, from the zone's location nearest the depot, where totes go onto the conveyor.
+    private List<Trip> zoneTrips() {
+        int[] aisleLines = new int[layout.getAisleCount()];
+        int usedAisles = 0;
+        for (int[] order : orders) {
+            for (int location : order) {
+                if (aisleLines[layout.getAisle(location)]++ == 0) {
+                    usedAisles++;
+                }
+            }
+        }
+        int zones = Math.max(1, Math.min(pickers, usedAisles));
+        int[] aisleZone = new int[aisleLines.length];
+        int zone = 0;
+        long cumulative = 0;
+        int remainingAisles = usedAisles;
+        for (int aisle = 0; aisle < aisleLines.length; aisle++) {
+            aisleZone[aisle] = zone;
+            if (aisleLines[aisle] == 0) {
+                continue;
+            }
+            cumulative += aisleLines[aisle];
+            remainingAisles--;
+            if (zone < zones - 1 && (cumulative * zones >= (long) pickedLines * (zone + 1) || remainingAisles == zones - 1 - zone)) {
+                zone++;
+            }
+        }
+
+        int[] dropPoints = new int[zones];
+        Arrays.fill(dropPoints, -1);
+        for (int[] order : orders) {
+            for (int location : order) {
+                int z = aisleZone[layout.getAisle(location)];
+                if (dropPoints[z] < 0 || layout.getDistance(layout.getDepot(), location) < layout.getDistance(layout.getDepot(), dropPoints[z])) {
+                    dropPoints[z] = location;
+                }
+            }
+        }
+
+        List<Trip> trips = new ArrayList<>();
+        int[] zoneCount = new int[zones];
+        for (int[] order : orders) {
+            Arrays.fill(zoneCount, 0);
+            for (int location : order) {
+                zoneCount[aisleZone[layout.getAisle(location)]]++;
+            }
+            for (int z = 0; z < zones; z++) {
+                if (zoneCount[z] == 0) {
+                    continue;
+                }
+                int[] stops = new int[zoneCount[z]];
+                int next = 0;
+                for (int location : order) {
+                    if (aisleZone[layout.getAisle(location)] == z) {
+                        stops[next++] = location;
+                    }
+                }
+                trips.add(new Trip(dropPoints[z], stops, z));
+            }
+        }
+        return trips;
+    }
+
+    public int getOrderCount() {
+        return orders.size();
+    }
+
+    public int getSkippedLines() {
+        return skippedLines;
+    }
+
+    private static class Trip {
+        final int start;
+        final int[] stops;
+        final int picker; // fixed picker, -1 for whoever is free first
+
+        Trip(int start, int[] stops, int picker) {
+            this.start = start;
+            this.stops = stops;
+            this.picker = picker;
+        }
+    }
+}
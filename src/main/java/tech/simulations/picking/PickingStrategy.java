@@ -0,0 +1,17 @@
+package tech.simulations.picking;
+
+public enum PickingStrategy {
+    DISCRETE("discretePicking"),
+    BATCH("batchPicking"),
+    ZONE("zonePicking");
+
+    private final String bundleKey;
+
+    PickingStrategy(String bundleKey) {
+        this.bundleKey = bundleKey;
+    }
+
+    public String getBundleKey() {
+        return bundleKey;
+    }
+}
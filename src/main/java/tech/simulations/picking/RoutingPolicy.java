@@ -0,0 +1,17 @@
+package tech.simulations.picking;
+
+public enum RoutingPolicy {
+    S_SHAPE("sShapeRouting"),
+    LARGEST_GAP("largestGapRouting"),
+    OPTIMAL("optimalRouting");
+
+    private final String bundleKey;
+
+    RoutingPolicy(String bundleKey) {
+        this.bundleKey = bundleKey;
+    }
+
+    public String getBundleKey() {
+        return bundleKey;
+    }
+}
@@ -0,0 +1,107 @@
+package tech.simulations.storage;
+
+import tech.simulations.pathfinding.CellHeap;
+
+import java.util.Arrays;
+
+// Min-cost max-flow by successive shortest paths; Dijkstra runs on costs reduced by node potentials.
+// Costs are integers so reduced costs stay exact.
+public class MinCostFlow {
+    private static final long UNREACHED = Long.MAX_VALUE / 4;
+
+    private final int nodes;
+    private int[] firstEdge;
+    private int[] nextEdge = new int[16];
+    private int[] target = new int[16];
+    private int[] capacity = new int[16];
+    private long[] cost = new long[16];
+    private int edges;
+
+    public MinCostFlow(int nodes) {
+        this.nodes = nodes;
+        this.firstEdge = new int[nodes];
+        Arrays.fill(firstEdge, -1);
+    }
+
+    // Returns the edge id; its reverse residual edge is id ^ 1.
+    public int addEdge(int from, int to, int edgeCapacity, long edgeCost) {
+        if (edges + 2 > target.length) {
+            int size = target.length * 2;
+            nextEdge = Arrays.copyOf(nextEdge, size);
+            target = Arrays.copyOf(target, size);
+            capacity = Arrays.copyOf(capacity, size);
+            cost = Arrays.copyOf(cost, size);
+        }
+        int id = edges;
+        link(id, from, to, edgeCapacity, edgeCost);
+        link(id + 1, to, from, 0, -edgeCost);
+        edges += 2;
+        return id;
+    }
+
+    private void link(int id, int from, int to, int edgeCapacity, long edgeCost) {
+        target[id] = to;
+        capacity[id] = edgeCapacity;
+        cost[id] = edgeCost;
+        nextEdge[id] = firstEdge[from];
+        firstEdge[from] = id;
+    }
+
+    // Pushes as much flow as possible from source to sink at the least total cost; returns the flow.
+    // Edge costs must not be negative.
+    public int solve(int source, int sink) {
+        long[] potential = new long[nodes];
+        long[] distance = new long[nodes];
+        int[] viaEdge = new int[nodes];
+        CellHeap heap = new CellHeap();
+        heap.ensureCapacity(nodes);
+        int flow = 0;
+        while (true) {
+            Arrays.fill(distance, UNREACHED);
+            distance[source] = 0;
+            heap.insertOrUpdate(source, 0);
+            while (!heap.isEmpty()) {
+                int node = heap.pop();
+                if (node == sink) {
+                    heap.clear();
+                    break;
+                }
+                for (int edge = firstEdge[node]; edge >= 0; edge = nextEdge[edge]) {
+                    if (capacity[edge] == 0) {
+                        continue;
+                    }
+                    int next = target[edge];
+                    long candidate = distance[node] + cost[edge] + potential[node] - potential[next];
+                    if (candidate < distance[next]) {
+                        distance[next] = candidate;
+                        viaEdge[next] = edge;
+                        heap.insertOrUpdate(next, candidate);
+                    }
+                }
+            }
+            if (distance[sink] == UNREACHED) {
+                return flow;
+            }
+            // The search stops at the sink; capping at its distance covers the unsettled nodes and keeps every residual
+            // reduced cost non-negative for the next round.
+            for (int node = 0; node < nodes; node++) {
+                potential[node] += Math.min(distance[node], distance[sink]);
+            }
+
+            int push = Integer.MAX_VALUE;
+            for (int node = sink; node != source; node = target[viaEdge[node] ^ 1]) {
+                push = Math.min(push, capacity[viaEdge[node]]);
+            }
+            for (int node = sink; node != source; node = target[viaEdge[node] ^ 1]) {
+                capacity[viaEdge[node]] -= push;
+                capacity[viaEdge[node] ^ 1] += push;
+            }
+            flow += push;
+        }
+    }
+
+    // Flow on an edge returned by addEdge once solved.
+    public int getFlow(int edge) {
+        return capacity[edge ^ 1];
+    }
+}
@@ -0,0 +1,18 @@
+package tech.simulations.storage;
+
+public enum PutAwayPolicy {
+    CLOSEST_OPEN_SLOT("closestOpenSlot"),
+    ABC_ZONING("abcZoning"),
+    WEIGHT_BALANCING("weightBalancing"),
+    OPTIMAL_WAVE("optimalWave");
+
+    private final String bundleKey;
+
+    PutAwayPolicy(String bundleKey) {
+        this.bundleKey = bundleKey;
+    }
+
+    public String getBundleKey() {
+        return bundleKey;
+    }
+}
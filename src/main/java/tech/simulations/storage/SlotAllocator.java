@@ -0,0 +1,614 @@
+package tech.simulations.storage;
+
+import tech.simulations.Pallet;
+import tech.simulations.pathfinding.CellHeap;
+import tech.tags.RackSettings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Occupancy of a SlotLayout during one run and the put-away decisions made against it.
+public class SlotAllocator {
+    public static final int CLASS_A = 0;
+    public static final int CLASS_B = 1;
+    public static final int CLASS_C = 2;
+
+    // Cumulative velocity shares that close the A and B classes.
+    private static final double A_SHARE = 0.8;
+    private static final double B_SHARE = 0.95;
+    private static final long RATIO_SCALE = 1_000_000;
+    private static final int WAVE_ROUNDS = 4;
+    private static final int WEIGHT_BANDS = 4;
+
+    private final SlotLayout layout;
+    private final PutAwayPolicy policy;
+    private final BitSet occupied;
+    private final double[] shelfLoad;
+    private final int[] shelfFree;
+    private final double[] rackLoad;
+    private final int[] rackFree;
+    private final int[] zoneStart = new int[3];
+    private final int[] zoneEnd = new int[3];
+    // Max segment tree over slots in cost order: a leaf holds the weight its slot could still take, -1 once occupied,
+    // so the cheapest slot for a pallet is found in O(log slots) however many slots are filled or overloaded.
+    private double[] roomTree;
+    private int leaves;
+    private CellHeap rackHeap;
+    private int[] rackRank;
+    private int[] skippedRacks;
+    private int occupiedSlots;
+
+    public SlotAllocator(SlotLayout layout, PutAwayPolicy policy) {
+        this.layout = layout;
+        this.policy = policy;
+        this.occupied = new BitSet(layout.getSlotCount());
+        this.shelfLoad = new double[layout.getShelfCount()];
+        this.shelfFree = new int[layout.getShelfCount()];
+        this.rackLoad = new double[layout.getRackCount()];
+        this.rackFree = new int[layout.getRackCount()];
+        for (int shelf = 0; shelf < layout.getShelfCount(); shelf++) {
+            shelfFree[shelf] = layout.getSlotEnd(shelf) - layout.getFirstSlot(shelf);
+            rackFree[layout.getShelfRack(shelf)] += shelfFree[shelf];
+        }
+        // Until pallets are classified there is a single zone covering every slot.
+        zoneEnd[CLASS_A] = zoneEnd[CLASS_B] = zoneEnd[CLASS_C] = layout.getSlotCount();
+
+        if (policy == PutAwayPolicy.WEIGHT_BALANCING) {
+            initRackHeap();
+        } else {
+            initRoomTree();
+        }
+    }
+
+    // Slot for every pallet in list order, -1 where none is left.
+    public int[] assignAll(List<Pallet> pallets) {
+        if (policy == PutAwayPolicy.OPTIMAL_WAVE) {
+            // Weight limits make the plan a heuristic, so the greedy plan is kept when it stores more or travels less.
+            SlotAllocator greedy = new SlotAllocator(layout, PutAwayPolicy.CLOSEST_OPEN_SLOT);
+            greedy.copyState(this);
+            int[] greedySlots = greedy.assignAll(pallets);
+            int[] slots = assignWave(pallets);
+            if (isBetter(greedySlots, slots)) {
+                copyState(greedy);
+                return greedySlots;
+            }
+            return slots;
+        }
+        int[] velocityClasses = classify(pallets);
+        int[] slots = new int[pallets.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = assign(pallets.get(i), velocityClasses[i]);
+        }
+        return slots;
+    }
+
+    // ABC classes by cumulative share of velocity; the cheapest slots become the A zone, sized to the A pallets, then B, then C.
+    // Without any velocities every pallet is class A and the zones collapse to closest-open-slot.
+    public int[] classify(List<Pallet> pallets) {
+        int count = pallets.size();
+        int[] classes = new int[count];
+        double total = 0;
+        for (Pallet pallet : pallets) {
+            total += Math.max(0, pallet.getVelocity());
+        }
+        if (total <= 0 || count == 0) {
+            return classes;
+        }
+
+        List<Integer> order = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> Double.compare(pallets.get(b).getVelocity(), pallets.get(a).getVelocity()));
+        int[] classSizes = new int[3];
+        double cumulative = 0;
+        for (int index : order) {
+            int velocityClass = cumulative < A_SHARE * total ? CLASS_A : cumulative < B_SHARE * total ? CLASS_B : CLASS_C;
+            classes[index] = velocityClass;
+            classSizes[velocityClass]++;
+            cumulative += Math.max(0, pallets.get(index).getVelocity());
+        }
+
+        if (policy == PutAwayPolicy.ABC_ZONING) {
+            int slots = layout.getSlotCount();
+            zoneEnd[CLASS_A] = zoneStart[CLASS_B] = (int) Math.round((double) slots * classSizes[CLASS_A] / count);
+            zoneEnd[CLASS_B] = zoneStart[CLASS_C] = (int) Math.round((double) slots * (classSizes[CLASS_A] + classSizes[CLASS_B]) / count);
+            zoneEnd[CLASS_C] = slots;
+        }
+        return classes;
+    }
+
+    // Occupies a slot for the pallet and returns it, or -1 if no open slot can take it.
+    public int assign(Pallet pallet, int velocityClass) {
+        int slot;
+        switch (policy) {
+            case ABC_ZONING:
+                slot = assignInZones(pallet, velocityClass);
+                break;
+            case WEIGHT_BALANCING:
+                slot = assignBalanced(pallet);
+                break;
+            default:
+                slot = assignInZone(pallet, CLASS_A);
+                break;
+        }
+        if (slot >= 0) {
+            occupy(slot, pallet.getWeight());
+        }
+        return slot;
+    }
+
+    // Own zone first, then the slower zones, then the faster ones from the slowest inwards.
+    private int assignInZones(Pallet pallet, int velocityClass) {
+        for (int zone = velocityClass; zone <= CLASS_C; zone++) {
+            int slot = assignInZone(pallet, zone);
+            if (slot >= 0) {
+                return slot;
+            }
+        }
+        for (int zone = velocityClass - 1; zone >= CLASS_A; zone--) {
+            int slot = assignInZone(pallet, zone);
+            if (slot >= 0) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int assignInZone(Pallet pallet, int zone) {
+        int from = zoneStart[zone];
+        while (from < zoneEnd[zone]) {
+            int rank = firstWithRoom(1, 0, leaves, from, zoneEnd[zone], pallet.getWeight());
+            if (rank < 0) {
+                return -1;
+            }
+            int slot = layout.getSlotByCost(rank);
+            if (fitsRack(pallet, layout.getRackSettings(layout.getSlotRack(slot)))) {
+                return slot;
+            }
+            from = rank + 1;
+        }
+        return -1;
+    }
+
+    // Lowest rank in [from, to) under the node whose room is at least the weight, or -1.
+    private int firstWithRoom(int node, int nodeFrom, int nodeTo, int from, int to, double weight) {
+        if (nodeTo <= from || to <= nodeFrom || roomTree[node] < weight) {
+            return -1;
+        }
+        if (nodeTo - nodeFrom == 1) {
+            return nodeFrom;
+        }
+        int middle = (nodeFrom + nodeTo) >>> 1;
+        int rank = firstWithRoom(2 * node, nodeFrom, middle, from, to, weight);
+        return rank >= 0 ? rank : firstWithRoom(2 * node + 1, middle, nodeTo, from, to, weight);
+    }
+
+    private void initRoomTree() {
+        leaves = 1;
+        while (leaves < layout.getSlotCount()) {
+            leaves <<= 1;
+        }
+        roomTree = new double[2 * leaves];
+        Arrays.fill(roomTree, -1);
+        for (int rank = 0; rank < layout.getSlotCount(); rank++) {
+            roomTree[leaves + rank] = room(layout.getSlotByCost(rank));
+        }
+        for (int node = leaves - 1; node > 0; node--) {
+            roomTree[node] = Math.max(roomTree[2 * node], roomTree[2 * node + 1]);
+        }
+    }
+
+    private void updateRoom(int slot) {
+        int node = leaves + layout.getSlotRank(slot);
+        roomTree[node] = room(slot);
+        for (node >>>= 1; node > 0; node >>>= 1) {
+            roomTree[node] = Math.max(roomTree[2 * node], roomTree[2 * node + 1]);
+        }
+    }
+
+    private double room(int slot) {
+        if (occupied.get(slot)) {
+            return -1;
+        }
+        return shelfRoom(layout.getSlotShelf(slot));
+    }
+
+    // The whole wave as a transportation problem: pallets that fit the same kinds of rack and fall in the same weight band
+    // form one source, shelves are sinks with their open positions as capacity, and min-cost max-flow stores as many pallets
+    // as possible at the least total cost. Cost depends only on the shelf, so each source only needs its cheapest usable
+    // shelves with room for the whole wave. A source may only use shelves whose remaining weight room takes its heaviest
+    // pallet; since several pallets can still overfill a shelf or rack together, those are planned again in another round
+    // against the updated loads, and whatever is left goes to the closest open slot.
+    private int[] assignWave(List<Pallet> pallets) {
+        int[] slots = new int[pallets.size()];
+        Arrays.fill(slots, -1);
+
+        Map<String, Integer> rackTypes = new HashMap<>();
+        List<RackSettings> typeSettings = new ArrayList<>();
+        int[] rackType = new int[layout.getRackCount()];
+        for (int rack = 0; rack < rackType.length; rack++) {
+            RackSettings settings = layout.getRackSettings(rack);
+            String key = settings.getHeight() + "|" + settings.getWidth() / Math.max(1, settings.getPositionsPerShelf()) + "|" + settings.getDepth()
+                    + "|" + settings.getPerShelfCapacity() + "|" + settings.getTotalCapacity();
+            Integer type = rackTypes.get(key);
+            if (type == null) {
+                type = typeSettings.size();
+                rackTypes.put(key, type);
+                typeSettings.add(settings);
+            }
+            rackType[rack] = type;
+        }
+
+        List<Integer> remaining = new ArrayList<>();
+        BitSet[] palletTypes = new BitSet[pallets.size()];
+        for (int i = 0; i < pallets.size(); i++) {
+            Pallet pallet = pallets.get(i);
+            palletTypes[i] = new BitSet(typeSettings.size());
+            for (int type = 0; type < typeSettings.size(); type++) {
+                RackSettings settings = typeSettings.get(type);
+                if (fitsRack(pallet, settings) && pallet.getWeight() <= settings.getPerShelfCapacity() && pallet.getWeight() <= settings.getTotalCapacity()) {
+                    palletTypes[i].set(type);
+                }
+            }
+            if (!palletTypes[i].isEmpty()) {
+                remaining.add(i);
+            }
+        }
+
+        for (int round = 0; round < WAVE_ROUNDS && !remaining.isEmpty(); round++) {
+            List<Integer> leftovers = planWave(pallets, remaining, palletTypes, rackType, slots);
+            if (leftovers.size() == remaining.size()) {
+                break;
+            }
+            remaining = leftovers;
+        }
+        remaining.sort(null);
+        for (int index : remaining) {
+            slots[index] = assign(pallets.get(index), CLASS_A);
+        }
+        improve(pallets, slots);
+        return slots;
+    }
+
+    // The flow packs by slot count and only estimates weight, so it can leave cheap slots open that a lighter pallet fits.
+    // Moves pallets, most expensive first, into the cheapest open slot that takes them; each move only lowers the cost.
+    private void improve(List<Pallet> pallets, int[] slots) {
+        List<Integer> placed = new ArrayList<>();
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] >= 0) {
+                placed.add(i);
+            }
+        }
+        placed.sort((a, b) -> Integer.compare(layout.getSlotRank(slots[b]), layout.getSlotRank(slots[a])));
+        for (int index : placed) {
+            Pallet pallet = pallets.get(index);
+            int current = slots[index];
+            release(current, pallet.getWeight());
+            int from = 0;
+            int target = current;
+            while (from < layout.getSlotRank(current)) {
+                int rank = firstWithRoom(1, 0, leaves, from, layout.getSlotRank(current), pallet.getWeight());
+                if (rank < 0) {
+                    break;
+                }
+                int slot = layout.getSlotByCost(rank);
+                if (fitsRack(pallet, layout.getRackSettings(layout.getSlotRack(slot)))) {
+                    target = slot;
+                    break;
+                }
+                from = rank + 1;
+            }
+            slots[index] = target;
+            occupy(target, pallet.getWeight());
+        }
+    }
+
+    // One min-cost flow round over the given pallets; occupies the slots it can and returns the pallets it could not place.
+    private List<Integer> planWave(List<Pallet> pallets, List<Integer> wave, BitSet[] palletTypes, int[] rackType, int[] slots) {
+        double[] weights = new double[wave.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = pallets.get(wave.get(i)).getWeight();
+        }
+        Arrays.sort(weights);
+        double meanWeight = 0;
+        for (double weight : weights) {
+            meanWeight += weight / weights.length;
+        }
+        meanWeight = Math.max(meanWeight, 1e-9);
+        double[] bandLimits = new double[WEIGHT_BANDS];
+        for (int band = 0; band < WEIGHT_BANDS; band++) {
+            bandLimits[band] = weights[Math.min(weights.length - 1, (band + 1) * weights.length / WEIGHT_BANDS)];
+        }
+
+        Map<BitSet, Integer> classIds = new HashMap<>();
+        List<BitSet> classTypes = new ArrayList<>();
+        List<List<Integer>> classPallets = new ArrayList<>();
+        List<Double> classWeights = new ArrayList<>();
+        for (int index : wave) {
+            double weight = pallets.get(index).getWeight();
+            int band = 0;
+            while (band < WEIGHT_BANDS - 1 && weight > bandLimits[band]) {
+                band++;
+            }
+            // The band is kept in the bits past the rack types.
+            BitSet key = (BitSet) palletTypes[index].clone();
+            key.set(rackType.length + band);
+            Integer id = classIds.get(key);
+            if (id == null) {
+                id = classTypes.size();
+                classIds.put(key, id);
+                classTypes.add(palletTypes[index]);
+                classPallets.add(new ArrayList<>());
+                classWeights.add(0.0);
+            }
+            classPallets.get(id).add(index);
+            classWeights.set(id, Math.max(classWeights.get(id), weight));
+        }
+
+        int classCount = classTypes.size();
+        List<int[]> classShelves = new ArrayList<>(classCount);
+        int[] shelfNode = new int[layout.getShelfCount()];
+        Arrays.fill(shelfNode, -1);
+        int[] collectedBy = new int[layout.getShelfCount()];
+        Arrays.fill(collectedBy, -1);
+        int nodes = 2 + classCount;
+        for (int c = 0; c < classCount; c++) {
+            BitSet types = classTypes.get(c);
+            double heaviest = classWeights.get(c);
+            int[] shelves = new int[layout.getShelfCount()];
+            int count = 0;
+            int positions = 0;
+            for (int rank = 0; rank < layout.getSlotCount() && positions < wave.size(); rank++) {
+                int shelf = layout.getSlotShelf(layout.getSlotByCost(rank));
+                if (collectedBy[shelf] == c || shelfFree[shelf] == 0 || !types.get(rackType[layout.getShelfRack(shelf)])
+                        || shelfRoom(shelf) < heaviest) {
+                    continue;
+                }
+                collectedBy[shelf] = c;
+                shelves[count++] = shelf;
+                positions += shelfFree[shelf];
+                if (shelfNode[shelf] < 0) {
+                    shelfNode[shelf] = nodes++;
+                }
+            }
+            classShelves.add(Arrays.copyOf(shelves, count));
+        }
+
+        int[] rackNode = new int[layout.getRackCount()];
+        Arrays.fill(rackNode, -1);
+        for (int shelf = 0; shelf < shelfNode.length; shelf++) {
+            int rack = layout.getShelfRack(shelf);
+            if (shelfNode[shelf] >= 0 && rackNode[rack] < 0) {
+                rackNode[rack] = nodes++;
+            }
+        }
+
+        int source = 0;
+        int sink = 1;
+        MinCostFlow network = new MinCostFlow(nodes);
+        List<int[]> classEdges = new ArrayList<>(classCount);
+        for (int c = 0; c < classCount; c++) {
+            int size = classPallets.get(c).size();
+            network.addEdge(source, 2 + c, size, 0);
+            int[] shelves = classShelves.get(c);
+            int[] edges = new int[shelves.length];
+            for (int j = 0; j < shelves.length; j++) {
+                long cost = Math.round(layout.getSlotCost(layout.getFirstSlot(shelves[j])) * 1000.0); // millimetres
+                edges[j] = network.addEdge(2 + c, shelfNode[shelves[j]], Math.min(size, shelfFree[shelves[j]]), cost);
+            }
+            classEdges.add(edges);
+        }
+        // Shelves drain through their rack, and both only take as many average pallets as their weight room allows.
+        for (int shelf = 0; shelf < shelfNode.length; shelf++) {
+            if (shelfNode[shelf] >= 0) {
+                network.addEdge(shelfNode[shelf], rackNode[layout.getShelfRack(shelf)],
+                        Math.max(1, Math.min(shelfFree[shelf], (int) (shelfRoom(shelf) / meanWeight))), 0);
+            }
+        }
+        for (int rack = 0; rack < rackNode.length; rack++) {
+            if (rackNode[rack] >= 0) {
+                network.addEdge(rackNode[rack], sink, Math.max(1, Math.min(rackFree[rack],
+                        (int) ((layout.getRackSettings(rack).getTotalCapacity() - rackLoad[rack]) / meanWeight))), 0);
+            }
+        }
+        network.solve(source, sink);
+
+        // Heaviest pallets of a class pick first among the shelves the flow gave it.
+        List<Integer> leftovers = new ArrayList<>();
+        for (int c = 0; c < classCount; c++) {
+            int[] shelves = classShelves.get(c);
+            int[] quota = new int[shelves.length];
+            for (int j = 0; j < shelves.length; j++) {
+                quota[j] = network.getFlow(classEdges.get(c)[j]);
+            }
+            List<Integer> members = classPallets.get(c);
+            members.sort((a, b) -> Double.compare(pallets.get(b).getWeight(), pallets.get(a).getWeight()));
+            for (int index : members) {
+                Pallet pallet = pallets.get(index);
+                for (int j = 0; j < shelves.length && slots[index] < 0; j++) {
+                    int slot = occupied.nextClearBit(layout.getFirstSlot(shelves[j]));
+                    if (quota[j] > 0 && slot < layout.getSlotEnd(shelves[j]) && pallet.getWeight() <= shelfRoom(shelves[j])) {
+                        quota[j]--;
+                        slots[index] = slot;
+                        occupy(slot, pallet.getWeight());
+                    }
+                }
+                if (slots[index] < 0) {
+                    leftovers.add(index);
+                }
+            }
+        }
+        return leftovers;
+    }
+
+    // Least loaded rack (by share of its weight capacity) that can take the pallet, nearer racks first on ties;
+    // inside it the least loaded shelf, lower shelves first, so heavy loads spread out and stay low.
+    private int assignBalanced(Pallet pallet) {
+        int skipped = 0;
+        int slot = -1;
+        while (!rackHeap.isEmpty()) {
+            int rack = rackHeap.pop();
+            slot = balancedSlot(pallet, rack);
+            skippedRacks[skipped++] = rack;
+            if (slot >= 0) {
+                break;
+            }
+        }
+        // Every popped rack goes back with its load, the chosen one including this pallet; occupy() drops it once full.
+        for (int i = 0; i < skipped; i++) {
+            int rack = skippedRacks[i];
+            if (rackFree[rack] > 0) {
+                rackHeap.insertOrUpdate(rack, rackKey(rack, slot >= 0 && layout.getSlotRack(slot) == rack ? pallet.getWeight() : 0));
+            }
+        }
+        return slot;
+    }
+
+    private int balancedSlot(Pallet pallet, int rack) {
+        RackSettings settings = layout.getRackSettings(rack);
+        if (!fitsRack(pallet, settings) || rackLoad[rack] + pallet.getWeight() > settings.getTotalCapacity()) {
+            return -1;
+        }
+        int bestShelf = -1;
+        for (int shelf = layout.getFirstShelf(rack); shelf < layout.getShelfEnd(rack); shelf++) {
+            if (shelfFree[shelf] > 0 && shelfLoad[shelf] + pallet.getWeight() <= settings.getPerShelfCapacity()
+                    && (bestShelf < 0 || shelfLoad[shelf] < shelfLoad[bestShelf])) {
+                bestShelf = shelf;
+            }
+        }
+        if (bestShelf < 0) {
+            return -1;
+        }
+        int slot = occupied.nextClearBit(layout.getFirstSlot(bestShelf));
+        return slot < layout.getSlotEnd(bestShelf) ? slot : -1;
+    }
+
+    private void initRackHeap() {
+        int racks = layout.getRackCount();
+        // Ranks by distance make the heap key break load ties towards the nearer rack.
+        List<Integer> order = new ArrayList<>(racks);
+        for (int rack = 0; rack < racks; rack++) {
+            order.add(rack);
+        }
+        order.sort((a, b) -> Double.compare(layout.getRackDistance(a), layout.getRackDistance(b)));
+        rackRank = new int[racks];
+        for (int rank = 0; rank < racks; rank++) {
+            rackRank[order.get(rank)] = rank;
+        }
+        skippedRacks = new int[racks];
+        rackHeap = new CellHeap();
+        rackHeap.ensureCapacity(racks);
+        for (int rack = 0; rack < racks; rack++) {
+            if (rackFree[rack] > 0) {
+                rackHeap.insertOrUpdate(rack, rackKey(rack, 0));
+            }
+        }
+    }
+
+    private long rackKey(int rack, double addedWeight) {
+        double capacity = layout.getRackSettings(rack).getTotalCapacity();
+        double ratio = capacity > 0 ? Math.min(1, (rackLoad[rack] + addedWeight) / capacity) : 1;
+        return ((long) (ratio * RATIO_SCALE) << 24) | rackRank[rack];
+    }
+
+    // Weight the shelf can still take within its own and its rack's capacity.
+    private double shelfRoom(int shelf) {
+        int rack = layout.getShelfRack(shelf);
+        RackSettings settings = layout.getRackSettings(rack);
+        return Math.min(settings.getPerShelfCapacity() - shelfLoad[shelf], settings.getTotalCapacity() - rackLoad[rack]);
+    }
+
+    // A position gets an equal share of the rack width.
+    private static boolean fitsRack(Pallet pallet, RackSettings settings) {
+        return pallet.getHeight() <= settings.getHeight()
+                && pallet.getWidth() <= settings.getWidth() / Math.max(1, settings.getPositionsPerShelf())
+                && pallet.getDepth() <= settings.getDepth();
+    }
+
+    private void occupy(int slot, double weight) {
+        int shelf = layout.getSlotShelf(slot);
+        int rack = layout.getShelfRack(shelf);
+        occupied.set(slot);
+        occupiedSlots++;
+        shelfLoad[shelf] += weight;
+        shelfFree[shelf]--;
+        rackLoad[rack] += weight;
+        rackFree[rack]--;
+        if (rackHeap != null && rackFree[rack] == 0) {
+            rackHeap.remove(rack);
+        }
+        updateRackRooms(rack);
+    }
+
+    // The rack load bounds every slot of the rack, not only those of the shelf that changed.
+    private void updateRackRooms(int rack) {
+        if (roomTree != null) {
+            for (int slot = layout.getFirstSlot(layout.getFirstShelf(rack)); slot < layout.getSlotEnd(layout.getShelfEnd(rack) - 1); slot++) {
+                updateRoom(slot);
+            }
+        }
+    }
+
+    private void release(int slot, double weight) {
+        int shelf = layout.getSlotShelf(slot);
+        int rack = layout.getShelfRack(shelf);
+        occupied.clear(slot);
+        occupiedSlots--;
+        shelfLoad[shelf] -= weight;
+        shelfFree[shelf]++;
+        rackLoad[rack] -= weight;
+        rackFree[rack]++;
+        updateRackRooms(rack);
+    }
+
+    // More pallets stored wins, then the lower total slot cost.
+    private boolean isBetter(int[] slots, int[] than) {
+        int stored = 0;
+        double cost = 0;
+        for (int slot : slots) {
+            if (slot >= 0) {
+                stored++;
+                cost += layout.getSlotCost(slot);
+            }
+        }
+        for (int slot : than) {
+            if (slot >= 0) {
+                stored--;
+                cost -= layout.getSlotCost(slot);
+            }
+        }
+        return stored != 0 ? stored > 0 : cost < 0;
+    }
+
+    private void copyState(SlotAllocator other) {
+        occupied.clear();
+        occupied.or(other.occupied);
+        occupiedSlots = other.occupiedSlots;
+        System.arraycopy(other.shelfLoad, 0, shelfLoad, 0, shelfLoad.length);
+        System.arraycopy(other.shelfFree, 0, shelfFree, 0, shelfFree.length);
+        System.arraycopy(other.rackLoad, 0, rackLoad, 0, rackLoad.length);
+        System.arraycopy(other.rackFree, 0, rackFree, 0, rackFree.length);
+        initRoomTree();
+    }
+
+    public SlotLayout getLayout() {
+        return layout;
+    }
+
+    public int getOccupiedSlots() {
+        return occupiedSlots;
+    }
+
+    public boolean isOccupied(int slot) {
+        return occupied.get(slot);
+    }
+
+    public double getRackLoad(int rack) {
+        return rackLoad[rack];
+    }
+}
@@ -0,0 +1,188 @@
+package tech.simulations.storage;
+
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Spatial;
+import tech.tags.RackSettings;
+import ui.Grid;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Every storage position of the simulation racks (rack × shelf × position) flattened into parallel arrays.
+// Immutable once built; occupancy lives in SlotAllocator so concurrent runs can share one layout.
+public class SlotLayout {
+    private final Spatial[] racks;
+    private final RackSettings[] rackSettings;
+    private final double[] rackDistance; // metres from the dock
+    private final int[] rackFirstShelf;
+    private final int[] shelfRack;
+    private final int[] shelfLevel;
+    private final double[] shelfHeight; // metres above the floor
+    private final int[] shelfFirstSlot;
+    private final int[] slotShelf;
+    private final float[] slotCost;
+    private final int[] slotsByCost;
+    private final int[] slotRanks;
+
+    // Racks without a route from the dock get no slots.
+    public SlotLayout(Map<Spatial, RackSettings> racks, Map<Spatial, List<Vector3f>> pathsToRacks) {
+        int rackCount = 0;
+        int shelfCount = 0;
+        int slotCount = 0;
+        for (Map.Entry<Spatial, RackSettings> entry : racks.entrySet()) {
+            if (isReachable(pathsToRacks.get(entry.getKey()))) {
+                RackSettings settings = entry.getValue();
+                rackCount++;
+                shelfCount += Math.max(0, settings.getShelves());
+                slotCount += Math.max(0, settings.getShelves()) * Math.max(0, settings.getPositionsPerShelf());
+            }
+        }
+
+        this.racks = new Spatial[rackCount];
+        this.rackSettings = new RackSettings[rackCount];
+        this.rackDistance = new double[rackCount];
+        this.rackFirstShelf = new int[rackCount + 1];
+        this.shelfRack = new int[shelfCount];
+        this.shelfLevel = new int[shelfCount];
+        this.shelfHeight = new double[shelfCount];
+        this.shelfFirstSlot = new int[shelfCount + 1];
+        this.slotShelf = new int[slotCount];
+        this.slotCost = new float[slotCount];
+
+        int rack = 0;
+        int shelf = 0;
+        int slot = 0;
+        for (Map.Entry<Spatial, RackSettings> entry : racks.entrySet()) {
+            List<Vector3f> path = pathsToRacks.get(entry.getKey());
+            if (!isReachable(path)) {
+                System.out.println("No valid path found to rack: " + entry.getKey().getName());
+                continue;
+            }
+            RackSettings settings = entry.getValue();
+            this.racks[rack] = entry.getKey();
+            this.rackSettings[rack] = settings;
+            this.rackDistance[rack] = pathLength(path);
+            rackFirstShelf[rack] = shelf;
+            double levelHeight = settings.getShelves() > 0 ? settings.getHeight() / settings.getShelves() : 0;
+            for (int level = 0; level < settings.getShelves(); level++) {
+                shelfRack[shelf] = rack;
+                shelfLevel[shelf] = level;
+                shelfHeight[shelf] = level * levelHeight;
+                shelfFirstSlot[shelf] = slot;
+                for (int position = 0; position < settings.getPositionsPerShelf(); position++) {
+                    slotShelf[slot] = shelf;
+                    // A metre of lift is counted like a metre of travel.
+                    slotCost[slot] = (float) (rackDistance[rack] + shelfHeight[shelf]);
+                    slot++;
+                }
+                shelf++;
+            }
+            rack++;
+        }
+        rackFirstShelf[rackCount] = shelf;
+        shelfFirstSlot[shelfCount] = slot;
+
+        // Costs are non-negative, so their float bits sort in the same order; the slot index breaks ties.
+        long[] keys = new long[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            keys[i] = ((long) Float.floatToIntBits(slotCost[i]) << 32) | i;
+        }
+        Arrays.sort(keys);
+        this.slotsByCost = new int[slotCount];
+        this.slotRanks = new int[slotCount];
+        for (int rank = 0; rank < slotCount; rank++) {
+            slotsByCost[rank] = (int) keys[rank];
+            slotRanks[slotsByCost[rank]] = rank;
+        }
+    }
+
+    private static boolean isReachable(List<Vector3f> path) {
+        return path != null && !path.isEmpty();
+    }
+
+    private static double pathLength(List<Vector3f> path) {
+        double length = 0;
+        for (int i = 1; i < path.size(); i++) {
+            length += path.get(i - 1).distance(path.get(i));
+        }
+        return length / Grid.GRID_SPACING;
+    }
+
+    public int getRackCount() {
+        return racks.length;
+    }
+
+    public int getShelfCount() {
+        return shelfRack.length;
+    }
+
+    public int getSlotCount() {
+        return slotShelf.length;
+    }
+
+    public Spatial getRack(int rack) {
+        return racks[rack];
+    }
+
+    public RackSettings getRackSettings(int rack) {
+        return rackSettings[rack];
+    }
+
+    public double getRackDistance(int rack) {
+        return rackDistance[rack];
+    }
+
+    public int getFirstShelf(int rack) {
+        return rackFirstShelf[rack];
+    }
+
+    public int getShelfEnd(int rack) {
+        return rackFirstShelf[rack + 1];
+    }
+
+    public int getShelfRack(int shelf) {
+        return shelfRack[shelf];
+    }
+
+    public int getShelfLevel(int shelf) {
+        return shelfLevel[shelf];
+    }
+
+    public double getShelfHeight(int shelf) {
+        return shelfHeight[shelf];
+    }
+
+    public int getFirstSlot(int shelf) {
+        return shelfFirstSlot[shelf];
+    }
+
+    public int getSlotEnd(int shelf) {
+        return shelfFirstSlot[shelf + 1];
+    }
+
+    public int getSlotShelf(int slot) {
+        return slotShelf[slot];
+    }
+
+    public int getSlotRack(int slot) {
+        return shelfRack[slotShelf[slot]];
+    }
+
+    public int getSlotPosition(int slot) {
+        return slot - shelfFirstSlot[slotShelf[slot]];
+    }
+
+    public float getSlotCost(int slot) {
+        return slotCost[slot];
+    }
+
+    // Slot with the given rank when all slots are ordered from cheapest to most expensive.
+    public int getSlotByCost(int rank) {
+        return slotsByCost[rank];
+    }
+
+    public int getSlotRank(int slot) {
+        return slotRanks[slot];
+    }
+}
@@ -13,6 +13,7 @@ public class RackSettings {
     private int shelves;
     private int perShelfCapacity;
     private int totalCapacity;
+    private int positionsPerShelf = 1;
     private List<Pallet> storedPallets = new ArrayList<>();
 
     public RackSettings(double height, double width, double depth, int shelves, int perShelfCapacity, int totalCapacity) {
@@ -24,6 +25,11 @@ public class RackSettings {
         this.totalCapacity = totalCapacity;
     }
 
+    public RackSettings(double height, double width, double depth, int shelves, int perShelfCapacity, int totalCapacity, int positionsPerShelf) {
+        this(height, width, depth, shelves, perShelfCapacity, totalCapacity);
+        this.positionsPerShelf = positionsPerShelf;
+    }
+
     public double getHeight() {
         return height;
     }
@@ -72,6 +78,14 @@ public class RackSettings {
         this.totalCapacity = totalCapacity;
     }
 
+    public int getPositionsPerShelf() {
+        return positionsPerShelf;
+    }
+
+    public void setPositionsPerShelf(int positionsPerShelf) {
+        this.positionsPerShelf = positionsPerShelf;
+    }
+
     public boolean addPallet(Pallet pallet) {
         if (canFitPallet(pallet)) {
             storedPallets.add(pallet);
@@ -99,6 +113,7 @@ public class RackSettings {
                 "Width: " + width + " cm\n" +
                 "Depth: " + depth + " cm\n" +
                 "Number of Shelves: " + shelves + "\n" +
+                "Positions Per Shelf: " + positionsPerShelf + "\n" +
                 "Per Shelf Capacity: " + perShelfCapacity + " kg\n" +
                 "Total Rack Capacity: " + totalCapacity + " kg";
     }
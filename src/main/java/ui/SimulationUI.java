@@ -2,33 +2,53 @@ package ui;
 
 import UndoRedo.UndoManager;
 import com.jme3.scene.Geometry;
+import tech.simulations.DistanceHeatMap;
+import tech.simulations.DispatchPolicy;
 import tech.simulations.Forklift;
 import tech.simulations.Pallet;
+import tech.simulations.PalletVariation;
 import tech.simulations.SimulationManager;
+import tech.simulations.SimulationReport;
+import tech.simulations.pathfinding.NavGrid;
+import tech.simulations.pathfinding.PathFindingMode;
+import tech.simulations.picking.OrderFile;
+import tech.simulations.picking.PickLine;
+import tech.simulations.picking.PickingReport;
+import tech.simulations.storage.PutAwayPolicy;
 import tech.WareSkladInit;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class SimulationUI {
+    private static final double DEFAULT_SIZE_VARIATION = 0.05;
+    private static final double DEFAULT_TIME_VARIATION = 0.2;
+    private static final double DEFAULT_PICKER_SPEED = 1.0; // m/s
+    private static final double DEFAULT_PICK_TIME = 10; // s per line
+    private static final int DEFAULT_BATCH_SIZE = 4;
     private ResourceBundle bundle;
     private UndoManager undoManager;
     private DefaultListModel<String> availablePalletsModel = new DefaultListModel<>();
     private SimulationManager simulationManager;
     private Map<String, Pallet> palletMap = new HashMap<>();
     private DefaultListModel<Forklift> forkliftModel = new DefaultListModel<>();
-    private JComboBox<Forklift> forkliftDropdown;
+    private JList<Forklift> fleetList;
     private WareSkladInit jmeScene;
+    private DistanceHeatMap distanceHeatMap;
 
     public void setupSimulation(UndoManager undoManager, ResourceBundle bundle, WareSkladInit jmeScene) {
         this.undoManager = undoManager;
         this.bundle = bundle;
         this.jmeScene = jmeScene;
         this.simulationManager = new SimulationManager(jmeScene, 2);
+        this.distanceHeatMap = new DistanceHeatMap(jmeScene);
     }
 
     public void openSimulationFrame() {
@@ -68,21 +88,27 @@ public class SimulationUI {
             String id = JOptionPane.showInputDialog(simulationFrame, bundle.getString("enterForkliftId"));
             String capacity = JOptionPane.showInputDialog(simulationFrame, bundle.getString("enterMaxWeightCapacity"));
             String speed = JOptionPane.showInputDialog(simulationFrame, bundle.getString("enterSpeed"));
+            String forkliftWidth = JOptionPane.showInputDialog(simulationFrame, bundle.getString("enterForkliftWidth"), Forklift.DEFAULT_WIDTH);
 
-            if (id != null && capacity != null && speed != null) {
+            if (id != null && capacity != null && speed != null && forkliftWidth != null) {
                 try {
                     double capacityValue = validateAndFormatFloatInput(capacity);
                     double speedValue = validateAndFormatFloatInput(speed);
+                    double widthValue = validateAndFormatFloatInput(forkliftWidth);
 
-                    if (capacityValue < 0 || speedValue < 0) {
+                    if (capacityValue < 0 || speedValue < 0 || widthValue < 0) {
                         JOptionPane.showMessageDialog(simulationFrame, bundle.getString("invalidInput"), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
                         return;
                     }
+                    for (int i = 0; i < forkliftModel.size(); i++) {
+                        if (forkliftModel.getElementAt(i).getId().equals(id)) {
+                            JOptionPane.showMessageDialog(simulationFrame, bundle.getString("duplicateForkliftId"), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
+                            return;
+                        }
+                    }
 
-                    Forklift forklift = new Forklift(id, capacityValue, speedValue);
+                    Forklift forklift = new Forklift(id, capacityValue, speedValue, widthValue);
                     forkliftModel.addElement(forklift);
-
-                    updateForkliftDropdown(forkliftDropdown);
                 } catch (NumberFormatException ex) {
                     JOptionPane.showMessageDialog(simulationFrame, bundle.getString("invalidInput"), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
                 }
@@ -94,7 +120,6 @@ public class SimulationUI {
             Forklift selected = forkliftList.getSelectedValue();
             if (selected != null) {
                 forkliftModel.removeElement(selected);
-                updateForkliftDropdown(forkliftDropdown);
             }
         });
 
@@ -271,11 +296,11 @@ public class SimulationUI {
             }
         });
 
-        JLabel forkliftLabel = new JLabel(bundle.getString("selectForklift"));
-        forkliftDropdown = new JComboBox<>();
-        updateForkliftDropdown(forkliftDropdown);
-
-        forkliftDropdown.setRenderer(new DefaultListCellRenderer() {
+        JLabel forkliftLabel = new JLabel(bundle.getString("selectForklifts"));
+        fleetList = new JList<>(forkliftModel);
+        fleetList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        fleetList.setVisibleRowCount(3);
+        fleetList.setCellRenderer(new DefaultListCellRenderer() {
             @Override
             public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
                 super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
@@ -292,12 +317,81 @@ public class SimulationUI {
         JLabel avoidanceDistanceLabel = new JLabel(bundle.getString("avoidanceDistance"));
         JTextField avoidanceDistanceField = new JTextField("2", 5);
 
+        JLabel pathFindingModeLabel = new JLabel(bundle.getString("pathFindingMode"));
+        JComboBox<PathFindingMode> pathFindingModeDropdown = new JComboBox<>(PathFindingMode.values());
+        pathFindingModeDropdown.setSelectedItem(PathFindingMode.FLOW_FIELD);
+        pathFindingModeDropdown.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                if (value instanceof PathFindingMode) {
+                    setText(bundle.getString(((PathFindingMode) value).getBundleKey()));
+                }
+                return this;
+            }
+        });
+
         northPanel.add(receivingAreaLabel);
         northPanel.add(receivingAreaDropdown);
         northPanel.add(forkliftLabel);
-        northPanel.add(forkliftDropdown);
+        northPanel.add(new JScrollPane(fleetList));
         northPanel.add(avoidanceDistanceLabel);
         northPanel.add(avoidanceDistanceField);
+        northPanel.add(pathFindingModeLabel);
+        northPanel.add(pathFindingModeDropdown);
+
+        JLabel dispatchPolicyLabel = new JLabel(bundle.getString("dispatchPolicy"));
+        JComboBox<DispatchPolicy> dispatchPolicyDropdown = new JComboBox<>(DispatchPolicy.values());
+        dispatchPolicyDropdown.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                if (value instanceof DispatchPolicy) {
+                    setText(bundle.getString(((DispatchPolicy) value).getBundleKey()));
+                }
+                return this;
+            }
+        });
+        northPanel.add(dispatchPolicyLabel);
+        northPanel.add(dispatchPolicyDropdown);
+
+        JLabel putAwayPolicyLabel = new JLabel(bundle.getString("putAwayPolicy"));
+        JComboBox<PutAwayPolicy> putAwayPolicyDropdown = new JComboBox<>(PutAwayPolicy.values());
+        putAwayPolicyDropdown.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                if (value instanceof PutAwayPolicy) {
+                    setText(bundle.getString(((PutAwayPolicy) value).getBundleKey()));
+                }
+                return this;
+            }
+        });
+        northPanel.add(putAwayPolicyLabel);
+        northPanel.add(putAwayPolicyDropdown);
+
+        JLabel reservationWindowLabel = new JLabel(bundle.getString("reservationWindow"));
+        JTextField reservationWindowField = new JTextField("0", 5);
+        northPanel.add(reservationWindowLabel);
+        northPanel.add(reservationWindowField);
+
+        JLabel randomSeedLabel = new JLabel(bundle.getString("randomSeed"));
+        JTextField randomSeedField = new JTextField("", 8);
+        northPanel.add(randomSeedLabel);
+        northPanel.add(randomSeedField);
+
+        JCheckBox recordEventLogCheckBox = new JCheckBox(bundle.getString("recordEventLog"));
+        northPanel.add(recordEventLogCheckBox);
+
+        JLabel playbackSpeedLabel = new JLabel(bundle.getString("playbackSpeed"));
+        JTextField playbackSpeedField = new JTextField("10", 5);
+        northPanel.add(playbackSpeedLabel);
+        northPanel.add(playbackSpeedField);
+
+        JLabel pickersLabel = new JLabel(bundle.getString("pickers"));
+        JTextField pickersField = new JTextField("2", 5);
+        northPanel.add(pickersLabel);
+        northPanel.add(pickersField);
 
         panel.add(northPanel, BorderLayout.NORTH);
 
@@ -357,8 +451,8 @@ public class SimulationUI {
                 errorMessage.append(bundle.getString("noPalletSelected")).append("\n");
             }
 
-            Forklift selectedForklift = (Forklift) forkliftDropdown.getSelectedItem();
-            if (selectedForklift == null) {
+            List<Forklift> selectedFleet = fleetList.getSelectedValuesList();
+            if (selectedFleet.isEmpty()) {
                 isValid = false;
                 errorMessage.append(bundle.getString("noForkliftSelected")).append("\n");
             }
@@ -375,6 +469,40 @@ public class SimulationUI {
                 errorMessage.append(bundle.getString("invalidAvoidanceDistance")).append("\n");
             }
 
+            double playbackSpeed = 0;
+            try {
+                playbackSpeed = Double.parseDouble(playbackSpeedField.getText().replaceAll(",", "."));
+                if (playbackSpeed < 0) {
+                    isValid = false;
+                    errorMessage.append(bundle.getString("invalidPlaybackSpeed")).append("\n");
+                }
+            } catch (NumberFormatException ex) {
+                isValid = false;
+                errorMessage.append(bundle.getString("invalidPlaybackSpeed")).append("\n");
+            }
+
+            int reservationWindow = 0;
+            try {
+                reservationWindow = Integer.parseInt(reservationWindowField.getText().trim());
+                if (reservationWindow < 0) {
+                    isValid = false;
+                    errorMessage.append(bundle.getString("invalidReservationWindow")).append("\n");
+                }
+            } catch (NumberFormatException ex) {
+                isValid = false;
+                errorMessage.append(bundle.getString("invalidReservationWindow")).append("\n");
+            }
+
+            Long randomSeed = null;
+            if (!randomSeedField.getText().trim().isEmpty()) {
+                try {
+                    randomSeed = Long.parseLong(randomSeedField.getText().trim());
+                } catch (NumberFormatException ex) {
+                    isValid = false;
+                    errorMessage.append(bundle.getString("invalidRandomSeed")).append("\n");
+                }
+            }
+
             if (isValid) {
                 List<Pallet> selectedPallets = new ArrayList<>();
                 double totalWeight = 0;
@@ -386,29 +514,183 @@ public class SimulationUI {
                     }
                 }
 
-                if (selectedForklift.getMaxWeightCapacity() < totalWeight) {
+                double fleetCapacity = 0;
+                for (Forklift forklift : selectedFleet) {
+                    fleetCapacity += forklift.getMaxWeightCapacity();
+                }
+                if (fleetCapacity < totalWeight) {
                     JOptionPane.showMessageDialog(simulationFrame, bundle.getString("forkliftCapacityExceeded"), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
                     return;
                 }
 
-                simulationManager = new SimulationManager(jmeScene, avoidanceDistance);
-                simulationManager.startReceivingSimulation(selectedArea, selectedPallets, selectedForklift);
-                simulationFrame.dispose();
+                PathFindingMode pathFindingMode = (PathFindingMode) pathFindingModeDropdown.getSelectedItem();
+                simulationManager = new SimulationManager(jmeScene, avoidanceDistance, pathFindingMode);
+                simulationManager.setReservationWindow(reservationWindow);
+                simulationManager.setPutAwayPolicy((PutAwayPolicy) putAwayPolicyDropdown.getSelectedItem());
+                if (randomSeed != null) {
+                    simulationManager.setVariation(new PalletVariation(DEFAULT_SIZE_VARIATION, DEFAULT_TIME_VARIATION), randomSeed);
+                }
+                if (recordEventLogCheckBox.isSelected()) {
+                    JFileChooser fileChooser = new JFileChooser();
+                    fileChooser.setSelectedFile(new File("simulation.events"));
+                    if (fileChooser.showSaveDialog(simulationFrame) != JFileChooser.APPROVE_OPTION) {
+                        return;
+                    }
+                    simulationManager.setEventLogFile(fileChooser.getSelectedFile());
+                }
+                DispatchPolicy dispatchPolicy = (DispatchPolicy) dispatchPolicyDropdown.getSelectedItem();
+                double selectedPlaybackSpeed = playbackSpeed;
+                startSimulationButton.setEnabled(false);
+                simulationFrame.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+
+                new SwingWorker<SimulationReport, Void>() {
+                    @Override
+                    protected SimulationReport doInBackground() {
+                        return simulationManager.startReceivingSimulation(selectedArea, selectedPallets, selectedFleet, dispatchPolicy, selectedPlaybackSpeed);
+                    }
+
+                    @Override
+                    protected void done() {
+                        simulationFrame.dispose();
+                        try {
+                            JOptionPane.showMessageDialog(null, get().format(bundle), bundle.getString("simulationResults"), JOptionPane.INFORMATION_MESSAGE);
+                        } catch (InterruptedException | ExecutionException ex) {
+                            JOptionPane.showMessageDialog(null, ex.getMessage(), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
+                        }
+                    }
+                }.execute();
             } else {
                 JOptionPane.showMessageDialog(simulationFrame, errorMessage.toString(), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
             }
         });
 
-        panel.add(startSimulationButton, BorderLayout.SOUTH);
+        JToggleButton heatMapButton = new JToggleButton(bundle.getString("distanceHeatMap"));
+        heatMapButton.addActionListener(e -> {
+            if (!heatMapButton.isSelected()) {
+                distanceHeatMap.hide();
+                return;
+            }
 
-        return panel;
-    }
+            Geometry selectedArea = (Geometry) receivingAreaDropdown.getSelectedItem();
+            if (selectedArea == null) {
+                heatMapButton.setSelected(false);
+                JOptionPane.showMessageDialog(simulationFrame, bundle.getString("areaNotSelected"), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
+                return;
+            }
 
-    private void updateForkliftDropdown(JComboBox<Forklift> forkliftDropdown) {
-        forkliftDropdown.removeAllItems();
-        for (int i = 0; i < forkliftModel.size(); i++) {
-            forkliftDropdown.addItem(forkliftModel.getElementAt(i));
-        }
+            float avoidanceDistance;
+            try {
+                avoidanceDistance = Float.parseFloat(avoidanceDistanceField.getText().replaceAll(",", "."));
+            } catch (NumberFormatException ex) {
+                avoidanceDistance = -1;
+            }
+            if (avoidanceDistance < 0) {
+                heatMapButton.setSelected(false);
+                JOptionPane.showMessageDialog(simulationFrame, bundle.getString("invalidAvoidanceDistance"), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            double forkliftWidth = fleetList.isSelectionEmpty() ? Forklift.DEFAULT_WIDTH : 0;
+            for (Forklift forklift : fleetList.getSelectedValuesList()) {
+                forkliftWidth = Math.max(forkliftWidth, forklift.getWidth());
+            }
+            NavGrid navGrid = jmeScene.navGrid;
+            distanceHeatMap.show(navGrid.getFlowField(navGrid.cellAt(selectedArea.getWorldTranslation()), NavGrid.clearanceCells(avoidanceDistance, forkliftWidth)));
+        });
+
+        JButton replayButton = new JButton(bundle.getString("replayEventLog"));
+        replayButton.addActionListener(e -> {
+            double playbackSpeed;
+            try {
+                playbackSpeed = Double.parseDouble(playbackSpeedField.getText().replaceAll(",", "."));
+            } catch (NumberFormatException ex) {
+                playbackSpeed = -1;
+            }
+            if (playbackSpeed <= 0) {
+                JOptionPane.showMessageDialog(simulationFrame, bundle.getString("invalidPlaybackSpeed"), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            JFileChooser fileChooser = new JFileChooser();
+            if (fileChooser.showOpenDialog(simulationFrame) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            try {
+                int events = simulationManager.replayEventLog(fileChooser.getSelectedFile(), playbackSpeed);
+                simulationFrame.dispose();
+                JOptionPane.showMessageDialog(null, bundle.getString("eventLogReplayed") + " " + events, bundle.getString("simulation"), JOptionPane.INFORMATION_MESSAGE);
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(simulationFrame, ex.getMessage(), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        JButton pickingButton = new JButton(bundle.getString("pickingSimulation"));
+        pickingButton.addActionListener(e -> {
+            Geometry selectedArea = (Geometry) receivingAreaDropdown.getSelectedItem();
+            if (selectedArea == null) {
+                JOptionPane.showMessageDialog(simulationFrame, bundle.getString("areaNotSelected"), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            float avoidanceDistance;
+            int pickers;
+            try {
+                avoidanceDistance = Float.parseFloat(avoidanceDistanceField.getText().replaceAll(",", "."));
+                pickers = Integer.parseInt(pickersField.getText().trim());
+            } catch (NumberFormatException ex) {
+                avoidanceDistance = -1;
+                pickers = 0;
+            }
+            if (avoidanceDistance < 0 || pickers < 1) {
+                JOptionPane.showMessageDialog(simulationFrame, bundle.getString("invalidPickingParameters"), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            JFileChooser fileChooser = new JFileChooser();
+            if (fileChooser.showOpenDialog(simulationFrame) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            List<PickLine> lines;
+            try {
+                lines = OrderFile.read(fileChooser.getSelectedFile());
+            } catch (IOException | IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(simulationFrame, ex.getMessage(), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            SimulationManager pickingManager = new SimulationManager(jmeScene, avoidanceDistance, (PathFindingMode) pathFindingModeDropdown.getSelectedItem());
+            int selectedPickers = pickers;
+            pickingButton.setEnabled(false);
+            simulationFrame.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            new SwingWorker<List<PickingReport>, Void>() {
+                @Override
+                protected List<PickingReport> doInBackground() {
+                    return pickingManager.startPickingSimulation(selectedArea, lines, selectedPickers, DEFAULT_PICKER_SPEED, DEFAULT_PICK_TIME, DEFAULT_BATCH_SIZE);
+                }
+
+                @Override
+                protected void done() {
+                    simulationFrame.dispose();
+                    try {
+                        StringBuilder results = new StringBuilder();
+                        for (PickingReport report : get()) {
+                            results.append(report.format(bundle)).append("\n");
+                        }
+                        JOptionPane.showMessageDialog(null, results.toString(), bundle.getString("simulationResults"), JOptionPane.INFORMATION_MESSAGE);
+                    } catch (InterruptedException | ExecutionException ex) {
+                        JOptionPane.showMessageDialog(null, ex.getMessage(), bundle.getString("error"), JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }.execute();
+        });
+
+        JPanel southPanel = new JPanel(new GridLayout(1, 4));
+        southPanel.add(heatMapButton);
+        southPanel.add(replayButton);
+        southPanel.add(pickingButton);
+        southPanel.add(startSimulationButton);
+        panel.add(southPanel, BorderLayout.SOUTH);
+
+        return panel;
     }
 
     private void updateAvailablePalletsList() {